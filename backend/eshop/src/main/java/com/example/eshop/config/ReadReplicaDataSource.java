@@ -0,0 +1,154 @@
+package com.example.eshop.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out connections of the read replicas whose lag is within tolerance, round robin, and falls
+ * back to the primary when none is. Used as the read-only target of the routing proxy built in
+ * ReadReplicaConfig, so only read-only transactions ever get here.
+ * Lag is the age of the newest heartbeat visible on a replica: every check writes the current time
+ * to the primary and reads back what each replica has. Replicas start out unhealthy until the first
+ * check has seen them.
+ */
+@Slf4j
+public class ReadReplicaDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final long UNKNOWN_LAG = Long.MAX_VALUE;
+
+    private final DataSource primary;
+    private final JdbcTemplate primaryJdbc;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile boolean heartbeatTableReady;
+
+    public ReadReplicaDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.primary = primary;
+        this.primaryJdbc = new JdbcTemplate(primary);
+        this.replicas = replicas.entrySet().stream()
+                .map(replica -> new Replica(replica.getKey(), replica.getValue()))
+                .toList();
+        this.maxLagMillis = maxLag.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pick().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return pick().getConnection(username, password);
+    }
+
+    // Names of the replicas currently taking reads
+    public List<String> getHealthyReplicas() {
+        return replicas.stream().filter(Replica::isHealthy).map(Replica::getName).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${app.read-replica.heartbeat-interval:PT1S}")
+    public void checkReplicas() {
+        long now = System.currentTimeMillis();
+        try {
+            writeHeartbeat(now);
+        } catch (DataAccessException e) {
+            // Without a fresh heartbeat every replica would look lagged, keep the last verdict
+            log.warn("Could not write replica heartbeat: {}", e.getMessage());
+            return;
+        }
+        replicas.forEach(replica -> replica.check(now));
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    // Private helper methods
+    private DataSource pick() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.isHealthy()) {
+                return replica.dataSource;
+            }
+        }
+        return primary;
+    }
+
+    // Update first, another node inserting the row concurrently only costs one retry
+    private void writeHeartbeat(long now) {
+        if (!heartbeatTableReady) {
+            primaryJdbc.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+            heartbeatTableReady = true;
+        }
+        if (primaryJdbc.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now) == 0) {
+            try {
+                primaryJdbc.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", now);
+            } catch (DuplicateKeyException e) {
+                primaryJdbc.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", now);
+            }
+        }
+    }
+
+    private final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbc;
+        private volatile long lagMillis = UNKNOWN_LAG;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbc = new JdbcTemplate(dataSource);
+        }
+
+        private String getName() {
+            return name;
+        }
+
+        private boolean isHealthy() {
+            return lagMillis <= maxLagMillis;
+        }
+
+        private void check(long now) {
+            boolean wasHealthy = isHealthy();
+            try {
+                List<Long> beats = jdbc.queryForList("SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+                lagMillis = beats.isEmpty() ? UNKNOWN_LAG : Math.max(0, now - beats.get(0));
+            } catch (DataAccessException e) {
+                lagMillis = UNKNOWN_LAG;
+            }
+
+            if (wasHealthy && !isHealthy()) {
+                log.warn("Read replica {} is {} behind, sending its reads to the primary", name, describeLag());
+            } else if (!wasHealthy && isHealthy()) {
+                log.info("Read replica {} is {} behind, taking reads", name, describeLag());
+            }
+        }
+
+        private String describeLag() {
+            return lagMillis == UNKNOWN_LAG ? "an unknown time" : lagMillis + " ms";
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.eshop.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.resource.jdbc.spi.LogicalConnectionImplementor;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.SQLException;
+
+/**
+ * Hands the connection of a read-only transaction back once it ends. Hibernate otherwise keeps it
+ * until the session closes, and an open-in-view session would run its next, writing, transaction
+ * on the replica connection. The connection of a writing transaction is kept, so reads later in the
+ * same request stay on the primary and see the write.
+ */
+class ReadReplicaJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException {
+        Object transactionData = super.beginTransaction(entityManager, definition);
+        return definition.isReadOnly() ? new ReadOnlyTransaction(getSession(entityManager), transactionData) : transactionData;
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (transactionData instanceof ReadOnlyTransaction readOnly) {
+            super.cleanupTransaction(readOnly.transactionData());
+            LogicalConnectionImplementor connection = readOnly.session().getJdbcCoordinator().getLogicalConnection();
+            if (readOnly.session().isOpen() && connection.isPhysicallyConnected()) {
+                connection.manualDisconnect();
+            }
+        } else {
+            super.cleanupTransaction(transactionData);
+        }
+    }
+
+    private record ReadOnlyTransaction(SessionImplementor session, Object transactionData) {
+    }
+}
@@ -4,32 +4,60 @@ import com.example.eshop.exception.MissingImageException;
 import com.example.eshop.model.Category;
 import com.example.eshop.model.Product;
 import com.example.eshop.model.User;
+import com.example.eshop.model.dto.business.AdminStatsDto;
+import com.example.eshop.model.dto.business.CategorySummaryDto;
 import com.example.eshop.model.dto.business.ProductDto;
+import com.example.eshop.model.dto.business.ProductImportStatus;
 import com.example.eshop.model.dto.business.ProductRequest;
+import com.example.eshop.model.dto.business.ProductScrollDto;
+import com.example.eshop.model.dto.business.ProductCacheStats;
+import com.example.eshop.model.dto.business.StaleOrderReconcilerStats;
+import com.example.eshop.service.AdminStatsService;
 import com.example.eshop.service.CategoryService;
+import com.example.eshop.service.DataExportService;
 import com.example.eshop.service.ImageUploadService;
+import com.example.eshop.service.ProductCatalogCache;
+import com.example.eshop.service.ProductImportService;
 import com.example.eshop.service.ProductService;
+import com.example.eshop.service.StaleOrderReconciler;
 import com.example.eshop.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin")
+@Validated
 @RequiredArgsConstructor
 @Slf4j
 @PreAuthorize("hasRole('ADMIN')")
@@ -41,6 +69,11 @@ public class AdminController {
     private final CategoryService categoryService;
     private final UserService userService;
     private final ImageUploadService imageUploadService;
+    private final StaleOrderReconciler staleOrderReconciler;
+    private final ProductCatalogCache productCatalogCache;
+    private final AdminStatsService adminStatsService;
+    private final ProductImportService productImportService;
+    private final DataExportService dataExportService;
 
     // Product Management Endpoints
 
@@ -65,6 +98,26 @@ public class AdminController {
         return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
     }
 
+    @PostMapping(value = "/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Import products from a CSV or NDJSON request body",
+            description = "Columns: name, description, price, stock, category (by name), image_url and active. " +
+                    "The import runs in the background, poll the returned job for progress and rejected rows.")
+    public ResponseEntity<ProductImportStatus> importProducts(
+            HttpServletRequest request,
+            @Parameter(description = "Name of the uploaded file, shown in the job status")
+            @RequestParam(required = false) String fileName) throws IOException {
+        log.info("Admin importing products from {}", fileName);
+        ProductImportStatus status = productImportService.submit(
+                request.getInputStream(), MediaType.parseMediaType(request.getContentType()), fileName);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    @GetMapping("/products/import/{jobId}")
+    @Operation(summary = "Get the progress and rejected rows of a product import")
+    public ResponseEntity<ProductImportStatus> getProductImport(@PathVariable String jobId) {
+        return ResponseEntity.ok(productImportService.getStatus(jobId));
+    }
+
     @PutMapping("/products/{id}")
     @Operation(summary = "Update an existing product")
     public ResponseEntity<ProductDto> updateProduct(
@@ -139,9 +192,23 @@ public class AdminController {
         Sort sort = Sort.by(sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC, sortBy);
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Product> productPage = productService.getAllProducts(pageable);
-        Page<ProductDto> productDtoPage = productPage.map(productService::convertToDto);
-        return ResponseEntity.ok(productDtoPage);
+        return ResponseEntity.ok(productService.getProductDtos(pageable));
+    }
+
+    @GetMapping("/products/scroll")
+    @Operation(summary = "Walk all products with a continuation cursor instead of page numbers")
+    public ResponseEntity<ProductScrollDto> scrollProductsForAdmin(
+            @Parameter(description = "Cursor from the previous response, omit for the first window") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Window size") @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 100, message = "Size must be at most 100") int size,
+            @Parameter(description = "Sort field") @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Category ID filter") @RequestParam(required = false) Long categoryId) {
+
+        log.debug("Admin scrolling products - categoryId: {}, sortBy: {}, sortDir: {}", categoryId, sortBy, sortDir);
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return ResponseEntity.ok(productService.scrollProducts(categoryId, sortBy, direction, cursor, size));
     }
 
     // Category Management Endpoints
@@ -176,11 +243,10 @@ public class AdminController {
     }
 
     @GetMapping("/categories")
-    @Operation(summary = "Get all categories for admin management")
-    public ResponseEntity<List<Category>> getAllCategoriesForAdmin() {
+    @Operation(summary = "Get all categories with their product counts for admin management")
+    public ResponseEntity<List<CategorySummaryDto>> getAllCategoriesForAdmin() {
         log.debug("Admin fetching all categories");
-        List<Category> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok(categoryService.getCategorySummaries());
     }
 
     @GetMapping("/categories/{id}/product-count")
@@ -253,29 +319,107 @@ public class AdminController {
         return ResponseEntity.noContent().build();
     }
 
+    // Export Endpoints
+
+    @GetMapping("/export/products")
+    @Operation(summary = "Stream all products as CSV or NDJSON, gzip encoded when the client accepts it")
+    public ResponseEntity<StreamingResponseBody> exportProducts(
+            @Parameter(description = "CSV or NDJSON") @RequestParam(defaultValue = "CSV") DataExportService.Format format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Admin exporting products as {}", format);
+        return export("products", format, acceptEncoding, output -> dataExportService.exportProducts(format, output));
+    }
+
+    @GetMapping("/export/orders")
+    @Operation(summary = "Stream orders placed in [from, to) as CSV or NDJSON, gzip encoded when the client accepts it")
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "CSV or NDJSON") @RequestParam(defaultValue = "CSV") DataExportService.Format format,
+            @Parameter(description = "Earliest order date, inclusive") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Latest order date, exclusive") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Admin exporting orders from {} to {} as {}", from, to, format);
+        return export("orders", format, acceptEncoding, output -> dataExportService.exportOrders(format, from, to, output));
+    }
+
+    @GetMapping("/export/order-items")
+    @Operation(summary = "Stream the items of orders placed in [from, to) as CSV or NDJSON, gzip encoded when the client accepts it")
+    public ResponseEntity<StreamingResponseBody> exportOrderItems(
+            @Parameter(description = "CSV or NDJSON") @RequestParam(defaultValue = "CSV") DataExportService.Format format,
+            @Parameter(description = "Earliest order date, inclusive") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Latest order date, exclusive") @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        log.info("Admin exporting order items from {} to {} as {}", from, to, format);
+        return export("order-items", format, acceptEncoding, output -> dataExportService.exportOrderItems(format, from, to, output));
+    }
+
     // System Statistics Endpoints
     
+    @GetMapping("/stats")
+    @Operation(summary = "Get user, product, category and order counts with paid revenue")
+    public ResponseEntity<AdminStatsDto> getStats() {
+        log.debug("Admin fetching dashboard stats");
+        return ResponseEntity.ok(adminStatsService.getStats());
+    }
+
     @GetMapping("/stats/users")
     @Operation(summary = "Get total user count")
     public ResponseEntity<Long> getTotalUserCount() {
         log.debug("Admin fetching total user count");
-        Long userCount = userService.getTotalUserCount();
-        return ResponseEntity.ok(userCount);
+        return ResponseEntity.ok(adminStatsService.getStats().users());
     }
 
     @GetMapping("/stats/products")
     @Operation(summary = "Get total product count")
     public ResponseEntity<Long> getTotalProductCount() {
         log.debug("Admin fetching total product count");
-        Page<Product> productPage = productService.getAllProducts(PageRequest.of(0, 1));
-        return ResponseEntity.ok(productPage.getTotalElements());
+        return ResponseEntity.ok(adminStatsService.getStats().products());
     }
 
     @GetMapping("/stats/categories")
     @Operation(summary = "Get total category count")
     public ResponseEntity<Long> getTotalCategoryCount() {
         log.debug("Admin fetching total category count");
-        List<Category> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok((long) categories.size());
+        return ResponseEntity.ok(adminStatsService.getStats().categories());
+    }
+
+    @GetMapping("/stats/stale-orders")
+    @Operation(summary = "Get stale order reconciler throughput and backlog")
+    public ResponseEntity<StaleOrderReconcilerStats> getStaleOrderReconcilerStats() {
+        log.debug("Admin fetching stale order reconciler stats");
+        return ResponseEntity.ok(staleOrderReconciler.getStats());
+    }
+
+    @GetMapping("/stats/product-cache")
+    @Operation(summary = "Get product catalog cache hit, miss and eviction counts")
+    public ResponseEntity<List<ProductCacheStats>> getProductCacheStats() {
+        log.debug("Admin fetching product catalog cache stats");
+        return ResponseEntity.ok(productCatalogCache.getStats());
+    }
+
+    // Private helper methods
+
+    // The body is written on an async request thread after this returns, compressed as it goes
+    private ResponseEntity<StreamingResponseBody> export(String name, DataExportService.Format format, String acceptEncoding,
+                                                         Consumer<OutputStream> exporter) {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+        String fileName = name + "-" + LocalDate.now() + "." + format.getExtension();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!gzip) {
+            return response.body(exporter::accept);
+        }
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(output -> {
+                    GZIPOutputStream compressed = new GZIPOutputStream(output, 64 * 1024);
+                    exporter.accept(compressed);
+                    compressed.finish();
+                });
     }
 }
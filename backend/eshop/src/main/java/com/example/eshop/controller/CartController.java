@@ -1,6 +1,8 @@
 package com.example.eshop.controller;
 
 import com.example.eshop.model.dto.business.AddToCartRequest;
+import com.example.eshop.model.dto.business.CartOperationsRequest;
+import com.example.eshop.model.dto.business.CartSummaryDto;
 import com.example.eshop.model.dto.business.UserCartDto;
 import com.example.eshop.model.dto.common.SuccessResponse;
 import com.example.eshop.security.util.SecurityUtils;
@@ -9,6 +11,7 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -22,26 +25,67 @@ public class CartController {
 
     private final CartService cartService;
 
+    // The ETag is the cart version. A client polling with If-None-Match gets 304 without the cart being read.
     @GetMapping
-    public ResponseEntity<?> getUserCart() {
+    public ResponseEntity<?> getUserCart(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         Long userId = SecurityUtils.getCurrentUserId();
 
+        if (ifNoneMatch != null) {
+            long version = cartService.getCartVersion(userId);
+            if (matchesVersion(ifNoneMatch, version)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(Long.toString(version))
+                        .build();
+            }
+        }
+
         UserCartDto userCartDto = cartService.getUserCart(userId);
 
+        return ResponseEntity.ok()
+                .eTag(Long.toString(userCartDto.version()))
+                .body(new SuccessResponse<>(userCartDto));
+    }
+
+    // Item count, total and availability for the mini-cart, served from cache
+    @GetMapping("/summary")
+    public ResponseEntity<?> getCartSummary() {
+        Long userId = SecurityUtils.getCurrentUserId();
+
+        CartSummaryDto summary = cartService.getCartSummary(userId);
+
         return ResponseEntity.ok(
-                new SuccessResponse<>(userCartDto)
+                new SuccessResponse<>(summary)
         );
     }
 
+    // Edits honor If-Match with the ETag of the cart the client last saw (412 when it changed meanwhile)
+    // and send back the ETag of the edited cart
     @PostMapping
-    public ResponseEntity<?> addCartItem(@Valid @RequestBody AddToCartRequest request) {
+    public ResponseEntity<?> addCartItem(
+            @Valid @RequestBody AddToCartRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Long userId = SecurityUtils.getCurrentUserId();
 
-        cartService.addItemToCart(userId, request);
+        long version = cartService.addItemToCart(userId, request, expectedVersion(ifMatch));
 
-        return ResponseEntity.ok(
-                new SuccessResponse<>(HttpStatus.OK, "Product added to cart")
-        );
+        return ResponseEntity.ok()
+                .eTag(Long.toString(version))
+                .body(new SuccessResponse<>(HttpStatus.OK, "Product added to cart"));
+    }
+
+    // Applies several edits in one request and returns the resulting cart
+    @PatchMapping
+    public ResponseEntity<?> applyCartOperations(
+            @Valid @RequestBody CartOperationsRequest request,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Long userId = SecurityUtils.getCurrentUserId();
+
+        UserCartDto userCartDto = cartService.applyOperations(userId, request.operations(), expectedVersion(ifMatch));
+
+        return ResponseEntity.ok()
+                .eTag(Long.toString(userCartDto.version()))
+                .body(new SuccessResponse<>(userCartDto));
     }
 
     @PutMapping("/{productId}")
@@ -52,40 +96,82 @@ public class CartController {
 
             @RequestParam
             @NotNull(message = "Quantity is required")
-            @Positive(message = "Quantity must be at least 1") Integer quantity
+            @Positive(message = "Quantity must be at least 1") Integer quantity,
+
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         Long userId = SecurityUtils.getCurrentUserId();
 
-        cartService.updateCartItem(userId, productId, quantity);
+        long version = cartService.updateCartItem(userId, productId, quantity, expectedVersion(ifMatch));
 
-        return ResponseEntity.ok(
-                new SuccessResponse<>(HttpStatus.OK, "Cart item updated")
-        );
+        return ResponseEntity.ok()
+                .eTag(Long.toString(version))
+                .body(new SuccessResponse<>(HttpStatus.OK, "Cart item updated"));
     }
 
     @DeleteMapping("/{productId}")
     public ResponseEntity<?> removeCartItem(
             @PathVariable
             @NotNull(message = "Product ID is required")
-            @Positive(message = "Product ID must be positive") Long productId
+            @Positive(message = "Product ID must be positive") Long productId,
+
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch
     ) {
         Long userId = SecurityUtils.getCurrentUserId();
 
-        cartService.removeCartItem(userId, productId);
+        long version = cartService.removeCartItem(userId, productId, expectedVersion(ifMatch));
 
-        return ResponseEntity.ok(
-                new SuccessResponse<>(HttpStatus.OK, "Cart item removed")
-        );
+        return ResponseEntity.ok()
+                .eTag(Long.toString(version))
+                .body(new SuccessResponse<>(HttpStatus.OK, "Cart item removed"));
     }
 
     @DeleteMapping
-    public ResponseEntity<?> clearCart() {
+    public ResponseEntity<?> clearCart(
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         Long userId = SecurityUtils.getCurrentUserId();
 
-        cartService.clearCart(userId);
+        long version = cartService.clearCart(userId, expectedVersion(ifMatch));
 
-        return ResponseEntity.ok(
-                new SuccessResponse<>(HttpStatus.OK, "Cart cleared")
-        );
+        return ResponseEntity.ok()
+                .eTag(Long.toString(version))
+                .body(new SuccessResponse<>(HttpStatus.OK, "Cart cleared"));
+    }
+
+    // Private helper methods
+
+    // Version named by If-Match, null when absent or "*". A tag that is no cart version never matches.
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Long version = parseVersion(ifMatch.trim());
+        return version != null ? version : -1L;
+    }
+
+    // If-None-Match holds "*" or a list of tags, weak ones included
+    private static boolean matchesVersion(String ifNoneMatch, long version) {
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            Long tagged = parseVersion(tag.startsWith("W/") ? tag.substring(2) : tag);
+            if (tagged != null && tagged == version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Long parseVersion(String tag) {
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return null;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.example.eshop.model.dto.business.PaymentOrderDto;
 import com.example.eshop.model.dto.common.SuccessResponse;
 import com.example.eshop.security.util.CurrentUserProvider;
 //import com.example.eshop.security.util.SecurityUtils;
+import com.example.eshop.service.IdempotencyService;
 import com.example.eshop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,6 +13,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -25,12 +27,18 @@ public class CheckoutController {
 
     private final OrderService orderService;
     private final CurrentUserProvider currentUserProvider;
+    private final IdempotencyService idempotencyService;
+
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
     // Returns PayPal order ID for frontend to redirect user to PayPal
+    // Retries with the same Idempotency-Key get the first PayPal order back instead of a new one
     @PostMapping("/initialize")
-    public ResponseEntity<?> initializeCheckout() {
+    public ResponseEntity<?> initializeCheckout(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         Long userId = currentUserProvider.getCurrentUserId();
-        PaymentOrderDto paymentOrder = orderService.initializeCheckout(userId);
+        PaymentOrderDto paymentOrder = idempotencyService.execute("checkout-initialize", userId, idempotencyKey, null,
+                () -> orderService.initializeCheckout(userId));
 
         log.info("Checkout initialized for user: {}, PayPal Order ID: {}",
                 userId, paymentOrder.payPalOrderDetailDto().paypalOrderId());
@@ -42,9 +50,13 @@ public class CheckoutController {
 
     // Called when user returns from PayPal after approving payment
     @PostMapping("/complete")
-    public ResponseEntity<?> completeCheckout(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> completeCheckout(
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @RequestBody Map<String, String> request) {
+        Long userId = currentUserProvider.getCurrentUserId();
         String paypalOrderId = request.get("paypalOrderId");
-        OrderDto completedOrder = orderService.completeCheckout(paypalOrderId);
+        OrderDto completedOrder = idempotencyService.execute("checkout-complete", userId, idempotencyKey, paypalOrderId,
+                () -> orderService.completeCheckout(paypalOrderId));
 
         log.info("Checkout completed for PayPal Order ID: {}", paypalOrderId);
 
@@ -1,13 +1,19 @@
 package com.example.eshop.controller;
 
-import com.example.eshop.model.Category;
-import com.example.eshop.model.Product;
+import com.example.eshop.model.dto.business.CategorySummaryDto;
 import com.example.eshop.model.dto.business.ProductDto;
+import com.example.eshop.model.dto.business.ProductFacetPage;
+import com.example.eshop.model.dto.business.ProductFilter;
+import com.example.eshop.model.dto.business.ProductListDto;
+import com.example.eshop.model.dto.business.ProductScrollDto;
+import com.example.eshop.model.dto.business.SuggestionDto;
 import com.example.eshop.service.CategoryService;
 import com.example.eshop.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -15,14 +21,16 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.util.HashSet;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/products")
+@Validated
 @RequiredArgsConstructor
 @Slf4j
 @Tag(name = "Product Catalog", description = "Public API for browsing products and categories")
@@ -33,18 +41,21 @@ public class ProductController {
 
     @GetMapping
     @Operation(summary = "Get all products with pagination and filtering")
-    public ResponseEntity<Page<ProductDto>> getAllProducts(
+    public ResponseEntity<Page<ProductListDto>> getAllProducts(
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size,
             @Parameter(description = "Sort field") @RequestParam(defaultValue = "id") String sortBy,
             @Parameter(description = "Sort direction") @RequestParam(defaultValue = "asc") String sortDir,
-            @Parameter(description = "Category ID filter") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Category ID filter, repeat to match any of several categories") @RequestParam(required = false) List<Long> categoryId,
             @Parameter(description = "Minimum price filter") @RequestParam(required = false) BigDecimal minPrice,
             @Parameter(description = "Maximum price filter") @RequestParam(required = false) BigDecimal maxPrice,
-            @Parameter(description = "Search term") @RequestParam(required = false) String search) {
+            @Parameter(description = "Search term") @RequestParam(required = false) String search,
+            @Parameter(description = "Active flag filter") @RequestParam(required = false) Boolean active,
+            @Parameter(description = "Only products with available stock (true) or without (false)") @RequestParam(required = false) Boolean inStock,
+            @Parameter(description = "Add category, price bucket and in-stock counts of the whole result") @RequestParam(defaultValue = "false") boolean facets) {
         
-        log.debug("Fetching products - page: {}, size: {}, categoryId: {}, minPrice: {}, maxPrice: {}, search: {}", 
-                page, size, categoryId, minPrice, maxPrice, search);
+        log.debug("Fetching products - page: {}, size: {}, categoryId: {}, minPrice: {}, maxPrice: {}, search: {}, active: {}, inStock: {}", 
+                page, size, categoryId, minPrice, maxPrice, search, active, inStock);
 
         Sort sort = Sort.by(
     sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC,
@@ -52,23 +63,33 @@ public class ProductController {
 );
 
         Pageable pageable = PageRequest.of(page, size, sort);
-        
-        Page<Product> productPage;
-        
-        if (search != null && !search.trim().isEmpty()) {
-            productPage = productService.searchProducts(search.trim(), pageable);
-        } else if (categoryId != null && minPrice != null && maxPrice != null) {
-            productPage = productService.getProductsByCategoryAndPriceRange(categoryId, minPrice, maxPrice, pageable);
-        } else if (categoryId != null) {
-            productPage = productService.getProductsByCategory(categoryId, pageable);
-        } else if (minPrice != null && maxPrice != null) {
-            productPage = productService.getProductsByPriceRange(minPrice, maxPrice, pageable);
-        } else {
-            productPage = productService.getAllProducts(pageable);
+        ProductFilter filter = new ProductFilter(search, categoryId == null ? null : new HashSet<>(categoryId),
+                minPrice, maxPrice, active, inStock);
+        if (filter.hasSearchTerm()) {
+            pageable = searchPageable(page, size, sortBy, pageable);
         }
-        
-        Page<ProductDto> productDtoPage = productPage.map(productService::convertToDto);
-        return ResponseEntity.ok(productDtoPage);
+
+        Page<ProductListDto> productPage = productService.getProducts(filter, pageable);
+        if (facets) {
+            productPage = new ProductFacetPage<>(productPage, productService.getProductFacets(filter));
+        }
+        return ResponseEntity.ok(productPage);
+    }
+
+    @GetMapping("/scroll")
+    @Operation(summary = "Walk products with a continuation cursor instead of page numbers, no total count")
+    public ResponseEntity<ProductScrollDto> scrollProducts(
+            @Parameter(description = "Cursor from the previous response, omit for the first window") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Window size") @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 100, message = "Size must be at most 100") int size,
+            @Parameter(description = "Sort field") @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Sort direction") @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Category ID filter") @RequestParam(required = false) Long categoryId) {
+
+        log.debug("Scrolling products - categoryId: {}, sortBy: {}, sortDir: {}", categoryId, sortBy, sortDir);
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return ResponseEntity.ok(productService.scrollProducts(categoryId, sortBy, direction, cursor, size));
     }
 
     @GetMapping("/{id}")
@@ -77,25 +98,19 @@ public class ProductController {
             @Parameter(description = "Product ID") @PathVariable Long id) {
         
         log.debug("Fetching product by id: {}", id);
-        Product product = productService.getProductById(id);
-        ProductDto productDto = productService.convertToDto(product);
-        return ResponseEntity.ok(productDto);
+        return ResponseEntity.ok(productService.getProductDtoById(id));
     }
 
     @GetMapping("/featured")
     @Operation(summary = "Get featured products")
-    public ResponseEntity<List<ProductDto>> getFeaturedProducts() {
+    public ResponseEntity<List<ProductListDto>> getFeaturedProducts() {
         log.debug("Fetching featured products");
-        List<Product> featuredProducts = productService.getFeaturedProducts();
-        List<ProductDto> featuredProductDtos = featuredProducts.stream()
-                .map(productService::convertToDto)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(featuredProductDtos);
+        return ResponseEntity.ok(productService.getFeaturedProducts());
     }
 
     @GetMapping("/category/{categoryId}")
     @Operation(summary = "Get products by category")
-    public ResponseEntity<Page<ProductDto>> getProductsByCategory(
+    public ResponseEntity<Page<ProductListDto>> getProductsByCategory(
             @Parameter(description = "Category ID") @PathVariable Long categoryId,
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size,
@@ -111,18 +126,16 @@ public class ProductController {
 
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Product> productPage = productService.getProductsByCategory(categoryId, pageable);
-        Page<ProductDto> productDtoPage = productPage.map(productService::convertToDto);
-        return ResponseEntity.ok(productDtoPage);
+        return ResponseEntity.ok(productService.getProductsByCategory(categoryId, pageable));
     }
 
     @GetMapping("/search")
     @Operation(summary = "Search products by name or description")
-    public ResponseEntity<Page<ProductDto>> searchProducts(
+    public ResponseEntity<Page<ProductListDto>> searchProducts(
             @Parameter(description = "Search term") @RequestParam String q,
             @Parameter(description = "Page number (0-based)") @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Page size") @RequestParam(defaultValue = "20") int size,
-            @Parameter(description = "Sort field") @RequestParam(defaultValue = "id") String sortBy,
+            @Parameter(description = "Sort field, relevance ranks by the search index") @RequestParam(defaultValue = "relevance") String sortBy,
             @Parameter(description = "Sort direction") @RequestParam(defaultValue = "asc") String sortDir) {
         
         log.debug("Searching products with term: {}", q);
@@ -134,37 +147,43 @@ public class ProductController {
 
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<Product> productPage = productService.searchProducts(q, pageable);
-        Page<ProductDto> productDtoPage = productPage.map(productService::convertToDto);
-        return ResponseEntity.ok(productDtoPage);
+        return ResponseEntity.ok(productService.searchProducts(q, searchPageable(page, size, sortBy, pageable)));
+    }
+
+    @GetMapping("/suggest")
+    @Operation(summary = "Product and category names starting with a prefix, for typeahead")
+    public ResponseEntity<List<SuggestionDto>> suggest(
+            @Parameter(description = "Typed prefix") @RequestParam String q,
+            @Parameter(description = "Maximum number of suggestions") @RequestParam(defaultValue = "8")
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = 20, message = "Limit must be at most 20") int limit) {
+
+        return ResponseEntity.ok(productService.suggest(q, limit));
     }
 
     @GetMapping("/categories")
-    @Operation(summary = "Get all categories")
-    public ResponseEntity<List<Category>> getAllCategories() {
+    @Operation(summary = "Get all categories with their product counts")
+    public ResponseEntity<List<CategorySummaryDto>> getAllCategories() {
         log.debug("Fetching all categories");
-        List<Category> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok(categoryService.getCategorySummaries());
     }
 
     @GetMapping("/categories/{id}")
     @Operation(summary = "Get category by ID")
-    public ResponseEntity<Category> getCategoryById(
+    public ResponseEntity<CategorySummaryDto> getCategoryById(
             @Parameter(description = "Category ID") @PathVariable Long id) {
         
         log.debug("Fetching category by id: {}", id);
-        Category category = categoryService.getCategoryById(id);
-        return ResponseEntity.ok(category);
+        return ResponseEntity.ok(categoryService.getCategorySummary(id));
     }
 
     @GetMapping("/categories/search")
     @Operation(summary = "Search categories by name")
-    public ResponseEntity<List<Category>> searchCategories(
+    public ResponseEntity<List<CategorySummaryDto>> searchCategories(
             @Parameter(description = "Search term") @RequestParam String q) {
         
         log.debug("Searching categories with term: {}", q);
-        List<Category> categories = categoryService.searchCategories(q);
-        return ResponseEntity.ok(categories);
+        return ResponseEntity.ok(categoryService.searchCategories(q));
     }
 
     @GetMapping("/check-stock/{id}")
@@ -179,6 +198,11 @@ public class ProductController {
     }
 
     // Private helper methods
+    // Unsorted search pages are ranked by relevance
+    private Pageable searchPageable(int page, int size, String sortBy, Pageable sortedPageable) {
+        return "relevance".equals(sortBy) ? PageRequest.of(page, size) : sortedPageable;
+    }
+
     private String mapSortField(String requestedSortField) {
         return switch (requestedSortField) {
             case "id" -> "productId";
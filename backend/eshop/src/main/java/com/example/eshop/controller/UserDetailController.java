@@ -1,11 +1,11 @@
 package com.example.eshop.controller;
 
-import java.util.List;
-
 import com.example.eshop.model.dto.business.*;
 import com.example.eshop.model.dto.common.SuccessResponse;
 import com.example.eshop.service.UserService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
@@ -41,10 +41,15 @@ public class UserDetailController {
 
     @GetMapping("/me/orders")
     @PreAuthorize("hasRole('CUSTOMER')")
-    public ResponseEntity<?> getUserOrders() {
+    public ResponseEntity<?> getUserOrders(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 100, message = "Size must be at most 100") int size
+    ) {
         Long userId = SecurityUtils.getCurrentUserId();
 
-        UserOrderDto userOrders = userService.getUserOrders(userId);
+        UserOrderDto userOrders = userService.getUserOrders(userId, cursor, size);
 
         return ResponseEntity.ok(
                 new SuccessResponse<>(userOrders)
@@ -71,10 +76,14 @@ public class UserDetailController {
     @PreAuthorize("hasRole('CUSTOMER')")
     public ResponseEntity<?> getOrdersByStatus(
             @RequestParam
-            @NotBlank(message = "Status is required") String status) {
+            @NotBlank(message = "Status is required") String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20")
+            @Min(value = 1, message = "Size must be at least 1")
+            @Max(value = 100, message = "Size must be at most 100") int size) {
         Long userId = SecurityUtils.getCurrentUserId();
 
-        List<OrderDto> orders = userService.getOrdersByStatus(userId, status);
+        UserOrderDto orders = userService.getOrdersByStatus(userId, status, cursor, size);
 
         return ResponseEntity.ok(
                 new SuccessResponse<>(orders)
@@ -0,0 +1,15 @@
+package com.example.eshop.exception;
+
+import lombok.Getter;
+
+@Getter
+public class CartVersionMismatchException extends RuntimeException {
+    private final Long expectedVersion;
+    private final long currentVersion;
+
+    public CartVersionMismatchException(Long expectedVersion, long currentVersion) {
+        super("The cart was changed by another request, reload it and retry");
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+}
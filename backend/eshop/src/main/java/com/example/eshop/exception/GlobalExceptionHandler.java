@@ -4,6 +4,7 @@ import com.example.eshop.model.dto.common.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -200,6 +201,15 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
     }
 
+    // Custom error response for unknown or expired product import job
+    @ExceptionHandler(ProductImportNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleProductImportNotFoundException(ProductImportNotFoundException ex, HttpServletRequest request){
+        logger.error("Product import {} not found", ex.getJobId());
+        ErrorResponse response = new ErrorResponse(HttpStatus.NOT_FOUND ,request.getRequestURI());
+        response.addError("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    }
+
     // Custom error response for product not available
     @ExceptionHandler(ProductNotAvailableException.class)
     public ResponseEntity<ErrorResponse> handleProductNotAvailableException(ProductNotAvailableException ex, HttpServletRequest request){
@@ -254,6 +264,37 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(response);
     }
 
+    // Custom error response for a duplicate request that is still in flight or reuses a key
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyConflictException(IdempotencyConflictException ex, HttpServletRequest request){
+        logger.error("Idempotency conflict for key {}: {}", ex.getIdempotencyKey(), ex.getMessage());
+        ErrorResponse response = new ErrorResponse(HttpStatus.CONFLICT, request.getRequestURI());
+        response.addError("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+    }
+
+    // Custom error response when the idempotency store has no room for another key
+    @ExceptionHandler(IdempotencyStoreFullException.class)
+    public ResponseEntity<ErrorResponse> handleIdempotencyStoreFullException(IdempotencyStoreFullException ex, HttpServletRequest request){
+        logger.error("Idempotency store full, rejected key {}", ex.getIdempotencyKey());
+        ErrorResponse response = new ErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, request.getRequestURI());
+        response.addError("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "60")
+                .body(response);
+    }
+
+    // Custom error response for a cart edit made against an outdated version, the current one is sent back as ETag
+    @ExceptionHandler(CartVersionMismatchException.class)
+    public ResponseEntity<ErrorResponse> handleCartVersionMismatchException(CartVersionMismatchException ex, HttpServletRequest request){
+        logger.error("Cart edit expected version {} but the cart is at {}", ex.getExpectedVersion(), ex.getCurrentVersion());
+        ErrorResponse response = new ErrorResponse(HttpStatus.PRECONDITION_FAILED, request.getRequestURI());
+        response.addError("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                .eTag(Long.toString(ex.getCurrentVersion()))
+                .body(response);
+    }
+
     // Custom error response for category not found
     @ExceptionHandler(CategoryNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleCategoryNotFoundException(CategoryNotFoundException ex, HttpServletRequest request){
@@ -0,0 +1,12 @@
+package com.example.eshop.exception;
+
+import lombok.Getter;
+
+@Getter
+public class IdempotencyStoreFullException extends RuntimeException {
+    private final String idempotencyKey;
+    public IdempotencyStoreFullException(String idempotencyKey) {
+        super("Too many requests in progress. Please try again later.");
+        this.idempotencyKey = idempotencyKey;
+    }
+}
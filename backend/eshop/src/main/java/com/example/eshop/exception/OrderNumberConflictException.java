@@ -0,0 +1,12 @@
+package com.example.eshop.exception;
+
+import lombok.Getter;
+
+@Getter
+public class OrderNumberConflictException extends RuntimeException {
+    private final String orderNumber;
+    public OrderNumberConflictException(String orderNumber) {
+        super("Order number already exists: " + orderNumber);
+        this.orderNumber = orderNumber;
+    }
+}
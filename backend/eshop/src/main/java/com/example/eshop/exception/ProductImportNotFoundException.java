@@ -0,0 +1,13 @@
+package com.example.eshop.exception;
+
+import lombok.Getter;
+
+@Getter
+public class ProductImportNotFoundException extends RuntimeException {
+    private final String jobId;
+
+    public ProductImportNotFoundException(String jobId) {
+        super("Product import not found: " + jobId);
+        this.jobId = jobId;
+    }
+}
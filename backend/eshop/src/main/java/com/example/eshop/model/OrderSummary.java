@@ -0,0 +1,74 @@
+package com.example.eshop.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.Immutable;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+// Read model of orders for list views, one row per order written by OrderSummaryJdbcRepository
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Immutable
+@Table(name = "order_summaries", indexes = {
+        @Index(name = "idx_order_summaries_user_date", columnList = "user_id, order_date, order_id"),
+        @Index(name = "idx_order_summaries_user_status_date", columnList = "user_id, order_status, order_date, order_id")
+})
+public class OrderSummary {
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_number", nullable = false, length = 50)
+    private String orderNumber;
+
+    @Column(name = "order_date", nullable = false)
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "order_status", nullable = false)
+    private Order.OrderStatus orderStatus;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(name = "discount_amount", nullable = false, precision = 10, scale = 2)
+    private BigDecimal discountAmount;
+
+    @Column(name = "shipping_cost", nullable = false, precision = 10, scale = 2)
+    private BigDecimal shippingCost;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal tax;
+
+    @Column(name = "grand_total", nullable = false, precision = 10, scale = 2)
+    private BigDecimal grandTotal;
+
+    // Total quantity over all order lines
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount;
+
+    // Image of the first order line
+    @Column(name = "thumbnail_url")
+    private String thumbnailUrl;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -13,6 +13,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
@@ -29,7 +30,15 @@ import lombok.Setter;
 @AllArgsConstructor
 @Builder
 @Entity
-@Table(name = "products")
+// Keyset scrolling seeks on (sort field, product_id), globally and within a category
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_name_id", columnList = "product_name, product_id"),
+        @Index(name = "idx_products_price_id", columnList = "price, product_id"),
+        @Index(name = "idx_products_created_id", columnList = "created_at, product_id"),
+        @Index(name = "idx_products_category_name_id", columnList = "category_id, product_name, product_id"),
+        @Index(name = "idx_products_category_price_id", columnList = "category_id, price, product_id"),
+        @Index(name = "idx_products_category_created_id", columnList = "category_id, created_at, product_id")
+})
 public class Product {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -57,6 +66,12 @@ public class Product {
     @Column(nullable = false)
     private Integer stock;
 
+    // Units held by active checkout reservations, only changed through ProductStockJdbcRepository
+    @Column(name = "reserved_stock", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    @Builder.Default
+    private Integer reservedStock = 0;
+
     @Column(name = "is_active", nullable = false)
     @Builder.Default
     private Boolean isActive = true;
@@ -93,4 +108,10 @@ public class Product {
     public void setStockQuantity(Integer stockQuantity) {
         this.stock = stockQuantity;
     }
+
+    // Stock that can still be put into a new checkout
+    public Integer getAvailableStock() {
+        int reserved = this.reservedStock != null ? this.reservedStock : 0;
+        return this.stock - reserved;
+    }
 }
\ No newline at end of file
@@ -52,6 +52,12 @@ public class User {
     @Column(name = "deleted_at")
     private Instant deletedAt;
 
+    // Bumped by every cart edit and served as the cart's ETag, only changed through CartItemJdbcRepository
+    @Column(name = "cart_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    @Builder.Default
+    private Long cartVersion = 0L;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     @Builder.Default
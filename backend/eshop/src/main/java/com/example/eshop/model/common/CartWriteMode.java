@@ -0,0 +1,8 @@
+package com.example.eshop.model.common;
+
+public enum CartWriteMode {
+    // Every cart edit is a guarded statement on cart_items
+    DIRECT,
+    // Edits change an in-memory copy of the cart that is written to cart_items periodically, single instance only
+    WRITE_BEHIND
+}
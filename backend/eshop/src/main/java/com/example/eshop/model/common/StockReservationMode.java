@@ -0,0 +1,8 @@
+package com.example.eshop.model.common;
+
+public enum StockReservationMode {
+    // SELECT ... FOR UPDATE on every cart product before reserving, concurrent checkouts queue on the rows
+    PESSIMISTIC_LOCK,
+    // Guarded "reserved_stock + ? WHERE stock - reserved_stock >= ?" updates only, no row is held across the checkout
+    CONDITIONAL_UPDATE
+}
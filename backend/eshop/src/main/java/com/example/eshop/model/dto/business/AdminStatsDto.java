@@ -0,0 +1,18 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+// revenue sums the grand totals of paid orders, i.e. processing, shipped or delivered
+public record AdminStatsDto(
+        long users,
+        long products,
+        long activeProducts,
+        long categories,
+        Map<String, Long> ordersByStatus,
+        BigDecimal revenue,
+        LocalDateTime lastReconciledAt,
+        long lastReconcileDrift
+) {
+}
@@ -0,0 +1,27 @@
+package com.example.eshop.model.dto.business;
+
+import com.example.eshop.util.ValidCartOperation;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+// One step of a PATCH /api/cart batch. ADD and SET need productId and quantity, REMOVE only productId.
+@ValidCartOperation
+public record CartOperation(
+        @NotNull(message = "Operation is required")
+        Type op,
+
+        @Positive(message = "Product ID must be positive")
+        Long productId,
+
+        @Positive(message = "Quantity must be at least 1")
+        Integer quantity
+) {
+    public enum Type {
+        // Adds quantity to the item, putting it in the cart if needed
+        ADD,
+        // Replaces the quantity of an item already in the cart
+        SET,
+        REMOVE,
+        CLEAR
+    }
+}
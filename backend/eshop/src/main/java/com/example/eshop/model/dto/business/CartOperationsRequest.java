@@ -0,0 +1,16 @@
+package com.example.eshop.model.dto.business;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+// Applied in order, all or none
+public record CartOperationsRequest(
+        @NotEmpty(message = "At least one operation is required")
+        @Size(max = 100, message = "At most 100 operations per request")
+        List<@Valid @NotNull(message = "Operation is required") CartOperation> operations
+) {
+}
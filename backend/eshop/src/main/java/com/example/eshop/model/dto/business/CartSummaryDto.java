@@ -0,0 +1,13 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public record CartSummaryDto(
+        int itemCount,
+        int totalQuantity,
+        BigDecimal totalPrice,
+        boolean allAvailable,
+        List<Long> unavailableProductIds
+) {
+}
@@ -0,0 +1,11 @@
+package com.example.eshop.model.dto.business;
+
+// Category menu entry, productCount includes inactive products
+public record CategorySummaryDto(
+        Long id,
+        String name,
+        String slug,
+        String iconUrl,
+        Long productCount
+) {
+}
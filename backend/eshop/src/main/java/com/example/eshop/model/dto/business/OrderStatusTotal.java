@@ -0,0 +1,13 @@
+package com.example.eshop.model.dto.business;
+
+import com.example.eshop.model.Order;
+
+import java.math.BigDecimal;
+
+// Order count and grand total sum of one status
+public record OrderStatusTotal(
+        Order.OrderStatus status,
+        Long count,
+        BigDecimal grandTotal
+) {
+}
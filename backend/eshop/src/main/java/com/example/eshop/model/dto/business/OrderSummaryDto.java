@@ -0,0 +1,19 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record OrderSummaryDto(
+        Long orderId,
+        String orderNumber,
+        LocalDateTime orderDate,
+        String orderStatus,
+        BigDecimal subtotal,
+        BigDecimal discountAmount,
+        BigDecimal shippingCost,
+        BigDecimal tax,
+        BigDecimal grandTotal,
+        Integer itemCount,
+        String thumbnailUrl
+) {
+}
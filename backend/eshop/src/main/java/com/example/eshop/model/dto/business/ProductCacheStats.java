@@ -0,0 +1,14 @@
+package com.example.eshop.model.dto.business;
+
+public record ProductCacheStats(
+        String region,
+        int size,
+        int maxSize,
+        long hits,
+        long misses,
+        long evictions,
+        long expirations,
+        long invalidations,
+        double hitRatio
+) {
+}
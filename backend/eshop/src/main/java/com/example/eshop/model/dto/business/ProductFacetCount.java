@@ -0,0 +1,11 @@
+package com.example.eshop.model.dto.business;
+
+// One group of the SQL facet aggregation, inStock is 1 or 0
+public record ProductFacetCount(
+        Long categoryId,
+        String categoryName,
+        Integer priceBucket,
+        Integer inStock,
+        Long count
+) {
+}
@@ -0,0 +1,14 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+
+// Fields of a product read by the facet index, availableStock excludes reserved units
+public record ProductFacetDocument(
+        Long productId,
+        Long categoryId,
+        String categoryName,
+        BigDecimal price,
+        Integer availableStock,
+        Boolean active
+) {
+}
@@ -0,0 +1,22 @@
+package com.example.eshop.model.dto.business;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+/**
+ * A product page with the facets of the whole filtered result. Serializes like any other page
+ * plus a "facets" field, so clients that ignore it keep working.
+ */
+public class ProductFacetPage<T> extends PageImpl<T> {
+
+    private final ProductFacetsDto facets;
+
+    public ProductFacetPage(Page<T> page, ProductFacetsDto facets) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+        this.facets = facets;
+    }
+
+    public ProductFacetsDto getFacets() {
+        return facets;
+    }
+}
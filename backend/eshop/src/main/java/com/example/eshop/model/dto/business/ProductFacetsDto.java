@@ -0,0 +1,20 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Sidebar counts over every product matching the filters, not just the current page
+public record ProductFacetsDto(
+        long total,
+        long inStock,
+        List<CategoryCount> categories,
+        List<PriceBucket> priceBuckets
+) {
+
+    public record CategoryCount(Long categoryId, String categoryName, long count) {
+    }
+
+    // from is inclusive, to is exclusive and null on the last bucket
+    public record PriceBucket(BigDecimal from, BigDecimal to, long count) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Catalog filters of GET /api/products, every non-null filter applies.
+ * inStock compares stock that is not held by checkout reservations.
+ */
+public record ProductFilter(
+        String searchTerm,
+        Set<Long> categoryIds,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        Boolean active,
+        Boolean inStock
+) {
+
+    public ProductFilter {
+        searchTerm = searchTerm == null || searchTerm.isBlank() ? null : searchTerm.trim();
+        categoryIds = categoryIds == null ? Set.of() : Set.copyOf(categoryIds);
+    }
+
+    public boolean hasSearchTerm() {
+        return searchTerm != null;
+    }
+
+    public boolean isEmpty() {
+        return !hasSearchTerm() && categoryIds.isEmpty() && !hasAttributeFilters();
+    }
+
+    // Exactly one category and nothing else, served from the catalog cache
+    public boolean isSingleCategoryOnly() {
+        return !hasSearchTerm() && categoryIds.size() == 1 && !hasAttributeFilters();
+    }
+
+    public boolean isSearchOnly() {
+        return hasSearchTerm() && categoryIds.isEmpty() && !hasAttributeFilters();
+    }
+
+    private boolean hasAttributeFilters() {
+        return minPrice != null || maxPrice != null || active != null || inStock != null;
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.eshop.model.dto.business;
+
+public record ProductImportError(long row, String message) {
+}
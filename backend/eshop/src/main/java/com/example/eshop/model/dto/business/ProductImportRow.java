@@ -0,0 +1,16 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+
+// A validated row of a bulk product import, row is its position in the uploaded file
+public record ProductImportRow(
+        long row,
+        Long categoryId,
+        String name,
+        String description,
+        BigDecimal price,
+        String imageUrl,
+        int stock,
+        boolean active
+) {
+}
@@ -0,0 +1,24 @@
+package com.example.eshop.model.dto.business;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Progress of a bulk product import, errors holds the first rejected rows only
+public record ProductImportStatus(
+        String jobId,
+        String fileName,
+        String format,
+        String state,
+        long rowsRead,
+        long imported,
+        long failed,
+        List<ProductImportError> errors,
+        String failureReason,
+        LocalDateTime submittedAt,
+        LocalDateTime finishedAt
+) {
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+}
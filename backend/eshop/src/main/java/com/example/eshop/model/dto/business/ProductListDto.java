@@ -0,0 +1,17 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+
+// Product card of the catalog grids, carries a description prefix instead of the full TEXT column
+public record ProductListDto(
+        Long id,
+        String name,
+        String shortDescription,
+        BigDecimal price,
+        String imageUrl,
+        Integer stockQuantity,
+        Long categoryId,
+        String categoryName,
+        Boolean isActive
+) {
+}
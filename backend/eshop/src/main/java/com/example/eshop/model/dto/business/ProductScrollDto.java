@@ -0,0 +1,10 @@
+package com.example.eshop.model.dto.business;
+
+import java.util.List;
+
+// nextCursor is null on the last window
+public record ProductScrollDto(
+        List<ProductListDto> products,
+        String nextCursor
+) {
+}
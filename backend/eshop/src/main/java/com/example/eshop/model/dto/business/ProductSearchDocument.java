@@ -0,0 +1,12 @@
+package com.example.eshop.model.dto.business;
+
+import java.math.BigDecimal;
+
+// Fields of a product read by the search index
+public record ProductSearchDocument(
+        Long productId,
+        String productName,
+        String description,
+        BigDecimal price
+) {
+}
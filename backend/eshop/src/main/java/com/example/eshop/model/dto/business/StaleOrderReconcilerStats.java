@@ -0,0 +1,22 @@
+package com.example.eshop.model.dto.business;
+
+import java.time.LocalDateTime;
+
+public record StaleOrderReconcilerStats(
+        boolean running,
+        long runs,
+        long processed,
+        long captured,
+        long cancelled,
+        long expired,
+        long retained,
+        long manualReview,
+        long paypalTimeouts,
+        long failed,
+        long backlog,
+        LocalDateTime lastRunStartedAt,
+        long lastRunDurationMs,
+        long lastRunProcessed,
+        double lastRunOrdersPerSecond
+) {
+}
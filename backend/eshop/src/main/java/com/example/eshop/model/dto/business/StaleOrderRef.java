@@ -0,0 +1,13 @@
+package com.example.eshop.model.dto.business;
+
+import java.time.LocalDateTime;
+
+// Just enough of a stale order to ask PayPal about it, the order itself is reloaded per transaction
+public record StaleOrderRef(
+        Long orderId,
+        String orderNumber,
+        String paypalOrderId,
+        LocalDateTime orderDate,
+        LocalDateTime createdAt
+) {
+}
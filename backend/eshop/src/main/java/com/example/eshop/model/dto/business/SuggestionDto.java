@@ -0,0 +1,12 @@
+package com.example.eshop.model.dto.business;
+
+// One typeahead entry, type is "product" or "category"
+public record SuggestionDto(
+        String type,
+        Long id,
+        String name
+) {
+
+    public static final String PRODUCT = "product";
+    public static final String CATEGORY = "category";
+}
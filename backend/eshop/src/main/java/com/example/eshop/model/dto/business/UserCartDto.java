@@ -5,6 +5,8 @@ import java.util.List;
 
 public record UserCartDto(
         List<CartItemDto> items,
-        BigDecimal totalPrice
+        BigDecimal totalPrice,
+        // Also sent as the ETag header
+        long version
 ) {
 }
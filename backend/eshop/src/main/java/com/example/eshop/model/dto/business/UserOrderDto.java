@@ -2,5 +2,6 @@ package com.example.eshop.model.dto.business;
 
 import java.util.List;
 
-public record UserOrderDto(List<OrderDto> orders) {
+// nextCursor is passed back as ?cursor= to get the following page, null on the last page
+public record UserOrderDto(List<OrderSummaryDto> orders, String nextCursor) {
 }
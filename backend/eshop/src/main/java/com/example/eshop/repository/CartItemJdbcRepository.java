@@ -0,0 +1,211 @@
+package com.example.eshop.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Cart item writes that go straight to the cart_items table instead of through the User aggregate.
+ * Quantity changes are single guarded statements: the row is only written when the product is
+ * active and its available stock ({@code stock - reserved_stock}) covers the resulting quantity.
+ * A statement that writes nothing is explained afterwards with {@link #findStockCheck}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CartItemJdbcRepository {
+
+    // Inserts the item or adds to the quantity already in the cart, keyed by unique (user_id, product_id)
+    private static final String ADD_QUANTITY_SQL =
+            "INSERT INTO cart_items (user_id, product_id, quantity, added_at, updated_at) " +
+            "SELECT ?, p.product_id, ?, ?, ? FROM products p " +
+            "WHERE p.product_id = ? AND p.is_active = TRUE AND p.stock - p.reserved_stock >= ? + " +
+            "COALESCE((SELECT ci.quantity FROM cart_items ci WHERE ci.user_id = ? AND ci.product_id = ?), 0) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + ?, updated_at = ?";
+    private static final String SET_QUANTITY_SQL =
+            "UPDATE cart_items SET quantity = ?, updated_at = ? WHERE user_id = ? AND product_id = ? " +
+            "AND EXISTS (SELECT 1 FROM products p WHERE p.product_id = cart_items.product_id " +
+            "AND p.is_active = TRUE AND p.stock - p.reserved_stock >= ?)";
+    private static final String DELETE_SQL =
+            "DELETE FROM cart_items WHERE user_id = ? AND product_id = ?";
+    private static final String DELETE_ALL_SQL =
+            "DELETE FROM cart_items WHERE user_id = ?";
+    // Absolute quantities written by the write-behind cart store, writing one twice changes nothing
+    private static final String UPSERT_QUANTITY_SQL =
+            "INSERT INTO cart_items (user_id, product_id, quantity, added_at, updated_at) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = ?, updated_at = ?";
+    private static final String SELECT_QUANTITIES_SQL =
+            "SELECT product_id, quantity FROM cart_items WHERE user_id = ? ORDER BY cart_item_id";
+    // Locks the cart's rows until the transaction ends, so concurrent edits wait for a batch of operations
+    private static final String LOCK_QUANTITIES_SQL = SELECT_QUANTITIES_SQL + " FOR UPDATE";
+    private static final String SELECT_PRODUCT_STOCK_SQL =
+            "SELECT product_id, is_active, stock - reserved_stock FROM products WHERE product_id IN (%s)";
+    private static final String SELECT_STOCK_CHECK_SQL =
+            "SELECT p.is_active, p.stock - p.reserved_stock, " +
+            "(SELECT ci.quantity FROM cart_items ci WHERE ci.user_id = ? AND ci.product_id = p.product_id) " +
+            "FROM products p WHERE p.product_id = ?";
+    // What the cart summary needs of each item, without the product descriptions of the cart page
+    private static final String SELECT_SUMMARY_LINES_SQL =
+            "SELECT ci.product_id, ci.quantity, p.price, " +
+            "p.is_active = TRUE AND ci.quantity <= p.stock - p.reserved_stock " +
+            "FROM cart_items ci JOIN products p ON p.product_id = ci.product_id " +
+            "WHERE ci.user_id = ? ORDER BY ci.cart_item_id";
+
+    private static final String SELECT_CART_VERSION_SQL =
+            "SELECT cart_version FROM users WHERE user_id = ?";
+    // Holds the user row, and with it edits of the cart, until the transaction ends
+    private static final String LOCK_CART_VERSION_SQL = SELECT_CART_VERSION_SQL + " FOR UPDATE";
+    private static final String INCREMENT_CART_VERSION_SQL =
+            "UPDATE users SET cart_version = cart_version + 1 WHERE user_id = ?";
+    // Optimistic check, the edit only goes ahead when the client saw the current version
+    private static final String INCREMENT_CART_VERSION_IF_SQL =
+            INCREMENT_CART_VERSION_SQL + " AND cart_version = ?";
+    // Versions handed out from memory by the write-behind cart store, see reserveCartVersions
+    private static final String RESERVE_CART_VERSIONS_SQL =
+            "UPDATE users SET cart_version = cart_version + ? WHERE user_id = ?";
+    private static final String RELEASE_CART_VERSIONS_SQL =
+            "UPDATE users SET cart_version = ? WHERE user_id = ? AND cart_version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // False when the product is missing, inactive or short of stock for the new cart quantity
+    public boolean addQuantity(Long userId, Long productId, int quantity) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        return jdbcTemplate.update(ADD_QUANTITY_SQL,
+                userId, quantity, now, now, productId, quantity, userId, productId, quantity, now) > 0;
+    }
+
+    // False when the item is not in the cart, or the product is inactive or short of stock
+    public boolean setQuantity(Long userId, Long productId, int quantity) {
+        return jdbcTemplate.update(SET_QUANTITY_SQL,
+                quantity, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS), userId, productId, quantity) > 0;
+    }
+
+    public boolean delete(Long userId, Long productId) {
+        return jdbcTemplate.update(DELETE_SQL, userId, productId) > 0;
+    }
+
+    public int deleteAll(Long userId) {
+        return jdbcTemplate.update(DELETE_ALL_SQL, userId);
+    }
+
+    // Product id to quantity, in the order the items were added
+    public Map<Long, Integer> findQuantities(Long userId) {
+        return queryQuantities(SELECT_QUANTITIES_SQL, userId);
+    }
+
+    public Map<Long, Integer> lockQuantities(Long userId) {
+        return queryQuantities(LOCK_QUANTITIES_SQL, userId);
+    }
+
+    // Sets each item to its quantity, deleting the items whose quantity is 0
+    public void writeQuantities(List<CartQuantity> items) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<CartQuantity> upserts = items.stream().filter(item -> item.quantity() > 0).toList();
+        List<CartQuantity> deletes = items.stream().filter(item -> item.quantity() == 0).toList();
+
+        jdbcTemplate.batchUpdate(UPSERT_QUANTITY_SQL, upserts, upserts.size(),
+                (ps, item) -> {
+                    ps.setLong(1, item.userId());
+                    ps.setLong(2, item.productId());
+                    ps.setInt(3, item.quantity());
+                    ps.setObject(4, now);
+                    ps.setObject(5, now);
+                    ps.setInt(6, item.quantity());
+                    ps.setObject(7, now);
+                });
+        jdbcTemplate.batchUpdate(DELETE_SQL, deletes, deletes.size(),
+                (ps, item) -> {
+                    ps.setLong(1, item.userId());
+                    ps.setLong(2, item.productId());
+                });
+    }
+
+    // Empty when the user does not exist
+    public Optional<Long> findCartVersion(Long userId) {
+        return jdbcTemplate.queryForList(SELECT_CART_VERSION_SQL, Long.class, userId).stream().findFirst();
+    }
+
+    public Optional<Long> lockCartVersion(Long userId) {
+        return jdbcTemplate.queryForList(LOCK_CART_VERSION_SQL, Long.class, userId).stream().findFirst();
+    }
+
+    // False when the user does not exist or, with an expected version, the cart is at another one.
+    // The user row stays locked until the transaction ends, so edits of one cart are applied one at a time.
+    public boolean incrementCartVersion(Long userId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return jdbcTemplate.update(INCREMENT_CART_VERSION_SQL, userId) > 0;
+        }
+        return jdbcTemplate.update(INCREMENT_CART_VERSION_IF_SQL, userId, expectedVersion) > 0;
+    }
+
+    // Moves users.cart_version past a block of versions the caller hands out itself, so none of them is
+    // handed out again after a crash. Returns the new cart_version, empty when the user does not exist.
+    public Optional<Long> reserveCartVersions(Long userId, int count) {
+        if (jdbcTemplate.update(RESERVE_CART_VERSIONS_SQL, count, userId) == 0) {
+            return Optional.empty();
+        }
+        return findCartVersion(userId);
+    }
+
+    // Gives back the unused rest of a reserved block, unless the version moved on since it was reserved
+    public void releaseCartVersions(Long userId, long version, long reservedVersion) {
+        jdbcTemplate.update(RELEASE_CART_VERSIONS_SQL, version, userId, reservedVersion);
+    }
+
+    // Stock of every listed product that exists, in one query. cartQuantity is left null.
+    public Map<Long, StockCheck> findStockChecks(Collection<Long> productIds) {
+        Map<Long, StockCheck> checks = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return checks;
+        }
+        String sql = SELECT_PRODUCT_STOCK_SQL.formatted(String.join(", ", Collections.nCopies(productIds.size(), "?")));
+        jdbcTemplate.query(sql, rs -> {
+            checks.put(rs.getLong(1), new StockCheck(rs.getBoolean(2), rs.getInt(3), null));
+        }, productIds.toArray());
+        return checks;
+    }
+
+    // Why a guarded write did nothing, empty when the product does not exist
+    public Optional<StockCheck> findStockCheck(Long userId, Long productId) {
+        return jdbcTemplate.query(SELECT_STOCK_CHECK_SQL, (rs, rowNum) -> {
+            int cartQuantity = rs.getInt(3);
+            boolean inCart = !rs.wasNull();
+            return new StockCheck(rs.getBoolean(1), rs.getInt(2), inCart ? cartQuantity : null);
+        }, userId, productId).stream().findFirst();
+    }
+
+    public List<SummaryLine> findSummaryLines(Long userId) {
+        return jdbcTemplate.query(SELECT_SUMMARY_LINES_SQL, (rs, rowNum) -> new SummaryLine(
+                rs.getLong(1), rs.getInt(2), rs.getBigDecimal(3), rs.getBoolean(4)), userId);
+    }
+
+    private Map<Long, Integer> queryQuantities(String sql, Long userId) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            quantities.put(rs.getLong(1), rs.getInt(2));
+        }, userId);
+        return quantities;
+    }
+
+    public record CartQuantity(Long userId, Long productId, int quantity) {
+    }
+
+    // available is false when the product is inactive or short of stock for the quantity
+    public record SummaryLine(Long productId, int quantity, BigDecimal price, boolean available) {
+    }
+
+    // cartQuantity is null when the product is not in the cart
+    public record StockCheck(boolean active, int availableStock, Integer cartQuantity) {
+    }
+}
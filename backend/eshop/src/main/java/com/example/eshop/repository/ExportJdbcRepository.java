@@ -0,0 +1,97 @@
+package com.example.eshop.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Full-table reads for the admin exports. Each export is one forward-only query whose rows are
+ * handed to the extractor as the driver fetches them, nothing is collected in between.
+ * Column labels are the export field names, product columns match the import format.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ExportJdbcRepository {
+
+    private static final String PRODUCTS_SQL =
+            "SELECT p.product_id, p.product_name AS name, p.description, p.price, p.stock, p.reserved_stock, " +
+            "c.category_name AS category, p.image_url, p.is_active AS active, p.created_at, p.updated_at " +
+            "FROM products p JOIN categories c ON c.category_id = p.category_id ORDER BY p.product_id";
+    // Shipping addresses stay out of exports
+    private static final String ORDERS_SQL =
+            "SELECT o.order_id, o.order_number, o.user_id, o.order_date, o.order_status, o.subtotal, " +
+            "o.discount_amount, o.shipping_cost, o.tax, o.grand_total, o.payment_captured_at, o.created_at, " +
+            "o.updated_at FROM orders o";
+    private static final String ORDER_ITEMS_SQL =
+            "SELECT oi.order_item_id, oi.order_id, o.order_number, o.order_date, oi.product_id, oi.quantity, " +
+            "oi.unit_price, oi.total FROM order_items oi JOIN orders o ON o.order_id = oi.order_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize = 1000;
+
+    public <T> T streamProducts(ResultSetExtractor<T> extractor) {
+        return jdbcTemplate.query(streaming(PRODUCTS_SQL, List.of()), extractor);
+    }
+
+    // Orders placed in [from, to), either bound may be null
+    public <T> T streamOrders(LocalDateTime from, LocalDateTime to, ResultSetExtractor<T> extractor) {
+        List<Object> args = new ArrayList<>();
+        String sql = ORDERS_SQL + orderDateFilter(from, to, args) + " ORDER BY o.order_id";
+        return jdbcTemplate.query(streaming(sql, args), extractor);
+    }
+
+    // Items of orders placed in [from, to), either bound may be null
+    public <T> T streamOrderItems(LocalDateTime from, LocalDateTime to, ResultSetExtractor<T> extractor) {
+        List<Object> args = new ArrayList<>();
+        String sql = ORDER_ITEMS_SQL + orderDateFilter(from, to, args) + " ORDER BY oi.order_item_id";
+        return jdbcTemplate.query(streaming(sql, args), extractor);
+    }
+
+    private static String orderDateFilter(LocalDateTime from, LocalDateTime to, List<Object> args) {
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("o.order_date >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            conditions.add("o.order_date < ?");
+            args.add(to);
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private PreparedStatementCreator streaming(String sql, List<Object> args) {
+        return connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSizeFor(connection));
+            for (int i = 0; i < args.size(); i++) {
+                ps.setObject(i + 1, args.get(i));
+            }
+            return ps;
+        };
+    }
+
+    // Connector/J only fetches in batches through a server-side cursor (useCursorFetch=true on the
+    // URL), otherwise it reads the whole result up front unless asked to stream row by row
+    private int fetchSizeFor(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        if (metaData.getDatabaseProductName().startsWith("MySQL") && !metaData.getURL().contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.eshop.repository;
+
+import com.example.eshop.model.Order;
+import com.example.eshop.model.OrderSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Writes of the order_summaries read model.
+ * Rows are keyed by order_id and written in the transaction that changes the order, so the
+ * summary never disagrees with a committed order.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_summaries (order_id, user_id, order_number, order_date, order_status, subtotal, " +
+            "discount_amount, shipping_cost, tax, grand_total, item_count, thumbnail_url, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE order_summaries SET order_status = ?, updated_at = ? WHERE order_id = ?";
+    // Rebuilds the summaries of orders in [from, to) that have none, e.g. placed before the read model existed
+    private static final String BACKFILL_SQL =
+            "INSERT INTO order_summaries (order_id, user_id, order_number, order_date, order_status, subtotal, " +
+            "discount_amount, shipping_cost, tax, grand_total, item_count, thumbnail_url, updated_at) " +
+            "SELECT o.order_id, o.user_id, o.order_number, o.order_date, o.order_status, o.subtotal, " +
+            "o.discount_amount, o.shipping_cost, o.tax, o.grand_total, " +
+            "COALESCE((SELECT SUM(oi.quantity) FROM order_items oi WHERE oi.order_id = o.order_id), 0), " +
+            "(SELECT p.image_url FROM order_items oi JOIN products p ON p.product_id = oi.product_id " +
+            "WHERE oi.order_id = o.order_id ORDER BY oi.order_item_id LIMIT 1), " +
+            "CURRENT_TIMESTAMP " +
+            "FROM orders o WHERE o.order_id >= ? AND o.order_id < ? " +
+            "AND NOT EXISTS (SELECT 1 FROM order_summaries s WHERE s.order_id = o.order_id)";
+    // Repairs summaries in [from, to) whose status no longer matches the order, e.g. a status change
+    // that committed while the backfill was inserting its summary from the old row
+    private static final String REFRESH_STATUS_SQL =
+            "UPDATE order_summaries s SET order_status = " +
+            "(SELECT o.order_status FROM orders o WHERE o.order_id = s.order_id), updated_at = CURRENT_TIMESTAMP " +
+            "WHERE s.order_id >= ? AND s.order_id < ? " +
+            "AND s.order_status <> (SELECT o.order_status FROM orders o WHERE o.order_id = s.order_id)";
+    private static final String SELECT_ORDER_ID_RANGE_SQL =
+            "SELECT MIN(order_id), MAX(order_id) FROM orders";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(OrderSummary summary) {
+        jdbcTemplate.update(INSERT_SQL,
+                summary.getOrderId(),
+                summary.getUserId(),
+                summary.getOrderNumber(),
+                summary.getOrderDate(),
+                summary.getOrderStatus().name(),
+                summary.getSubtotal(),
+                summary.getDiscountAmount(),
+                summary.getShippingCost(),
+                summary.getTax(),
+                summary.getGrandTotal(),
+                summary.getItemCount(),
+                summary.getThumbnailUrl(),
+                summary.getUpdatedAt());
+    }
+
+    public int updateStatus(Long orderId, Order.OrderStatus status) {
+        return jdbcTemplate.update(UPDATE_STATUS_SQL,
+                status.name(), LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS), orderId);
+    }
+
+    // Returns {min, max} order id, or null when there are no orders
+    public long[] findOrderIdRange() {
+        return jdbcTemplate.queryForObject(SELECT_ORDER_ID_RANGE_SQL, (rs, rowNum) -> {
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[]{min, rs.getLong(2)};
+        });
+    }
+
+    public int backfillRange(long fromOrderId, long toOrderId) {
+        return jdbcTemplate.update(BACKFILL_SQL, fromOrderId, toOrderId);
+    }
+
+    public int refreshStatusRange(long fromOrderId, long toOrderId) {
+        return jdbcTemplate.update(REFRESH_STATUS_SQL, fromOrderId, toOrderId);
+    }
+}
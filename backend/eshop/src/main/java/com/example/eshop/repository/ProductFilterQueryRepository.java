@@ -0,0 +1,253 @@
+package com.example.eshop.repository;
+
+import com.example.eshop.model.dto.business.ProductFacetCount;
+import com.example.eshop.model.dto.business.ProductFilter;
+import com.example.eshop.model.dto.business.ProductListDto;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles any combination of catalog filters into one JPQL query over the product list projection,
+ * the matching ids or the facet counts.
+ * The JPQL only depends on which filters are present and on the sort, so it is built once per
+ * shape and cached here. Filter values are always bound as parameters, and the stable text lets
+ * Hibernate reuse its plan for the shape too. Category and price predicates line up with the
+ * (category_id, price, product_id) and (price, product_id) indexes.
+ * Also serves the keyset windows of the listings over the same projection.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductFilterQueryRepository {
+
+    private static final Set<String> SORT_PROPERTIES = Set.of("productId", "productName", "price", "createdAt", "updatedAt");
+
+    private final EntityManager entityManager;
+    private final Map<QueryShape, CompiledQuery> compiledQueries = new ConcurrentHashMap<>();
+
+    // searchIds replaces the LIKE match of the search term with ids already matched by the search index
+    public Page<ProductListDto> findPage(ProductFilter filter, Collection<Long> searchIds, Pageable pageable) {
+        if (searchIds != null && searchIds.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        CompiledQuery compiled = compile(QueryShape.of(filter, searchIds != null, pageable.getSort(), Projection.LIST, List.of()));
+        TypedQuery<ProductListDto> query = entityManager.createQuery(compiled.selectJpql(), ProductListDto.class);
+        bind(query, filter, searchIds);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        List<ProductListDto> content = query.getResultList();
+
+        // Only counts when the total cannot be told from the page itself
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            TypedQuery<Long> count = entityManager.createQuery(compiled.countJpql(), Long.class);
+            bind(count, filter, searchIds);
+            return count.getSingleResult();
+        });
+    }
+
+    // Ids of the products that pass every filter, unordered, for ranking search hits in memory
+    public List<Long> findMatchingIds(ProductFilter filter, Collection<Long> searchIds) {
+        if (searchIds.isEmpty()) {
+            return List.of();
+        }
+        CompiledQuery compiled = compile(QueryShape.of(filter, true, Sort.unsorted(), Projection.IDS, List.of()));
+        TypedQuery<Long> query = entityManager.createQuery(compiled.selectJpql(), Long.class);
+        bind(query, filter, searchIds);
+        return query.getResultList();
+    }
+
+    // Facet counts grouped by category, price bucket and availability in one aggregate query.
+    // A price falls into the last bucket whose lower bound it reaches, the first starts at zero.
+    public List<ProductFacetCount> findFacetCounts(ProductFilter filter, Collection<Long> searchIds,
+                                                   List<BigDecimal> priceBucketBounds) {
+        if (searchIds != null && searchIds.isEmpty()) {
+            return List.of();
+        }
+        CompiledQuery compiled = compile(QueryShape.of(filter, searchIds != null, Sort.unsorted(),
+                Projection.FACETS, List.copyOf(priceBucketBounds)));
+        TypedQuery<ProductFacetCount> query = entityManager.createQuery(compiled.selectJpql(), ProductFacetCount.class);
+        bind(query, filter, searchIds);
+        return query.getResultList();
+    }
+
+    // Window of the product list projection after position, ordered by sortProperty then product id.
+    // The sort value is selected next to the projection so every item has a position to resume from,
+    // one row past the limit tells whether more follow.
+    public Window<ProductListDto> findWindow(Long categoryId, String sortProperty, Sort.Direction direction,
+                                             KeysetScrollPosition position, int limit) {
+        if (!SORT_PROPERTIES.contains(sortProperty)) {
+            throw new IllegalArgumentException("Unsupported sort property: " + sortProperty);
+        }
+        boolean bySortValue = !sortProperty.equals("productId");
+        String after = direction.isAscending() ? ">" : "<";
+        List<String> predicates = new ArrayList<>();
+        if (categoryId != null) {
+            predicates.add("c.categoryId = :categoryId");
+        }
+        if (!position.isInitial()) {
+            predicates.add(bySortValue
+                    ? "(p." + sortProperty + " " + after + " :afterValue OR (p." + sortProperty + " = :afterValue AND p.productId " + after + " :afterId))"
+                    : "p.productId " + after + " :afterId");
+        }
+        String dir = direction.name();
+        String jpql = ProductJpaRepository.PRODUCT_LIST_SELECT.replace(") FROM Product p", "), p." + sortProperty + " FROM Product p")
+                + (predicates.isEmpty() ? "" : "WHERE " + String.join(" AND ", predicates))
+                + (bySortValue ? " ORDER BY p." + sortProperty + " " + dir + ", p.productId " + dir : " ORDER BY p.productId " + dir);
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql, Object[].class);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        if (!position.isInitial()) {
+            query.setParameter("afterId", position.getKeys().get("productId"));
+            if (bySortValue) {
+                query.setParameter("afterValue", position.getKeys().get(sortProperty));
+            }
+        }
+        query.setMaxResults(limit + 1);
+        List<Object[]> rows = query.getResultList();
+
+        List<Object[]> content = rows.subList(0, Math.min(limit, rows.size()));
+        return Window.from(content.stream().map(row -> (ProductListDto) row[0]).toList(), index -> {
+            Object[] row = content.get(index);
+            Map<String, Object> keys = new LinkedHashMap<>();
+            if (bySortValue) {
+                keys.put(sortProperty, row[1]);
+            }
+            keys.put("productId", ((ProductListDto) row[0]).id());
+            return ScrollPosition.forward(keys);
+        }, rows.size() > limit);
+    }
+
+    public int compiledShapeCount() {
+        return compiledQueries.size();
+    }
+
+    // Private helper methods
+    private CompiledQuery compile(QueryShape shape) {
+        return compiledQueries.computeIfAbsent(shape, QueryShape::compile);
+    }
+
+    private void bind(Query query, ProductFilter filter, Collection<Long> searchIds) {
+        if (searchIds != null) {
+            query.setParameter("searchIds", searchIds);
+        } else if (filter.hasSearchTerm()) {
+            query.setParameter("searchTerm", filter.searchTerm());
+        }
+        if (!filter.categoryIds().isEmpty()) {
+            query.setParameter("categoryIds", filter.categoryIds());
+        }
+        if (filter.minPrice() != null) {
+            query.setParameter("minPrice", filter.minPrice());
+        }
+        if (filter.maxPrice() != null) {
+            query.setParameter("maxPrice", filter.maxPrice());
+        }
+        if (filter.active() != null) {
+            query.setParameter("active", filter.active());
+        }
+    }
+
+    private enum Projection { LIST, IDS, FACETS }
+
+    private record CompiledQuery(String selectJpql, String countJpql) {
+    }
+
+    // Everything that changes the JPQL text, filter values are parameters and are not part of it
+    private record QueryShape(boolean likeSearch, boolean idSearch, boolean categories, boolean minPrice,
+                              boolean maxPrice, boolean active, Boolean inStock, String sortProperty,
+                              Sort.Direction direction, Projection projection, List<BigDecimal> priceBuckets) {
+
+        static QueryShape of(ProductFilter filter, boolean idSearch, Sort sort, Projection projection,
+                             List<BigDecimal> priceBuckets) {
+            Sort.Order order = sort.stream().findFirst().orElse(null);
+            String sortProperty = order != null && SORT_PROPERTIES.contains(order.getProperty())
+                    ? order.getProperty()
+                    : "productId";
+            return new QueryShape(
+                    filter.hasSearchTerm() && !idSearch,
+                    idSearch,
+                    !filter.categoryIds().isEmpty(),
+                    filter.minPrice() != null,
+                    filter.maxPrice() != null,
+                    filter.active() != null,
+                    filter.inStock(),
+                    sortProperty,
+                    order != null ? order.getDirection() : Sort.Direction.ASC,
+                    projection,
+                    priceBuckets);
+        }
+
+        CompiledQuery compile() {
+            List<String> predicates = new ArrayList<>();
+            if (likeSearch) {
+                predicates.add("(" + ProductJpaRepository.SEARCH_CONDITION + ")");
+            }
+            if (idSearch) {
+                predicates.add("p.productId IN :searchIds");
+            }
+            if (categories) {
+                predicates.add("p.category.categoryId IN :categoryIds");
+            }
+            if (minPrice) {
+                predicates.add("p.price >= :minPrice");
+            }
+            if (maxPrice) {
+                predicates.add("p.price <= :maxPrice");
+            }
+            if (active) {
+                predicates.add("p.isActive = :active");
+            }
+            if (inStock != null) {
+                predicates.add(inStock ? "p.stock - p.reservedStock > 0" : "p.stock - p.reservedStock <= 0");
+            }
+            String where = predicates.isEmpty() ? "" : "WHERE " + String.join(" AND ", predicates);
+
+            if (projection == Projection.IDS) {
+                return new CompiledQuery("SELECT p.productId FROM Product p " + where, null);
+            }
+            if (projection == Projection.FACETS) {
+                // Bounds come from configuration, not from the request, and are inlined as literals
+                StringBuilder bucket = new StringBuilder("CASE");
+                for (int i = 0; i < priceBuckets.size(); i++) {
+                    bucket.append(" WHEN p.price < ").append(priceBuckets.get(i).toPlainString()).append(" THEN ").append(i);
+                }
+                bucket.append(" ELSE ").append(priceBuckets.size()).append(" END");
+                String inStockFlag = "CASE WHEN p.stock - p.reservedStock > 0 THEN 1 ELSE 0 END";
+                return new CompiledQuery("SELECT new com.example.eshop.model.dto.business.ProductFacetCount(" +
+                        "c.categoryId, c.categoryName, " + bucket + ", " + inStockFlag + ", COUNT(p)) " +
+                        "FROM Product p JOIN p.category c " + where +
+                        " GROUP BY c.categoryId, c.categoryName, " + bucket + ", " + inStockFlag, null);
+            }
+            // product_id breaks ties so pages neither repeat nor skip rows
+            String dir = direction.name();
+            String orderBy = sortProperty.equals("productId")
+                    ? " ORDER BY p.productId " + dir
+                    : " ORDER BY p." + sortProperty + " " + dir + ", p.productId " + dir;
+            return new CompiledQuery(ProductJpaRepository.PRODUCT_LIST_SELECT + where + orderBy,
+                    "SELECT COUNT(p) FROM Product p " + where);
+        }
+    }
+}
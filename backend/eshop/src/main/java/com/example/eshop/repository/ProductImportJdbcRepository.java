@@ -0,0 +1,64 @@
+package com.example.eshop.repository;
+
+import com.example.eshop.model.dto.business.ProductImportRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bulk inserts of imported products. Product ids are IDENTITY generated, which keeps Hibernate
+ * from batching inserts, so a chunk of rows goes out as one multi-row INSERT instead: one round
+ * trip and one statement, all rows or none.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductImportJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (category_id, product_name, description, price, image_url, stock, is_active, " +
+            "created_at, updated_at) VALUES ";
+    private static final String ROW_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_MAX_ID_SQL = "SELECT COALESCE(MAX(product_id), 0) FROM products";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int insertAll(List<ProductImportRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        String sql = INSERT_SQL + String.join(", ", Collections.nCopies(rows.size(), ROW_VALUES));
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        return jdbcTemplate.update(sql, ps -> {
+            int index = 1;
+            for (ProductImportRow row : rows) {
+                index = bind(ps, index, row, now);
+            }
+        });
+    }
+
+    // Imported products get higher ids than this
+    public long findMaxProductId() {
+        Long maxId = jdbcTemplate.queryForObject(SELECT_MAX_ID_SQL, Long.class);
+        return maxId != null ? maxId : 0;
+    }
+
+    private static int bind(PreparedStatement ps, int index, ProductImportRow row, LocalDateTime now) throws SQLException {
+        ps.setLong(index++, row.categoryId());
+        ps.setString(index++, row.name());
+        ps.setString(index++, row.description());
+        ps.setBigDecimal(index++, row.price());
+        ps.setString(index++, row.imageUrl());
+        ps.setInt(index++, row.stock());
+        ps.setBoolean(index++, row.active());
+        ps.setObject(index++, now);
+        ps.setObject(index++, now);
+        return index;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.eshop.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free stock mutations on the products table.
+ * Each statement is a single guarded UPDATE, so InnoDB only holds the row lock for the
+ * duration of the statement instead of the whole checkout.
+ * Available stock is {@code stock - reserved_stock}; reserved units are tracked per order
+ * item in the stock_reservations ledger.
+ *
+ * Why a counter on products and not the ledger alone: a paid checkout writes the product row
+ * twice (reserve, then commit) where decrementing stock at payment wrote it once, and an
+ * abandoned one writes it twice too (reserve, release). The ledger alone does not avoid those
+ * row locks, a reservation must still serialize on the product to check SUM(ACTIVE quantity)
+ * against stock without overselling, and would then hold that lock for a range read of the
+ * ledger instead of one guarded UPDATE. Every availability read (listings, carts, cart
+ * summaries, the guarded cart updates) would also turn into an aggregate over stock_reservations.
+ * What the contention goal needed was no lock held across the PayPal call, which both give; each
+ * write here is one short statement. The counter is repaired from the ledger by the reconcile job.
+ */
+@Repository
+@RequiredArgsConstructor
+@Slf4j
+public class ProductStockJdbcRepository {
+
+    private static final String RESERVE_STOCK_SQL =
+            "UPDATE products SET reserved_stock = reserved_stock + ? " +
+            "WHERE product_id = ? AND stock - reserved_stock >= ? AND is_active = TRUE";
+    private static final String RELEASE_RESERVED_STOCK_SQL =
+            "UPDATE products SET reserved_stock = GREATEST(reserved_stock - ?, 0) WHERE product_id = ?";
+    private static final String COMMIT_RESERVED_STOCK_SQL =
+            "UPDATE products SET stock = stock - ?, reserved_stock = GREATEST(reserved_stock - ?, 0) " +
+            "WHERE product_id = ?";
+    private static final String DECREMENT_AVAILABLE_STOCK_SQL =
+            "UPDATE products SET stock = stock - ? " +
+            "WHERE product_id = ? AND stock - reserved_stock >= ? AND is_active = TRUE";
+    private static final String INCREMENT_STOCK_SQL =
+            "UPDATE products SET stock = stock + ? WHERE product_id = ?";
+    private static final String SELECT_AVAILABLE_STOCK_SQL =
+            "SELECT stock - reserved_stock FROM products WHERE product_id = ?";
+    private static final String SELECT_RESERVED_STOCK_DRIFT_SQL =
+            "SELECT p.product_id FROM products p " +
+            "LEFT JOIN (SELECT product_id, SUM(quantity) AS reserved FROM stock_reservations " +
+            "WHERE status = 'ACTIVE' GROUP BY product_id) r ON r.product_id = p.product_id " +
+            "WHERE p.reserved_stock <> COALESCE(r.reserved, 0)";
+    private static final String RECONCILE_RESERVED_STOCK_SQL =
+            "UPDATE products SET reserved_stock = " +
+            "(SELECT COALESCE(SUM(quantity), 0) FROM stock_reservations WHERE product_id = ? AND status = 'ACTIVE') " +
+            "WHERE product_id = ? AND reserved_stock <> " +
+            "(SELECT COALESCE(SUM(quantity), 0) FROM stock_reservations WHERE product_id = ? AND status = 'ACTIVE')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Moves available stock into reserved_stock for every product in the map, or for none of them.
+    // Returns the ids of the products that could not be reserved, empty when all succeeded.
+    public List<Long> reserveStockAll(Map<Long, Integer> quantities) {
+        return applyAllOrNothing(RESERVE_STOCK_SQL, quantities, this::releaseReservedStockAll);
+    }
+
+    public void releaseReservedStockAll(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> entries = sortedEntries(quantities);
+
+        jdbcTemplate.batchUpdate(RELEASE_RESERVED_STOCK_SQL, entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                });
+    }
+
+    // Turns reserved units into sold units once the payment is captured
+    public void commitReservedStockAll(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> entries = sortedEntries(quantities);
+
+        jdbcTemplate.batchUpdate(COMMIT_RESERVED_STOCK_SQL, entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setInt(2, entry.getValue());
+                    ps.setLong(3, entry.getKey());
+                });
+    }
+
+    // Sells units that are no longer reserved (e.g. the reservation expired before payment), all-or-nothing
+    public List<Long> decrementAvailableStockAll(Map<Long, Integer> quantities) {
+        return applyAllOrNothing(DECREMENT_AVAILABLE_STOCK_SQL, quantities, this::incrementStockAll);
+    }
+
+    public void incrementStockAll(Map<Long, Integer> quantities) {
+        List<Map.Entry<Long, Integer>> entries = sortedEntries(quantities);
+
+        jdbcTemplate.batchUpdate(INCREMENT_STOCK_SQL, entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                });
+    }
+
+    public Integer findAvailableStock(Long productId) {
+        List<Integer> stock = jdbcTemplate.queryForList(SELECT_AVAILABLE_STOCK_SQL, Integer.class, productId);
+        return stock.isEmpty() ? null : stock.get(0);
+    }
+
+    // Products whose reserved_stock differs from their ACTIVE reservations, read without locks.
+    // Includes checkouts still in flight, reconcileReservedStockAll re-checks under the row lock.
+    public List<Long> findReservedStockDrift() {
+        return jdbcTemplate.queryForList(SELECT_RESERVED_STOCK_DRIFT_SQL, Long.class);
+    }
+
+    // Resets reserved_stock to the sum of ACTIVE reservations. The row lock waits for a checkout that
+    // reserved the product to commit its reservations first. Returns the ids that were corrected.
+    public List<Long> reconcileReservedStockAll(List<Long> productIds) {
+        List<Long> sortedIds = productIds.stream().sorted().toList();
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(RECONCILE_RESERVED_STOCK_SQL, sortedIds, sortedIds.size(),
+                (ps, productId) -> {
+                    ps.setLong(1, productId);
+                    ps.setLong(2, productId);
+                    ps.setLong(3, productId);
+                })[0];
+
+        List<Long> corrected = new ArrayList<>();
+        for (int i = 0; i < sortedIds.size(); i++) {
+            if (updateCounts[i] == 1) {
+                corrected.add(sortedIds.get(i));
+            }
+        }
+        return corrected;
+    }
+
+    // Runs a guarded "quantity, product_id, quantity" update per product and undoes the applied rows
+    // when any of them is rejected, independently of whether the surrounding transaction rolls back
+    private List<Long> applyAllOrNothing(String guardedSql, Map<Long, Integer> quantities,
+                                         Consumer<Map<Long, Integer>> compensation) {
+        // Always touch rows in product id order so overlapping carts cannot deadlock each other
+        List<Map.Entry<Long, Integer>> entries = sortedEntries(quantities);
+
+        int[] updateCounts = jdbcTemplate.batchUpdate(guardedSql, entries, entries.size(),
+                (ps, entry) -> {
+                    ps.setInt(1, entry.getValue());
+                    ps.setLong(2, entry.getKey());
+                    ps.setInt(3, entry.getValue());
+                })[0];
+
+        Map<Long, Integer> applied = new TreeMap<>();
+        List<Long> rejected = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<Long, Integer> entry = entries.get(i);
+            if (updateCounts[i] == 1) {
+                applied.put(entry.getKey(), entry.getValue());
+            } else {
+                rejected.add(entry.getKey());
+            }
+        }
+
+        if (!rejected.isEmpty() && !applied.isEmpty()) {
+            log.debug("Stock update rejected for products {}, undoing {}", rejected, applied.keySet());
+            compensation.accept(applied);
+        }
+
+        return rejected;
+    }
+
+    private List<Map.Entry<Long, Integer>> sortedEntries(Map<Long, Integer> quantities) {
+        return new ArrayList<>(new TreeMap<>(quantities).entrySet());
+    }
+}
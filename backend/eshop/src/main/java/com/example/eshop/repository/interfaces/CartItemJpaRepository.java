@@ -0,0 +1,18 @@
+package com.example.eshop.repository.interfaces;
+
+import com.example.eshop.model.CartItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CartItemJpaRepository extends JpaRepository<CartItem, Long> {
+
+    // The whole cart page in one query, products and categories included
+    @Query("SELECT ci FROM CartItem ci JOIN FETCH ci.product p JOIN FETCH p.category " +
+            "WHERE ci.user.id = :userId ORDER BY ci.cartItemId")
+    List<CartItem> findWithProductsByUserId(@Param("userId") Long userId);
+}
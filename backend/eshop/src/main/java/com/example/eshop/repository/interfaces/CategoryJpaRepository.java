@@ -1,11 +1,13 @@
 package com.example.eshop.repository.interfaces;
 
 import com.example.eshop.model.Category;
+import com.example.eshop.model.dto.business.CategorySummaryDto;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,14 +16,23 @@ public interface CategoryJpaRepository extends JpaRepository<Category, Long> {
     
     Optional<Category> findByCategoryName(String categoryName);
     
-    List<Category> findByCategoryNameContainingIgnoreCase(String categoryName);
-    
     @Query("SELECT c FROM Category c WHERE c.categoryId IN :ids")
     List<Category> findByIdIn(@Param("ids") List<Long> ids);
     
     @Query("SELECT COUNT(p) FROM Product p WHERE p.category.categoryId = :categoryId")
     Long countProductsByCategoryId(@Param("categoryId") Long categoryId);
     
+    String SUMMARY_SELECT = "SELECT new com.example.eshop.model.dto.business.CategorySummaryDto(" +
+            "c.categoryId, c.categoryName, c.slug, c.categoryIconUrl, COUNT(p)) " +
+            "FROM Category c LEFT JOIN c.products p ";
+    String SUMMARY_GROUP_BY = "GROUP BY c.categoryId, c.categoryName, c.slug, c.categoryIconUrl";
+
+    @Query(SUMMARY_SELECT + SUMMARY_GROUP_BY)
+    List<CategorySummaryDto> findSummaries();
+
+    @Query(SUMMARY_SELECT + "WHERE c.categoryId IN :ids " + SUMMARY_GROUP_BY)
+    List<CategorySummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
     boolean existsByCategoryName(String categoryName);
     
     // Convenience methods for compatibility
@@ -1,9 +1,15 @@
 package com.example.eshop.repository.interfaces;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.eshop.model.Order;
+import com.example.eshop.model.dto.business.OrderStatusTotal;
+import com.example.eshop.model.dto.business.StaleOrderRef;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,5 +18,40 @@ import java.util.Optional;
 @Repository
 public interface OrderJpaRepository extends JpaRepository<Order, Long> {
     Optional<Order> findByPaypalOrderId(String paypalOrderId);
-    List<Order> findByOrderStatusAndOrderDateBefore(Order.OrderStatus orderStatus, LocalDateTime cutoff);
+    long countByOrderStatusAndOrderDateBefore(Order.OrderStatus orderStatus, LocalDateTime cutoff);
+
+    // Reconciliation of the admin statistics, walks idx_orders_status_date
+    @Query("SELECT new com.example.eshop.model.dto.business.OrderStatusTotal(o.orderStatus, COUNT(o), SUM(o.grandTotal)) " +
+            "FROM Order o GROUP BY o.orderStatus")
+    List<OrderStatusTotal> findStatusTotals();
+
+    // Keyset page over idx_orders_status_date, resumes after (afterDate, afterId) instead of using an offset
+    @Query("SELECT new com.example.eshop.model.dto.business.StaleOrderRef(" +
+            "o.orderId, o.orderNumber, o.paypalOrderId, o.orderDate, o.createdAt) " +
+            "FROM Order o WHERE o.orderStatus = :status AND o.orderDate < :cutoff " +
+            "AND (o.orderDate > :afterDate OR (o.orderDate = :afterDate AND o.orderId > :afterId)) " +
+            "ORDER BY o.orderDate, o.orderId")
+    List<StaleOrderRef> findStaleOrderPage(@Param("status") Order.OrderStatus status,
+                                           @Param("cutoff") LocalDateTime cutoff,
+                                           @Param("afterDate") LocalDateTime afterDate,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    // Guarded so a checkout cancelled while PayPal was being called is not resurrected
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Order o SET o.paypalOrderId = :paypalOrderId " +
+            "WHERE o.orderId = :orderId AND o.orderStatus = :status")
+    int attachPaypalOrderId(@Param("orderId") Long orderId,
+                            @Param("paypalOrderId") String paypalOrderId,
+                            @Param("status") Order.OrderStatus status);
+
+    // Newest orders first, the snowflake generator resumes after the highest order number among them
+    @Query("SELECT o.orderNumber FROM Order o ORDER BY o.orderId DESC")
+    List<String> findRecentOrderNumbers(Pageable pageable);
+
+    // Order details, the history lists are served from order_summaries
+    @Query("SELECT o FROM Order o " +
+            "LEFT JOIN FETCH o.orderItems i LEFT JOIN FETCH i.product p LEFT JOIN FETCH p.category " +
+            "WHERE o.orderId = :orderId AND o.user.id = :userId")
+    Optional<Order> findWithItemsByIdAndUserId(@Param("orderId") Long orderId, @Param("userId") Long userId);
 }
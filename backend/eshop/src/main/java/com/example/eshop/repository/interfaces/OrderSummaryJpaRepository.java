@@ -0,0 +1,35 @@
+package com.example.eshop.repository.interfaces;
+
+import com.example.eshop.model.Order;
+import com.example.eshop.model.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderSummaryJpaRepository extends JpaRepository<OrderSummary, Long> {
+
+    // Order history, keyset pages newest first over idx_order_summaries_user_date, one query per page
+    @Query("SELECT s FROM OrderSummary s WHERE s.userId = :userId " +
+            "AND (s.orderDate < :beforeDate OR (s.orderDate = :beforeDate AND s.orderId < :beforeId)) " +
+            "ORDER BY s.orderDate DESC, s.orderId DESC")
+    List<OrderSummary> findUserPage(@Param("userId") Long userId,
+                                    @Param("beforeDate") LocalDateTime beforeDate,
+                                    @Param("beforeId") Long beforeId,
+                                    Pageable pageable);
+
+    // Served by idx_order_summaries_user_status_date
+    @Query("SELECT s FROM OrderSummary s WHERE s.userId = :userId AND s.orderStatus = :status " +
+            "AND (s.orderDate < :beforeDate OR (s.orderDate = :beforeDate AND s.orderId < :beforeId)) " +
+            "ORDER BY s.orderDate DESC, s.orderId DESC")
+    List<OrderSummary> findUserPageByStatus(@Param("userId") Long userId,
+                                            @Param("status") Order.OrderStatus status,
+                                            @Param("beforeDate") LocalDateTime beforeDate,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
+}
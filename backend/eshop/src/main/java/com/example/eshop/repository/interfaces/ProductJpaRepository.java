@@ -1,17 +1,24 @@
 package com.example.eshop.repository.interfaces;
 
 import com.example.eshop.model.Product;
+import com.example.eshop.model.dto.business.ProductDto;
+import com.example.eshop.model.dto.business.ProductFacetDocument;
+import com.example.eshop.model.dto.business.ProductListDto;
+import com.example.eshop.model.dto.business.ProductSearchDocument;
+import com.example.eshop.model.dto.business.SuggestionDto;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductJpaRepository extends JpaRepository<Product, Long> {
@@ -20,20 +27,69 @@ public interface ProductJpaRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p FROM Product p WHERE p.productId IN :ids")
     List<Product> findAllByIdForUpdate(@Param("ids") List<Long> ids);
 
-    Page<Product> findByCategoryId(Long categoryId, Pageable pageable);
+    // Catalog reads select only the DTO columns with one join to categories, no entity is hydrated
+    String PRODUCT_DTO_SELECT = "SELECT new com.example.eshop.model.dto.business.ProductDto(" +
+            "p.productId, p.productName, p.description, p.price, p.imageUrl, p.stock, " +
+            "c.categoryId, c.categoryName, p.isActive) FROM Product p JOIN p.category c ";
+    // Grids only show the start of the description
+    String PRODUCT_LIST_SELECT = "SELECT new com.example.eshop.model.dto.business.ProductListDto(" +
+            "p.productId, p.productName, SUBSTRING(CAST(p.description AS String), 1, 120), p.price, p.imageUrl, p.stock, " +
+            "c.categoryId, c.categoryName, p.isActive) FROM Product p JOIN p.category c ";
+    String SEARCH_CONDITION = "UPPER(p.productName) LIKE UPPER(CONCAT('%', :searchTerm, '%')) OR " +
+            "p.description LIKE CONCAT('%', :searchTerm, '%')";
 
-    @Query("SELECT p FROM Product p WHERE " +
-            "UPPER(p.productName) LIKE UPPER(CONCAT('%', :searchTerm, '%')) OR " +
-            "p.description LIKE CONCAT('%', :searchTerm, '%')")
-    Page<Product> findByProductNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
-            @Param("searchTerm") String searchTerm, Pageable pageable);
+    @Query(PRODUCT_DTO_SELECT + "WHERE p.productId = :productId")
+    Optional<ProductDto> findProductDtoById(@Param("productId") Long productId);
 
-    Page<Product> findByPriceBetween(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+    @Query(value = PRODUCT_DTO_SELECT, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductDto> findProductDtos(Pageable pageable);
 
-    Page<Product> findByCategoryIdAndPriceBetween(Long categoryId, BigDecimal minPrice,
-                                                  BigDecimal maxPrice, Pageable pageable);
+    @Query(value = PRODUCT_LIST_SELECT, countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductListDto> findListItems(Pageable pageable);
 
-    List<Product> findTop8ByOrderByProductIdDesc();
+    @Query(value = PRODUCT_LIST_SELECT + "WHERE c.categoryId = :categoryId",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.category.categoryId = :categoryId")
+    Page<ProductListDto> findListItemsByCategoryId(@Param("categoryId") Long categoryId, Pageable pageable);
+
+    @Query(value = PRODUCT_LIST_SELECT + "WHERE " + SEARCH_CONDITION,
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE " + SEARCH_CONDITION)
+    Page<ProductListDto> searchListItems(@Param("searchTerm") String searchTerm, Pageable pageable);
+
+    @Query(PRODUCT_LIST_SELECT + "WHERE p.productId IN :productIds")
+    List<ProductListDto> findListItemsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query(PRODUCT_LIST_SELECT + "ORDER BY p.productId DESC")
+    List<ProductListDto> findNewestListItems(Pageable pageable);
+
+    @Query("SELECT new com.example.eshop.model.dto.business.ProductSearchDocument(" +
+            "p.productId, p.productName, p.description, p.price) " +
+            "FROM Product p WHERE p.productId > :afterId ORDER BY p.productId")
+    List<ProductSearchDocument> findSearchDocumentPage(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.eshop.model.dto.business.ProductSearchDocument(" +
+            "p.productId, p.productName, p.description, p.price) " +
+            "FROM Product p WHERE p.productId = :productId")
+    Optional<ProductSearchDocument> findSearchDocument(@Param("productId") Long productId);
+
+    String FACET_DOCUMENT_SELECT = "SELECT new com.example.eshop.model.dto.business.ProductFacetDocument(" +
+            "p.productId, c.categoryId, c.categoryName, p.price, p.stock - p.reservedStock, p.isActive) " +
+            "FROM Product p JOIN p.category c ";
+
+    @Query(FACET_DOCUMENT_SELECT + "WHERE p.productId > :afterId ORDER BY p.productId")
+    List<ProductFacetDocument> findFacetDocumentPage(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(FACET_DOCUMENT_SELECT + "WHERE p.productId = :productId")
+    Optional<ProductFacetDocument> findFacetDocument(@Param("productId") Long productId);
+
+    @Query("SELECT new com.example.eshop.model.dto.business.SuggestionDto('product', p.productId, p.productName) " +
+            "FROM Product p WHERE p.productId > :afterId ORDER BY p.productId")
+    List<SuggestionDto> findProductSuggestionPage(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.example.eshop.model.dto.business.SuggestionDto('product', p.productId, p.productName) " +
+            "FROM Product p WHERE p.productId = :productId")
+    Optional<SuggestionDto> findProductSuggestion(@Param("productId") Long productId);
+
+    long countByIsActiveTrue();
 
     @Query("SELECT p FROM Product p WHERE p.category.id = :categoryId")
     List<Product> findByCategoryId(@Param("categoryId") Long categoryId);
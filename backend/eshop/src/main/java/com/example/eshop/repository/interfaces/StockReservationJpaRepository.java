@@ -0,0 +1,45 @@
+package com.example.eshop.repository.interfaces;
+
+import com.example.eshop.model.StockReservation;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockReservationJpaRepository extends JpaRepository<StockReservation, Long> {
+
+    boolean existsByOrderOrderId(Long orderId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM StockReservation r JOIN FETCH r.product " +
+            "WHERE r.order.orderId = :orderId AND r.status = :status")
+    List<StockReservation> findByOrderIdAndStatusForUpdate(@Param("orderId") Long orderId,
+                                                           @Param("status") StockReservation.ReservationStatus status);
+
+    // Served by idx_stock_reservations_status_expires, SKIP LOCKED lets several nodes sweep concurrently.
+    // No join, FOR UPDATE would also lock the products rows checkouts are reserving on.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT r FROM StockReservation r " +
+            "WHERE r.status = :status AND r.expiresAt < :cutoff ORDER BY r.expiresAt")
+    List<StockReservation> findExpiredForUpdate(@Param("status") StockReservation.ReservationStatus status,
+                                                @Param("cutoff") LocalDateTime cutoff,
+                                                Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE StockReservation r SET r.status = :status, r.updatedAt = :updatedAt " +
+            "WHERE r.reservationId IN :ids")
+    int updateStatus(@Param("ids") List<Long> ids,
+                     @Param("status") StockReservation.ReservationStatus status,
+                     @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -0,0 +1,38 @@
+package com.example.eshop.security.validation;
+
+import com.example.eshop.model.dto.business.CartOperation;
+import com.example.eshop.util.ValidCartOperation;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+// Checks that an operation carries the fields its type needs, @NotNull on op handles a missing type
+public class CartOperationValidator implements ConstraintValidator<ValidCartOperation, CartOperation> {
+
+    @Override
+    public boolean isValid(CartOperation operation, ConstraintValidatorContext context) {
+        if (operation == null || operation.op() == null) {
+            return true;
+        }
+
+        boolean needsProduct = operation.op() != CartOperation.Type.CLEAR;
+        boolean needsQuantity = operation.op() == CartOperation.Type.ADD || operation.op() == CartOperation.Type.SET;
+
+        context.disableDefaultConstraintViolation();
+        boolean isValid = true;
+        if (needsProduct && operation.productId() == null) {
+            addViolation(context, "productId");
+            isValid = false;
+        }
+        if (needsQuantity && operation.quantity() == null) {
+            addViolation(context, "quantity");
+            isValid = false;
+        }
+        return isValid;
+    }
+
+    private static void addViolation(ConstraintValidatorContext context, String field) {
+        context.buildConstraintViolationWithTemplate(context.getDefaultConstraintMessageTemplate())
+                .addPropertyNode(field)
+                .addConstraintViolation();
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Order;
+import com.example.eshop.model.dto.business.AdminStatsDto;
+import com.example.eshop.model.dto.business.OrderStatusTotal;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import com.example.eshop.repository.interfaces.UserJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters behind the admin dashboard, kept in memory so reading them costs no query.
+ * The user, product, category and order write paths report their changes here, applied once
+ * their transaction commits. A periodic reconciliation resets every counter from the database,
+ * which also corrects writes that bypass the services and the rare update that races it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AdminStatsService {
+
+    // Payment has been captured
+    private static final Set<Order.OrderStatus> PAID_STATUSES =
+            EnumSet.of(Order.OrderStatus.PROCESSING, Order.OrderStatus.SHIPPED, Order.OrderStatus.DELIVERED);
+
+    private final UserJpaRepository userRepo;
+    private final ProductJpaRepository productRepo;
+    private final CategoryJpaRepository categoryRepo;
+    private final OrderJpaRepository orderRepo;
+
+    private final AtomicLong users = new AtomicLong();
+    private final AtomicLong products = new AtomicLong();
+    private final AtomicLong activeProducts = new AtomicLong();
+    private final AtomicLong categories = new AtomicLong();
+    private final Map<Order.OrderStatus, AtomicLong> ordersByStatus = new EnumMap<>(Order.OrderStatus.class);
+    private final AtomicLong revenueCents = new AtomicLong();
+
+    private volatile LocalDateTime lastReconciledAt;
+    private volatile long lastReconcileDrift;
+
+    {
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            ordersByStatus.put(status, new AtomicLong());
+        }
+    }
+
+    public void userCreated() {
+        afterCommit(users::incrementAndGet);
+    }
+
+    public void userDeleted() {
+        afterCommit(users::decrementAndGet);
+    }
+
+    public void productCreated(boolean active) {
+        afterCommit(() -> {
+            products.incrementAndGet();
+            if (active) {
+                activeProducts.incrementAndGet();
+            }
+        });
+    }
+
+    public void productsImported(int count, int active) {
+        afterCommit(() -> {
+            products.addAndGet(count);
+            activeProducts.addAndGet(active);
+        });
+    }
+
+    public void productDeleted(boolean active) {
+        afterCommit(() -> {
+            products.decrementAndGet();
+            if (active) {
+                activeProducts.decrementAndGet();
+            }
+        });
+    }
+
+    public void productActiveChanged(boolean wasActive, boolean active) {
+        if (wasActive != active) {
+            afterCommit(() -> activeProducts.addAndGet(active ? 1 : -1));
+        }
+    }
+
+    public void categoryCreated() {
+        afterCommit(categories::incrementAndGet);
+    }
+
+    public void categoryDeleted() {
+        afterCommit(categories::decrementAndGet);
+    }
+
+    public void orderPlaced(Order.OrderStatus status, BigDecimal grandTotal) {
+        orderStatusChanged(null, status, grandTotal);
+    }
+
+    // A null origin is a new order
+    public void orderStatusChanged(Order.OrderStatus from, Order.OrderStatus to, BigDecimal grandTotal) {
+        if (from == to) {
+            return;
+        }
+        long cents = toCents(grandTotal);
+        afterCommit(() -> {
+            if (from != null) {
+                ordersByStatus.get(from).decrementAndGet();
+                if (PAID_STATUSES.contains(from)) {
+                    revenueCents.addAndGet(-cents);
+                }
+            }
+            ordersByStatus.get(to).incrementAndGet();
+            if (PAID_STATUSES.contains(to)) {
+                revenueCents.addAndGet(cents);
+            }
+        });
+    }
+
+    public AdminStatsDto getStats() {
+        Map<String, Long> orders = new LinkedHashMap<>();
+        ordersByStatus.forEach((status, count) -> orders.put(status.name(), count.get()));
+        return new AdminStatsDto(
+                users.get(),
+                products.get(),
+                activeProducts.get(),
+                categories.get(),
+                orders,
+                BigDecimal.valueOf(revenueCents.get(), 2),
+                lastReconciledAt,
+                lastReconcileDrift);
+    }
+
+    // Runs once at startup as well, until then the counters only hold changes made since boot
+    @Scheduled(fixedDelayString = "${app.admin-stats.reconcile-interval:PT15M}")
+    public synchronized void reconcile() {
+        long drift = reset(users, userRepo.count())
+                + reset(products, productRepo.count())
+                + reset(activeProducts, productRepo.countByIsActiveTrue())
+                + reset(categories, categoryRepo.count());
+
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        long revenue = 0;
+        for (OrderStatusTotal total : orderRepo.findStatusTotals()) {
+            counts.put(total.status(), total.count());
+            if (PAID_STATUSES.contains(total.status())) {
+                revenue += toCents(total.grandTotal());
+            }
+        }
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            drift += reset(ordersByStatus.get(status), counts.getOrDefault(status, 0L));
+        }
+        revenueCents.set(revenue);
+
+        lastReconciledAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        lastReconcileDrift = drift;
+        if (drift > 0) {
+            log.info("Admin statistics reconciled, counters were off by {} in total", drift);
+        }
+    }
+
+    // Private helper methods
+    private static long reset(AtomicLong counter, long actual) {
+        return Math.abs(counter.getAndSet(actual) - actual);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    // Rolled back writes must not count, outside a transaction the write has already happened
+    private static void afterCommit(Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+}
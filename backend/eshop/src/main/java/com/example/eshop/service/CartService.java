@@ -3,116 +3,317 @@ package com.example.eshop.service;
 import com.example.eshop.exception.*;
 import com.example.eshop.model.CartItem;
 import com.example.eshop.model.Product;
-import com.example.eshop.model.User;
+import com.example.eshop.model.common.CartWriteMode;
 import com.example.eshop.model.dto.business.AddToCartRequest;
 import com.example.eshop.model.dto.business.CartItemDto;
+import com.example.eshop.model.dto.business.CartOperation;
+import com.example.eshop.model.dto.business.CartSummaryDto;
 import com.example.eshop.model.dto.business.ProductDto;
 import com.example.eshop.model.dto.business.UserCartDto;
-import com.example.eshop.repository.interfaces.ProductJpaRepository;
-import com.example.eshop.repository.interfaces.UserJpaRepository;
+import com.example.eshop.repository.CartItemJdbcRepository;
+import com.example.eshop.repository.interfaces.CartItemJpaRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
+// Transactions are set per write mode, see inCartTransaction
 @Service
-@Transactional
 @RequiredArgsConstructor
 public class CartService {
 
-    private final UserJpaRepository userRepo;
-    private final ProductJpaRepository productRepo;
+    private final CartItemJpaRepository cartItemRepo;
+    private final CartItemJdbcRepository cartItemJdbcRepo;
+    private final CartWriteBehindStore cartStore;
+    private final CartSummaryCache cartSummaryCache;
+    private final PlatformTransactionManager transactionManager;
 
+    @Value("${app.cart.write-mode:DIRECT}")
+    private CartWriteMode cartWriteMode = CartWriteMode.DIRECT;
+
+    // The version is read before the pending edits are flushed and the items read, so it is never newer
+    // than them: a stale ETag only costs a reload. One query for the items with their products and categories. Not readOnly: cart reads must see the
+    // user's last edit and stay on the primary, a replica may lag behind it.
     public UserCartDto getUserCart(Long userId) {
-        User user = findUserById(userId);
-        return mapToUserCartResponseDto(user);
-    }
-
-    public void addItemToCart(Long userId, AddToCartRequest request) {
-        User user = findUserById(userId);
-        Product product = findProductById(request.productId());
-
-        validateStockAvailability(product, request.quantity());
-
-        Optional<CartItem> existingItem = user.getCartItems().stream()
-                .filter(item -> item.getProduct().getProductId().equals(product.getProductId()))
-                .findFirst();
-
-        existingItem.ifPresentOrElse(
-                item -> {
-                    int newQuantity = item.getQuantity() + request.quantity();
-                    validateStockAvailability(product, newQuantity);
-                    item.setQuantity(newQuantity);
-                },
-                () -> {
-                    CartItem newItem = new CartItem();
-                    newItem.setUser(user);
-                    newItem.setProduct(product);
-                    newItem.setQuantity(request.quantity());
-                    user.getCartItems().add(newItem);
-                }
-        );
+        return inCartTransaction(() -> {
+            long version = getCartVersion(userId);
+            flushCart(userId);
+            return inTransaction(() -> mapToUserCartResponseDto(cartItemRepo.findWithProductsByUserId(userId), version));
+        });
+    }
 
-        userRepo.save(user);
+    // Served as the ETag of the cart, cheap enough to answer conditional GETs without reading the cart.
+    // Read on the primary, a lagging replica would hand out an ETag the next If-Match edit fails against.
+    public long getCartVersion(Long userId) {
+        return inCartTransaction(() -> cartWriteMode == CartWriteMode.WRITE_BEHIND
+                ? cartStore.version(userId)
+                : findCartVersion(userId));
     }
 
-    public void updateCartItem(Long userId, Long productId, Integer quantity) {
-        User user = findUserById(userId);
-        CartItem item = user.getCartItems().stream()
-                .filter(ci -> ci.getProduct().getProductId().equals(productId))
-                .findFirst()
-                .orElseThrow(() -> new CartItemNotFoundException(user.getId(), productId));
+    // Item count, total and availability of the cart, cached until the cart or one of its products changes.
+    // Loaded on the primary, a summary read from a lagging replica would be cached for the whole TTL.
+    public CartSummaryDto getCartSummary(Long userId) {
+        return cartSummaryCache.get(userId, () -> inCartTransaction(() -> {
+            flushCart(userId);
+            return cartItemJdbcRepo.findSummaryLines(userId);
+        }));
+    }
 
-        validateStockAvailability(item.getProduct(), quantity);
+    // Writes the pending WRITE_BEHIND edits of the cart, so cart_items is what the user last saw
+    public void flushCart(Long userId) {
+        if (cartWriteMode == CartWriteMode.WRITE_BEHIND) {
+            inCartTransaction(() -> {
+                cartStore.flush(userId);
+                return null;
+            });
+        }
+    }
 
-        item.setQuantity(quantity);
-        userRepo.save(user);
+    // Edits take the cart version the client last saw (null for any) and return the new one. A DIRECT edit
+    // bumps users.cart_version and runs one guarded statement in the same transaction, the product and the
+    // rest of the cart are only read when it is rejected. A WRITE_BEHIND edit only reads the product.
+    public long addItemToCart(Long userId, AddToCartRequest request, Long expectedVersion) {
+        long version = inCartTransaction(() -> addItem(userId, request, expectedVersion));
+        cartSummaryCache.invalidate(userId);
+        return version;
     }
 
-    public void removeCartItem(Long userId, Long productId) {
-        User user = findUserById(userId);
+    public long updateCartItem(Long userId, Long productId, Integer quantity, Long expectedVersion) {
+        long version = inCartTransaction(() -> updateItem(userId, productId, quantity, expectedVersion));
+        cartSummaryCache.invalidate(userId);
+        return version;
+    }
 
-        boolean removed = user.getCartItems().removeIf(
-                item -> item.getProduct().getProductId().equals(productId)
-        );
+    public long removeCartItem(Long userId, Long productId, Long expectedVersion) {
+        long version = inCartTransaction(() -> removeItem(userId, productId, expectedVersion));
+        cartSummaryCache.invalidate(userId);
+        return version;
+    }
+
+    public void clearCart(Long userId) {
+        clearCart(userId, null);
+    }
+
+    // Also called inside the checkout transaction. In WRITE_BEHIND mode that one is suspended, and a cart
+    // that is not in the store then takes a second connection to be loaded.
+    public long clearCart(Long userId, Long expectedVersion) {
+        long version = inCartTransaction(() -> {
+            if (cartWriteMode == CartWriteMode.WRITE_BEHIND) {
+                return cartStore.clear(userId, expectedVersion);
+            }
+            long next = nextCartVersion(userId, expectedVersion);
+            cartItemJdbcRepo.deleteAll(userId);
+            return next;
+        });
+        cartSummaryCache.invalidate(userId);
+        return version;
+    }
+
+    // Applies the operations in order, all of them or none. The products they touch are checked
+    // with one query and the cart is written as one batch.
+    public UserCartDto applyOperations(Long userId, List<CartOperation> operations, Long expectedVersion) {
+        inCartTransaction(() -> {
+            applyToCart(userId, operations, expectedVersion, findStockChecks(operations));
+            return null;
+        });
+        cartSummaryCache.invalidate(userId);
+        return getUserCart(userId);
+    }
+
+    // --- Private Helper Methods ---
+
+    // A DIRECT edit runs in one transaction, joining the caller's. A WRITE_BEHIND edit runs outside of
+    // any: its reads take a connection per statement and the store writes in its own transactions, so
+    // an edit never holds one connection while waiting for another.
+    private <T> T inCartTransaction(Supplier<T> work) {
+        if (cartWriteMode == CartWriteMode.WRITE_BEHIND) {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+            return transaction.execute(status -> work.get());
+        }
+        return inTransaction(work);
+    }
+
+    // Not readOnly, so the read stays on the primary
+    private <T> T inTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    private long addItem(Long userId, AddToCartRequest request, Long expectedVersion) {
+        if (cartWriteMode == CartWriteMode.WRITE_BEHIND) {
+            CartItemJdbcRepository.StockCheck check = cartItemJdbcRepo.findStockCheck(userId, request.productId())
+                    .orElseThrow(() -> new ProductNotFoundException(Collections.singletonList(request.productId())));
+            long version = cartStore.compute(userId, request.productId(), expectedVersion,
+                    current -> validatedQuantity(request.productId(), check, current + request.quantity()));
+            return version;
+        }
 
-        if (!removed) {
+        long version = nextCartVersion(userId, expectedVersion);
+        if (!cartItemJdbcRepo.addQuantity(userId, request.productId(), request.quantity())) {
+            CartItemJdbcRepository.StockCheck check = cartItemJdbcRepo.findStockCheck(userId, request.productId())
+                    .orElseThrow(() -> new ProductNotFoundException(Collections.singletonList(request.productId())));
+            throw stockRejection(request.productId(), check);
+        }
+        return version;
+    }
+
+    private long updateItem(Long userId, Long productId, Integer quantity, Long expectedVersion) {
+        if (cartWriteMode == CartWriteMode.WRITE_BEHIND) {
+            CartItemJdbcRepository.StockCheck check = cartItemJdbcRepo.findStockCheck(userId, productId)
+                    .orElseThrow(() -> new CartItemNotFoundException(userId, productId));
+            long version = cartStore.compute(userId, productId, expectedVersion, current -> {
+                if (current == 0) {
+                    throw new CartItemNotFoundException(userId, productId);
+                }
+                return validatedQuantity(productId, check, quantity);
+            });
+            return version;
+        }
+
+        long version = nextCartVersion(userId, expectedVersion);
+        if (!cartItemJdbcRepo.setQuantity(userId, productId, quantity)) {
+            CartItemJdbcRepository.StockCheck check = cartItemJdbcRepo.findStockCheck(userId, productId)
+                    .filter(found -> found.cartQuantity() != null)
+                    .orElseThrow(() -> new CartItemNotFoundException(userId, productId));
+            throw stockRejection(productId, check);
+        }
+        return version;
+    }
+
+    private long removeItem(Long userId, Long productId, Long expectedVersion) {
+        if (cartWriteMode == CartWriteMode.WRITE_BEHIND) {
+            long version = cartStore.compute(userId, productId, expectedVersion, current -> {
+                if (current == 0) {
+                    throw new CartItemNotFoundException(userId, productId);
+                }
+                return 0;
+            });
+            return version;
+        }
+
+        long version = nextCartVersion(userId, expectedVersion);
+        if (!cartItemJdbcRepo.delete(userId, productId)) {
             throw new CartItemNotFoundException(userId, productId);
         }
+        return version;
+    }
 
-        userRepo.save(user);
+    private Map<Long, CartItemJdbcRepository.StockCheck> findStockChecks(List<CartOperation> operations) {
+        Set<Long> productIds = operations.stream()
+                .map(CartOperation::productId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return cartItemJdbcRepo.findStockChecks(productIds);
     }
 
-    public void clearCart(Long userId) {
-        User user = findUserById(userId);
-        user.getCartItems().clear();
-        userRepo.save(user);
+    private void applyToCart(Long userId, List<CartOperation> operations, Long expectedVersion,
+                             Map<Long, CartItemJdbcRepository.StockCheck> checks) {
+        if (cartWriteMode == CartWriteMode.WRITE_BEHIND) {
+            cartStore.update(userId, expectedVersion, cart -> applyOperations(userId, cart, operations, checks));
+        } else {
+            long version = cartItemJdbcRepo.lockCartVersion(userId)
+                    .orElseThrow(() -> new UserNotFoundException(userId));
+            if (expectedVersion != null && expectedVersion != version) {
+                throw new CartVersionMismatchException(expectedVersion, version);
+            }
+            Map<Long, Integer> cart = cartItemJdbcRepo.lockQuantities(userId);
+            Map<Long, Integer> updated = applyOperations(userId, new LinkedHashMap<>(cart), operations, checks);
+            List<CartItemJdbcRepository.CartQuantity> changes = new ArrayList<>();
+            Set<Long> changedIds = new HashSet<>(cart.keySet());
+            changedIds.addAll(updated.keySet());
+            for (Long productId : changedIds) {
+                if (!Objects.equals(cart.get(productId), updated.get(productId))) {
+                    changes.add(new CartItemJdbcRepository.CartQuantity(userId, productId, updated.getOrDefault(productId, 0)));
+                }
+            }
+            // Like a WRITE_BEHIND edit, a batch that changes nothing keeps the version
+            if (!changes.isEmpty()) {
+                cartItemJdbcRepo.incrementCartVersion(userId, null);
+                cartItemJdbcRepo.writeQuantities(changes);
+            }
+        }
     }
 
-    // --- Private Helper Methods ---
+    // Bumps the version of the cart, locking the user row until the edit commits
+    private long nextCartVersion(Long userId, Long expectedVersion) {
+        if (!cartItemJdbcRepo.incrementCartVersion(userId, expectedVersion)) {
+            long current = findCartVersion(userId);
+            throw new CartVersionMismatchException(expectedVersion, current);
+        }
+        return findCartVersion(userId);
+    }
 
-    private User findUserById(Long userId) {
-        return userRepo.findById(userId)
+    private long findCartVersion(Long userId) {
+        return cartItemJdbcRepo.findCartVersion(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
     }
 
-    private Product findProductById(Long productId) {
-        return productRepo.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException(Collections.singletonList(productId)));
+    // Product id to quantity after the operations, only changed quantities are checked against stock
+    private Map<Long, Integer> applyOperations(Long userId, Map<Long, Integer> cart, List<CartOperation> operations,
+                                               Map<Long, CartItemJdbcRepository.StockCheck> checks) {
+        Map<Long, Integer> original = Map.copyOf(cart);
+        for (CartOperation operation : operations) {
+            Long productId = operation.productId();
+            switch (operation.op()) {
+                case ADD -> {
+                    if (!checks.containsKey(productId)) {
+                        throw new ProductNotFoundException(Collections.singletonList(productId));
+                    }
+                    cart.merge(productId, operation.quantity(), Integer::sum);
+                }
+                case SET -> {
+                    if (!cart.containsKey(productId)) {
+                        throw new CartItemNotFoundException(userId, productId);
+                    }
+                    cart.put(productId, operation.quantity());
+                }
+                case REMOVE -> {
+                    if (cart.remove(productId) == null) {
+                        throw new CartItemNotFoundException(userId, productId);
+                    }
+                }
+                case CLEAR -> cart.clear();
+            }
+        }
+        cart.forEach((productId, quantity) -> {
+            if (!quantity.equals(original.get(productId))) {
+                CartItemJdbcRepository.StockCheck check = checks.get(productId);
+                if (check == null) {
+                    throw new CartItemNotFoundException(userId, productId);
+                }
+                validatedQuantity(productId, check, quantity);
+            }
+        });
+        return cart;
     }
 
-    private void validateStockAvailability(Product product, Integer requestedQuantity) {
-        if (!product.getIsActive()) {
-            throw new ProductNotAvailableException(product.getProductId());
+
+    private int validatedQuantity(Long productId, CartItemJdbcRepository.StockCheck check, int quantity) {
+        if (!check.active() || check.availableStock() < quantity) {
+            throw stockRejection(productId, check);
         }
+        return quantity;
+    }
 
-        if (product.getStock() < requestedQuantity) {
-            throw new InsufficientProductStockException(product.getProductId(), product.getStock());
+    private RuntimeException stockRejection(Long productId, CartItemJdbcRepository.StockCheck check) {
+        if (!check.active()) {
+            return new ProductNotAvailableException(productId);
         }
+        return new InsufficientProductStockException(productId, check.availableStock());
     }
 
     private BigDecimal calculateCartTotal(List<CartItem> cartItems) {
@@ -123,18 +324,18 @@ public class CartService {
 
     // --- Mapping Methods ---
 
-    private UserCartDto mapToUserCartResponseDto(User user) {
-        List<CartItemDto> cartItemDtos = user.getCartItems().stream()
+    private UserCartDto mapToUserCartResponseDto(List<CartItem> cartItems, long version) {
+        List<CartItemDto> cartItemDtos = cartItems.stream()
                 .map(this::toCartItemDto)
                 .toList();
-        BigDecimal totalPrice = calculateCartTotal(user.getCartItems());
+        BigDecimal totalPrice = calculateCartTotal(cartItems);
 
-        return new UserCartDto(cartItemDtos, totalPrice);
+        return new UserCartDto(cartItemDtos, totalPrice, version);
     }
 
     private CartItemDto toCartItemDto(CartItem item) {
         ProductDto productDto = toProductDto(item.getProduct());
-        boolean isAvailable = (item.getQuantity() <= productDto.stockQuantity()) && productDto.isActive();
+        boolean isAvailable = (item.getQuantity() <= item.getProduct().getAvailableStock()) && productDto.isActive();
 
         return new CartItemDto(
                 item.getCartItemId(),
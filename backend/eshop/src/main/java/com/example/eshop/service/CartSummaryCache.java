@@ -0,0 +1,174 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.dto.business.CartSummaryDto;
+import com.example.eshop.repository.CartItemJdbcRepository.SummaryLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Per-user cart summaries (item count, total, availability) for the mini-cart shown on every page.
+ * An entry is dropped when the user's cart is edited, and when a product it contains changes:
+ * admin edits through ProductCatalogChangedEvent, checkout reservations through
+ * ProductStockChangedEvent. Entries are bounded LRU and also expire after the TTL, which covers
+ * changes made outside the application.
+ */
+@Component
+@Slf4j
+public class CartSummaryCache {
+
+    @Value("${app.cart.summary-cache.ttl:PT10M}")
+    private Duration ttl = Duration.ofMinutes(10);
+
+    @Value("${app.cart.summary-cache.max-size:10000}")
+    private int maxSize = 10_000;
+
+    // All guarded by this. Access ordered.
+    private final LinkedHashMap<Long, Entry> summaries = new LinkedHashMap<>(16, 0.75f, true);
+    // Product id to the users whose cached summary contains it
+    private final Map<Long, Set<Long>> usersByProduct = new HashMap<>();
+    // User id to the token of the load in progress. A load is only stored when no invalidation
+    // dropped its token meanwhile, otherwise a read racing an edit could cache the old cart.
+    private final Map<Long, Object> loads = new HashMap<>();
+
+    public CartSummaryDto get(Long userId, Supplier<List<SummaryLine>> loader) {
+        Object token = new Object();
+        synchronized (this) {
+            Entry entry = summaries.get(userId);
+            if (entry != null) {
+                if (entry.expiresAt() - System.nanoTime() > 0) {
+                    return entry.summary();
+                }
+                remove(userId);
+            }
+            loads.put(userId, token);
+        }
+
+        List<SummaryLine> lines = loader.get();
+        CartSummaryDto summary = summarize(lines);
+        synchronized (this) {
+            if (loads.remove(userId, token)) {
+                store(userId, new Entry(summary,
+                        lines.stream().map(SummaryLine::productId).collect(Collectors.toSet()),
+                        System.nanoTime() + ttl.toNanos()));
+            }
+        }
+        return summary;
+    }
+
+    // Drops the user's summary now and, inside a transaction, again after commit, so a summary
+    // read between the edit and its commit is not kept
+    public void invalidate(Long userId) {
+        invalidateUser(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateUser(userId);
+                }
+            });
+        }
+    }
+
+    // fallbackExecution covers changes made outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.affectsAllProducts()) {
+            invalidateAll();
+        } else {
+            invalidateProducts(Set.of(event.productId()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(ProductStockChangedEvent event) {
+        invalidateProducts(event.productIds());
+    }
+
+    // Private helper methods
+    private synchronized void invalidateUser(Long userId) {
+        remove(userId);
+        loads.remove(userId);
+    }
+
+    private synchronized void invalidateProducts(Collection<Long> productIds) {
+        for (Long productId : productIds) {
+            Set<Long> userIds = usersByProduct.get(productId);
+            if (userIds != null) {
+                new HashSet<>(userIds).forEach(this::remove);
+            }
+        }
+        // The products of a load in progress are not known yet
+        loads.clear();
+        log.debug("Cart summaries invalidated for products {}", productIds);
+    }
+
+    private synchronized void invalidateAll() {
+        summaries.clear();
+        usersByProduct.clear();
+        loads.clear();
+    }
+
+    private void store(Long userId, Entry entry) {
+        remove(userId);
+        summaries.put(userId, entry);
+        entry.productIds().forEach(productId -> usersByProduct.computeIfAbsent(productId, id -> new HashSet<>()).add(userId));
+
+        Iterator<Map.Entry<Long, Entry>> eldest = summaries.entrySet().iterator();
+        while (summaries.size() > maxSize && eldest.hasNext()) {
+            Map.Entry<Long, Entry> evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted.getKey(), evicted.getValue());
+        }
+    }
+
+    private void remove(Long userId) {
+        unindex(userId, summaries.remove(userId));
+    }
+
+    private void unindex(Long userId, Entry entry) {
+        if (entry == null) {
+            return;
+        }
+        for (Long productId : entry.productIds()) {
+            Set<Long> userIds = usersByProduct.get(productId);
+            if (userIds != null && userIds.remove(userId) && userIds.isEmpty()) {
+                usersByProduct.remove(productId);
+            }
+        }
+    }
+
+    private static CartSummaryDto summarize(List<SummaryLine> lines) {
+        int totalQuantity = 0;
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        List<Long> unavailable = new ArrayList<>();
+        for (SummaryLine line : lines) {
+            totalQuantity += line.quantity();
+            totalPrice = totalPrice.add(line.price().multiply(BigDecimal.valueOf(line.quantity())));
+            if (!line.available()) {
+                unavailable.add(line.productId());
+            }
+        }
+        return new CartSummaryDto(lines.size(), totalQuantity, totalPrice, unavailable.isEmpty(), List.copyOf(unavailable));
+    }
+
+    private record Entry(CartSummaryDto summary, Set<Long> productIds, long expiresAt) {
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.CartVersionMismatchException;
+import com.example.eshop.exception.UserNotFoundException;
+import com.example.eshop.repository.CartItemJdbcRepository;
+import com.example.eshop.repository.CartItemJdbcRepository.CartQuantity;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.IntUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Write-behind copy of the carts being edited, used when app.cart.write-mode is WRITE_BEHIND.
+ * An edit changes the in-memory cart and is written to cart_items later: every
+ * app.cart.flush-interval, and before the cart is read, checked out or evicted. Edits of the same
+ * item between two flushes become a single write. At most app.cart.max-carts carts are kept, the
+ * least recently used one is flushed and dropped to make room.
+ *
+ * Durability: an edit is acknowledged before it is written, a crash loses the edits made since the
+ * last flush (graceful shutdowns flush everything). Flushes write absolute quantities in one
+ * transaction per run, so a failed flush writes nothing and is retried, and a repeated one changes
+ * nothing. Checkout flushes the cart first and always reads what the user last saw.
+ * Carts only live in this instance, users must not be spread across several instances.
+ *
+ * Every edit that changes a cart bumps its version, checked against the version the client expects
+ * under the cart's lock. Versions are handed out from memory: loading a cart reserves the next
+ * app.cart.version-block-size versions by moving users.cart_version past them, in its own
+ * transaction. A crash can lose edits but never lets their versions be handed out again, the
+ * reloaded cart starts after the block. Carts dropped cleanly give the unused rest of their block back.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartWriteBehindStore {
+
+    private final CartItemJdbcRepository cartItemJdbcRepo;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.cart.max-carts:10000}")
+    private int maxCarts = 10_000;
+
+    @Value("${app.cart.version-block-size:100}")
+    private int versionBlockSize = 100;
+
+    // Access ordered, guarded by itself. Lock order: carts, then a cart.
+    private final LinkedHashMap<Long, Cart> carts = new LinkedHashMap<>(16, 0.75f, true);
+
+    // Serializes flushes, so an older snapshot of a cart is never written after a newer one
+    private final Object flushLock = new Object();
+
+    // Applies update to the quantity of the item (0 when not in the cart), 0 removes the item.
+    // Returns the cart version after the edit. expectedVersion null accepts any version.
+    // An exception thrown by update leaves the cart unchanged.
+    public long compute(Long userId, Long productId, Long expectedVersion, IntUnaryOperator update) {
+        while (true) {
+            Cart cart = cart(userId);
+            synchronized (cart) {
+                if (cart.evicted) {
+                    continue;
+                }
+                load(cart);
+                checkVersion(cart, expectedVersion);
+                int current = cart.quantities.getOrDefault(productId, 0);
+                int next = update.applyAsInt(current);
+                if (next != current) {
+                    nextVersion(cart);
+                    if (next == 0) {
+                        cart.quantities.remove(productId);
+                    } else {
+                        cart.quantities.put(productId, next);
+                    }
+                    cart.dirty.add(productId);
+                }
+                return cart.version;
+            }
+        }
+    }
+
+    // Replaces the cart with what update makes of a copy of it, product id to quantity. Returns the
+    // cart version after the edit. An exception thrown by update leaves the cart unchanged.
+    public long update(Long userId, Long expectedVersion, UnaryOperator<Map<Long, Integer>> update) {
+        while (true) {
+            Cart cart = cart(userId);
+            synchronized (cart) {
+                if (cart.evicted) {
+                    continue;
+                }
+                load(cart);
+                checkVersion(cart, expectedVersion);
+                Map<Long, Integer> next = update.apply(new LinkedHashMap<>(cart.quantities));
+                Set<Long> productIds = new HashSet<>(cart.quantities.keySet());
+                productIds.addAll(next.keySet());
+                productIds.removeIf(productId -> Objects.equals(cart.quantities.get(productId), next.get(productId)));
+                if (!productIds.isEmpty()) {
+                    nextVersion(cart);
+                    cart.dirty.addAll(productIds);
+                    cart.quantities.clear();
+                    cart.quantities.putAll(next);
+                }
+                return cart.version;
+            }
+        }
+    }
+
+    public long clear(Long userId, Long expectedVersion) {
+        while (true) {
+            Cart cart = cart(userId);
+            synchronized (cart) {
+                if (cart.evicted) {
+                    continue;
+                }
+                load(cart);
+                checkVersion(cart, expectedVersion);
+                if (!cart.quantities.isEmpty()) {
+                    nextVersion(cart);
+                    cart.dirty.addAll(cart.quantities.keySet());
+                    cart.quantities.clear();
+                }
+                return cart.version;
+            }
+        }
+    }
+
+    // The version the next edit is checked against, read from users.cart_version when the cart is not here
+    public long version(Long userId) {
+        Cart cart;
+        synchronized (carts) {
+            cart = carts.get(userId);
+        }
+        if (cart != null) {
+            synchronized (cart) {
+                if (cart.loaded && !cart.evicted) {
+                    return cart.version;
+                }
+            }
+        }
+        return cartItemJdbcRepo.findCartVersion(userId).orElseThrow(() -> new UserNotFoundException(userId));
+    }
+
+    // Writes the pending edits of one cart, throws when they could not be written
+    public void flush(Long userId) {
+        Cart cart;
+        synchronized (carts) {
+            cart = carts.get(userId);
+        }
+        if (cart != null) {
+            flush(List.of(cart));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval:PT2S}")
+    public void flushAll() {
+        List<Cart> dirty;
+        synchronized (carts) {
+            dirty = new ArrayList<>(carts.values());
+        }
+        dirty.removeIf(Cart::isClean);
+        try {
+            flush(dirty);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush {} carts, retrying on the next run", dirty.size(), e);
+        }
+    }
+
+    // Writes and drops every cart, so their unused versions are given back
+    @PreDestroy
+    public void shutdown() {
+        List<Cart> all;
+        synchronized (carts) {
+            all = new ArrayList<>(carts.values());
+        }
+        evict(all);
+    }
+
+    // Private helper methods
+    private Cart cart(Long userId) {
+        Cart cart;
+        List<Cart> victims = new ArrayList<>();
+        synchronized (carts) {
+            cart = carts.computeIfAbsent(userId, Cart::new);
+            Iterator<Cart> eldest = carts.values().iterator();
+            for (int excess = carts.size() - maxCarts; excess > 0 && eldest.hasNext(); ) {
+                Cart candidate = eldest.next();
+                if (candidate != cart) {
+                    victims.add(candidate);
+                    excess--;
+                }
+            }
+        }
+        if (!victims.isEmpty()) {
+            evict(victims);
+        }
+        return cart;
+    }
+
+    // A cart is only dropped once its edits are written, until then it stays readable here
+    private void evict(List<Cart> victims) {
+        try {
+            flush(victims);
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} carts before evicting them", victims.size(), e);
+            return;
+        }
+        List<Cart> evicted = new ArrayList<>();
+        synchronized (carts) {
+            for (Cart victim : victims) {
+                synchronized (victim) {
+                    if (victim.isClean() && carts.remove(victim.userId, victim)) {
+                        victim.evicted = true;
+                        evicted.add(victim);
+                    }
+                }
+            }
+        }
+        releaseVersions(evicted);
+    }
+
+    // Nothing can be handed out of the block of a dropped cart anymore, so the version it was at is
+    // restored and clients keep a valid ETag when the cart is loaded again
+    private void releaseVersions(List<Cart> evicted) {
+        List<Cart> unused = evicted.stream().filter(cart -> cart.loaded && cart.version < cart.reservedVersion).toList();
+        if (unused.isEmpty()) {
+            return;
+        }
+        try {
+            newTransaction().executeWithoutResult(status -> unused.forEach(cart ->
+                    cartItemJdbcRepo.releaseCartVersions(cart.userId, cart.version, cart.reservedVersion)));
+        } catch (RuntimeException e) {
+            // Only costs the clients of these carts one version mismatch
+            log.warn("Failed to give back the unused versions of {} carts", unused.size(), e);
+        }
+    }
+
+    // The cart starts at the version before its reserved block, the quantities are read after the
+    // reservation locked the user row, so they include every edit committed up to that version
+    private void load(Cart cart) {
+        if (!cart.loaded) {
+            newTransaction().executeWithoutResult(status -> {
+                reserveVersions(cart);
+                cart.version = cart.reservedVersion - versionBlockSize;
+                cart.quantities.putAll(cartItemJdbcRepo.findQuantities(cart.userId));
+            });
+            cart.loaded = true;
+        }
+    }
+
+    // Before the edit is applied, so an edit whose version could not be reserved is rejected.
+    // Only a cart that used up its block goes to the database.
+    private void nextVersion(Cart cart) {
+        if (cart.version >= cart.reservedVersion) {
+            newTransaction().executeWithoutResult(status -> reserveVersions(cart));
+            cart.version = Math.max(cart.version, cart.reservedVersion - versionBlockSize);
+        }
+        cart.version++;
+    }
+
+    private void reserveVersions(Cart cart) {
+        cart.reservedVersion = cartItemJdbcRepo.reserveCartVersions(cart.userId, versionBlockSize)
+                .orElseThrow(() -> new UserNotFoundException(cart.userId));
+    }
+
+    private static void checkVersion(Cart cart, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != cart.version) {
+            throw new CartVersionMismatchException(expectedVersion, cart.version);
+        }
+    }
+
+    private void flush(List<Cart> toFlush) {
+        synchronized (flushLock) {
+            Map<Cart, Set<Long>> taken = new LinkedHashMap<>();
+            List<CartQuantity> writes = new ArrayList<>();
+            for (Cart cart : toFlush) {
+                synchronized (cart) {
+                    if (cart.isClean()) {
+                        continue;
+                    }
+                    for (Long productId : cart.dirty) {
+                        writes.add(new CartQuantity(cart.userId, productId, cart.quantities.getOrDefault(productId, 0)));
+                    }
+                    taken.put(cart, new HashSet<>(cart.dirty));
+                    cart.dirty.clear();
+                }
+            }
+            if (writes.isEmpty()) {
+                return;
+            }
+
+            try {
+                write(writes);
+            } catch (DataIntegrityViolationException e) {
+                // The user or a product was deleted meanwhile, find the carts that can no longer be written
+                taken.forEach(this::flushAlone);
+            } catch (RuntimeException e) {
+                taken.forEach(Cart::markDirty);
+                throw e;
+            }
+        }
+    }
+
+    private void flushAlone(Cart cart, Set<Long> productIds) {
+        List<CartQuantity> writes;
+        synchronized (cart) {
+            writes = productIds.stream()
+                    .map(productId -> new CartQuantity(cart.userId, productId, cart.quantities.getOrDefault(productId, 0)))
+                    .toList();
+        }
+        try {
+            write(writes);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Discarding unsaved edits of the cart of user {}: {}", cart.userId, e.getMostSpecificCause().getMessage());
+            synchronized (carts) {
+                synchronized (cart) {
+                    carts.remove(cart.userId, cart);
+                    cart.evicted = true;
+                }
+            }
+        } catch (RuntimeException e) {
+            cart.markDirty(productIds);
+            throw e;
+        }
+    }
+
+    private void write(List<CartQuantity> writes) {
+        newTransaction().executeWithoutResult(status -> cartItemJdbcRepo.writeQuantities(writes));
+    }
+
+    // Never part of the caller's transaction, a rollback there must not undo a write the store counts as done
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transaction;
+    }
+
+    private static final class Cart {
+
+        private final Long userId;
+        // Product id to quantity, the whole cart once loaded
+        private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+        // Items whose quantity differs from cart_items
+        private final Set<Long> dirty = new HashSet<>();
+        private boolean loaded;
+        // Version of the last edit, handed out from the block reserved up to reservedVersion
+        private long version;
+        private long reservedVersion;
+        // Dropped from the store, edits must go to a new copy
+        private boolean evicted;
+
+        private Cart(Long userId) {
+            this.userId = userId;
+        }
+
+        private synchronized boolean isClean() {
+            return dirty.isEmpty();
+        }
+
+        // The latest quantity is written, whatever the failed flush held
+        private synchronized void markDirty(Set<Long> productIds) {
+            dirty.addAll(productIds);
+        }
+    }
+}
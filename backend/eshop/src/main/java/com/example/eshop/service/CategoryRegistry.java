@@ -0,0 +1,98 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.dto.business.CategorySummaryDto;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-process copy of every category with its product count, backing the category menus.
+ * Loaded on first use with one grouped query. Product changes recount only the categories they
+ * touch, category writes reload the whole registry. Readers get an immutable snapshot without
+ * locking, writers replace it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryRegistry {
+
+    private static final Comparator<CategorySummaryDto> MENU_ORDER =
+            Comparator.comparing(CategorySummaryDto::name, String.CASE_INSENSITIVE_ORDER)
+                    .thenComparing(CategorySummaryDto::id);
+
+    private final CategoryJpaRepository categoryRepository;
+
+    // Menu order, null until first loaded
+    private volatile Map<Long, CategorySummaryDto> categories;
+
+    public List<CategorySummaryDto> getAll() {
+        return List.copyOf(snapshot().values());
+    }
+
+    public Optional<CategorySummaryDto> find(Long categoryId) {
+        return Optional.ofNullable(snapshot().get(categoryId));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.affectsAllProducts()) {
+            reload();
+        } else if (categories != null && !event.categoryIds().isEmpty()) {
+            recount(event.categoryIds());
+        }
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (categories != null && !event.categoryIds().isEmpty()) {
+            recount(event.categoryIds());
+        }
+    }
+
+    public synchronized void reload() {
+        Map<Long, CategorySummaryDto> loaded = new HashMap<>();
+        categoryRepository.findSummaries().forEach(summary -> loaded.put(summary.id(), summary));
+        categories = inMenuOrder(loaded);
+        log.debug("Category registry loaded {} categories", loaded.size());
+    }
+
+    // Private helper methods
+    private Map<Long, CategorySummaryDto> snapshot() {
+        Map<Long, CategorySummaryDto> current = categories;
+        if (current == null) {
+            synchronized (this) {
+                if (categories == null) {
+                    reload();
+                }
+                current = categories;
+            }
+        }
+        return current;
+    }
+
+    private synchronized void recount(Set<Long> categoryIds) {
+        Map<Long, CategorySummaryDto> updated = new HashMap<>(categories);
+        // Categories missing from the result were deleted meanwhile
+        categoryIds.forEach(updated::remove);
+        categoryRepository.findSummariesByIdIn(categoryIds)
+                .forEach(summary -> updated.put(summary.id(), summary));
+        categories = inMenuOrder(updated);
+    }
+
+    private static Map<Long, CategorySummaryDto> inMenuOrder(Map<Long, CategorySummaryDto> byId) {
+        Map<Long, CategorySummaryDto> ordered = new LinkedHashMap<>();
+        byId.values().stream().sorted(MENU_ORDER).forEach(summary -> ordered.put(summary.id(), summary));
+        return ordered;
+    }
+}
@@ -3,13 +3,17 @@ package com.example.eshop.service;
 import com.example.eshop.exception.CategoryNotFoundException;
 import com.example.eshop.exception.DuplicateCategoryException;
 import com.example.eshop.model.Category;
+import com.example.eshop.model.dto.business.CategorySummaryDto;
 import com.example.eshop.repository.interfaces.CategoryJpaRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Locale;
 
 @Service
 @RequiredArgsConstructor
@@ -18,6 +22,9 @@ import java.util.List;
 public class CategoryService {
 
     private final CategoryJpaRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryRegistry categoryRegistry;
+    private final AdminStatsService adminStatsService;
 
     @Transactional(readOnly = true)
     public List<Category> getAllCategories() {
@@ -25,6 +32,18 @@ public class CategoryService {
         return categoryRepository.findAll();
     }
 
+    // Menu entries with product counts, served from memory
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CategorySummaryDto> getCategorySummaries() {
+        return categoryRegistry.getAll();
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CategorySummaryDto getCategorySummary(Long id) {
+        return categoryRegistry.find(id)
+                .orElseThrow(() -> new CategoryNotFoundException("Category not found with id: " + id));
+    }
+
     @Transactional(readOnly = true)
     public Category getCategoryById(Long id) {
         log.debug("Fetching category by id: {}", id);
@@ -39,10 +58,14 @@ public class CategoryService {
                 .orElseThrow(() -> new CategoryNotFoundException("Category not found with name: " + name));
     }
 
-    @Transactional(readOnly = true)
-    public List<Category> searchCategories(String searchTerm) {
+    // Matched against the registry, the categories are few and all in memory
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CategorySummaryDto> searchCategories(String searchTerm) {
         log.debug("Searching categories with term: {}", searchTerm);
-        return categoryRepository.findByCategoryNameContainingIgnoreCase(searchTerm);
+        String term = searchTerm.toLowerCase(Locale.ROOT);
+        return categoryRegistry.getAll().stream()
+                .filter(category -> category.name().toLowerCase(Locale.ROOT).contains(term))
+                .toList();
     }
 
     public Category createCategory(Category category) {
@@ -53,6 +76,9 @@ public class CategoryService {
         }
         
         Category savedCategory = categoryRepository.save(category);
+        // New categories show up in suggestions
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.allProducts());
+        adminStatsService.categoryCreated();
         log.info("Created category with id: {}", savedCategory.getId());
         return savedCategory;
     }
@@ -72,6 +98,8 @@ public class CategoryService {
         existingCategory.setDescription(categoryDetails.getDescription());
         
         Category updatedCategory = categoryRepository.save(existingCategory);
+        // Category names are part of every cached product
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.allProducts());
         log.info("Updated category with id: {}", updatedCategory.getId());
         return updatedCategory;
     }
@@ -88,6 +116,8 @@ public class CategoryService {
         }
         
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.allProducts());
+        adminStatsService.categoryDeleted();
         log.info("Deleted category with id: {}", id);
     }
 
@@ -101,8 +131,8 @@ public class CategoryService {
         return categoryRepository.existsByName(name);
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Long getProductCountByCategory(Long categoryId) {
-        return categoryRepository.countProductsByCategoryId(categoryId);
+        return categoryRegistry.find(categoryId).map(CategorySummaryDto::productCount).orElse(0L);
     }
 }
@@ -0,0 +1,69 @@
+package com.example.eshop.service;
+
+import com.example.eshop.repository.ExportJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * Exports of the product catalog, orders and order items for reporting jobs.
+ * Rows are written to the output while the query is still being read, memory use does not grow
+ * with the table. Exports are read-only transactions and go to a read replica when one is configured.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DataExportService {
+
+    private final ExportJdbcRepository exportRepository;
+
+    public enum Format {
+        CSV(MediaType.parseMediaType("text/csv"), "csv"),
+        NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public long exportProducts(Format format, OutputStream output) {
+        long start = System.nanoTime();
+        long rows = exportRepository.streamProducts(ExportWriter.of(format, output));
+        log.info("Exported {} products as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportOrders(Format format, LocalDateTime from, LocalDateTime to, OutputStream output) {
+        long start = System.nanoTime();
+        long rows = exportRepository.streamOrders(from, to, ExportWriter.of(format, output));
+        log.info("Exported {} orders as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    @Transactional(readOnly = true)
+    public long exportOrderItems(Format format, LocalDateTime from, LocalDateTime to, OutputStream output) {
+        long start = System.nanoTime();
+        long rows = exportRepository.streamOrderItems(from, to, ExportWriter.of(format, output));
+        log.info("Exported {} order items as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.eshop.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Writes each row of an export query as it is read, the output is flushed in buffer-sized pieces.
+ * Field names are the column labels of the query. Returns the number of rows written.
+ */
+abstract class ExportWriter implements ResultSetExtractor<Long> {
+
+    protected final Writer out;
+
+    protected ExportWriter(OutputStream output) {
+        this.out = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+    }
+
+    static ExportWriter of(DataExportService.Format format, OutputStream output) {
+        return format == DataExportService.Format.NDJSON ? new Ndjson(output) : new Csv(output);
+    }
+
+    @Override
+    public Long extractData(ResultSet rs) throws SQLException {
+        try {
+            ResultSetMetaData metaData = rs.getMetaData();
+            String[] names = new String[metaData.getColumnCount()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+            }
+            start(names);
+            Object[] values = new Object[names.length];
+            long rows = 0;
+            while (rs.next()) {
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = value(rs.getObject(i + 1));
+                }
+                row(names, values);
+                rows++;
+            }
+            finish();
+            return rows;
+        } catch (IOException e) {
+            // Usually the client went away, ending the query early
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    protected abstract void start(String[] names) throws IOException;
+
+    protected abstract void row(String[] names, Object[] values) throws IOException;
+
+    protected void finish() throws IOException {
+        out.flush();
+    }
+
+    private static Object value(Object value) {
+        return value instanceof Timestamp timestamp ? timestamp.toLocalDateTime() : value;
+    }
+
+    /**
+     * RFC 4180 CSV with a header row, fields holding commas, quotes or line breaks are quoted.
+     */
+    static final class Csv extends ExportWriter {
+
+        Csv(OutputStream output) {
+            super(output);
+        }
+
+        @Override
+        protected void start(String[] names) throws IOException {
+            write(names);
+        }
+
+        @Override
+        protected void row(String[] names, Object[] values) throws IOException {
+            write(values);
+        }
+
+        private void write(Object[] fields) throws IOException {
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(escape(text(fields[i])));
+            }
+            out.write("\r\n");
+        }
+
+        private static String text(Object value) {
+            if (value == null) {
+                return "";
+            }
+            return value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+        }
+
+        private static String escape(String field) {
+            if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) {
+                return field;
+            }
+            return '"' + field.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    /**
+     * One JSON object per line. Numbers and booleans keep their JSON types, timestamps are ISO-8601 text.
+     */
+    static final class Ndjson extends ExportWriter {
+
+        private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+        private final JsonGenerator json;
+
+        Ndjson(OutputStream output) {
+            super(output);
+            try {
+                json = JSON_FACTORY.createGenerator(out).setRootValueSeparator(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // Flushing a row only hands it to the buffered writer
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        protected void start(String[] names) {
+        }
+
+        @Override
+        protected void row(String[] names, Object[] values) throws IOException {
+            json.writeStartObject();
+            for (int i = 0; i < names.length; i++) {
+                json.writeFieldName(names[i]);
+                Object value = values[i];
+                switch (value) {
+                    case null -> json.writeNull();
+                    case BigDecimal decimal -> json.writeNumber(decimal);
+                    case Long number -> json.writeNumber(number);
+                    case Integer number -> json.writeNumber(number);
+                    case Number number -> json.writeNumber(number.toString());
+                    case Boolean bool -> json.writeBoolean(bool);
+                    case LocalDateTime dateTime -> json.writeString(dateTime.toString());
+                    default -> json.writeString(value.toString());
+                }
+            }
+            json.writeEndObject();
+            json.flush();
+            out.write('\n');
+        }
+    }
+}
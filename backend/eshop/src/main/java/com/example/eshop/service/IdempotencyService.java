@@ -0,0 +1,117 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.IdempotencyConflictException;
+import com.example.eshop.exception.IdempotencyStoreFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory store for Idempotency-Key headers.
+ * The first request with a key runs, concurrent duplicates are rejected while it is in flight
+ * and later replays get the stored response until the TTL runs out. Failed requests are
+ * forgotten so the client can retry with the same key. A full store rejects new keys rather than
+ * running them without deduplication.
+ * Entries are per node, which is enough while checkout is served by a single instance.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    private final Map<String, IdempotencyEntry> entries = new ConcurrentHashMap<>();
+    // Only one request sweeps a full store, the others do not wait for it
+    private final ReentrantLock sweepLock = new ReentrantLock();
+
+    @Value("${app.idempotency.ttl:PT24H}")
+    private Duration ttl = Duration.ofHours(24);
+
+    @Value("${app.idempotency.max-entries:100000}")
+    private int maxEntries = 100_000;
+
+    // Runs the action once per (scope, user, key); a null key disables deduplication.
+    // The fingerprint identifies the request payload, reusing a key for another payload is a conflict.
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, Long userId, String idempotencyKey, String fingerprint, Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+
+        String storeKey = scope + ":" + userId + ":" + idempotencyKey;
+        long now = System.nanoTime();
+        IdempotencyEntry inFlight = new IdempotencyEntry(fingerprint, null, now + ttl.toNanos());
+
+        IdempotencyEntry existing = entries.compute(storeKey, (key, entry) ->
+                entry == null || entry.isExpired(now) ? inFlight : entry);
+
+        if (existing != inFlight) {
+            if (!Objects.equals(existing.fingerprint(), fingerprint)) {
+                throw new IdempotencyConflictException(idempotencyKey,
+                        "Idempotency key was already used for a different request");
+            }
+            if (existing.response() == null) {
+                throw new IdempotencyConflictException(idempotencyKey,
+                        "A request with this idempotency key is already in progress");
+            }
+            log.info("Replaying stored {} response for idempotency key {}", scope, idempotencyKey);
+            return (T) existing.response();
+        }
+
+        if (entries.size() > maxEntries && !evictExpiredWhenFull()) {
+            // Running it unstored would let a retry of this request through twice
+            log.warn("Idempotency store is full ({} entries), rejecting key {}", entries.size(), idempotencyKey);
+            entries.remove(storeKey, inFlight);
+            throw new IdempotencyStoreFullException(idempotencyKey);
+        }
+
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            entries.remove(storeKey, inFlight);
+            throw e;
+        }
+
+        entries.replace(storeKey, inFlight,
+                new IdempotencyEntry(fingerprint, response, System.nanoTime() + ttl.toNanos()));
+        return response;
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.sweep-interval:PT5M}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        int before = entries.size();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+
+        int evicted = before - entries.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} expired idempotency entries", evicted);
+        }
+    }
+
+    // Returns whether the store has room again after dropping the expired entries
+    private boolean evictExpiredWhenFull() {
+        if (sweepLock.tryLock()) {
+            try {
+                evictExpired();
+            } finally {
+                sweepLock.unlock();
+            }
+        }
+        return entries.size() <= maxEntries;
+    }
+
+    // A null response marks a request that is still running
+    private record IdempotencyEntry(String fingerprint, Object response, long expiresAtNanos) {
+        boolean isExpired(long now) {
+            return now - expiresAtNanos > 0;
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.eshop.service;
+
+// Strategy for Order.orderNumber, chosen with app.order-number.strategy
+public interface OrderNumberGenerator {
+    String nextOrderNumber();
+}
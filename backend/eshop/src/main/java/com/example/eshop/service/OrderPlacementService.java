@@ -0,0 +1,264 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.*;
+import com.example.eshop.model.*;
+import com.example.eshop.model.common.StockReservationMode;
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import com.example.eshop.repository.interfaces.UserJpaRepository;
+import com.example.eshop.util.LockTimeout;
+import jakarta.persistence.PessimisticLockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.LockAcquisitionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Recover;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Short database transactions of the checkout pipeline.
+ * OrderService calls PayPal between these phases, so no connection or row lock is held
+ * while waiting on the PayPal API.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderPlacementService {
+    private final UserJpaRepository userRepo;
+    private final ProductJpaRepository productRepo;
+    private final OrderJpaRepository orderRepo;
+    private final StockReservationService stockReservationService;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final OrderSummaryService orderSummaryService;
+
+    @Value("${app.checkout.stock-reservation-mode:CONDITIONAL_UPDATE}")
+    private StockReservationMode stockReservationMode;
+
+    private static final int calculationScale = 2;
+    private static final RoundingMode calculationRoundingMode = RoundingMode.HALF_UP;
+
+    // Phase 1: commits the PENDING order together with its stock reservations
+    @Retryable(
+            retryFor = {
+                    PessimisticLockException.class,
+                    CannotAcquireLockException.class,
+                    LockAcquisitionException.class,
+                    OrderNumberConflictException.class
+            },
+            maxAttempts = 2,
+            backoff = @Backoff(delay = 500)
+    )
+    @LockTimeout() // Resource locking for race conditions
+    @Transactional(timeout = 15, rollbackFor = Exception.class)
+    public Order placePendingOrder(Long userId) {
+        Order businessOrder = createBusinessOrder(userId);
+
+        // Save the order in PENDING state
+        Order savedOrder = saveNewOrder(businessOrder);
+        stockReservationService.recordReservations(savedOrder);
+        orderSummaryService.recordOrder(savedOrder);
+        log.info("Business order created with ID: {} and number: {}",
+                savedOrder.getOrderId(), savedOrder.getOrderNumber());
+
+        return savedOrder;
+    }
+
+    // Phase 3: returns false when the order left PENDING while PayPal was being called
+    @Transactional(timeout = 5, rollbackFor = Exception.class)
+    public boolean attachPaypalOrderId(Long orderId, String paypalOrderId) {
+        return orderRepo.attachPaypalOrderId(orderId, paypalOrderId, Order.OrderStatus.PENDING) == 1;
+    }
+
+    // Compensation when the PayPal order could not be created
+    @Transactional(rollbackFor = Exception.class)
+    public void cancelPendingOrder(Long orderId) {
+        Order order = orderRepo.findById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+
+        if (order.getOrderStatus() != Order.OrderStatus.PENDING) {
+            log.info("Order {} is in status {}, skipping compensation", order.getOrderNumber(), order.getOrderStatus());
+            return;
+        }
+
+        cancel(order);
+        order.setPaypalOrderId(null);
+        orderRepo.save(order);
+        log.info("Order cancelled after failed payment setup: {}", order.getOrderNumber());
+    }
+
+    // Compensation when the PayPal order was created but could not be attached. The PayPal order ID is
+    // recorded on the cancelled order, so an approval that still comes back is refused instead of unknown.
+    // The buyer never got the approval link, PayPal expires the unapproved order on its own.
+    @Transactional(rollbackFor = Exception.class)
+    public void abandonPaypalOrder(Long orderId, String paypalOrderId) {
+        Order order = orderRepo.findById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderId));
+
+        if (order.getOrderStatus() == Order.OrderStatus.PENDING) {
+            cancel(order);
+        }
+        if (order.getPaypalOrderId() == null) {
+            order.setPaypalOrderId(paypalOrderId);
+        }
+        orderRepo.save(order);
+        log.info("PayPal order {} abandoned with order {} in status {}",
+                paypalOrderId, order.getOrderNumber(), order.getOrderStatus());
+    }
+
+    // Private helper methods
+    private void cancel(Order order) {
+        stockReservationService.releaseReservations(order);
+        order.setOrderStatus(Order.OrderStatus.CANCELLED);
+        orderSummaryService.updateStatus(order);
+    }
+
+    // A duplicate order number is retried with a fresh one, backstop for misconfigured node ids
+    private Order saveNewOrder(Order order) {
+        try {
+            return orderRepo.save(order);
+        } catch (DataIntegrityViolationException e) {
+            String message = e.getMostSpecificCause().getMessage();
+            if (message != null && message.contains(order.getOrderNumber())) {
+                throw new OrderNumberConflictException(order.getOrderNumber());
+            }
+            throw e;
+        }
+    }
+
+    private Order createBusinessOrder(Long userId) {
+        User user = userRepo.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
+
+        List<CartItem> cartItems = user.getCartItems();
+        if (cartItems == null || cartItems.isEmpty()) {
+            throw new CartEmptyException(userId);
+        }
+
+        String shippingAddress = user.getAddress();
+        if (shippingAddress == null || shippingAddress.isBlank()) {
+            throw new ShippingAddressMissingException(userId);
+        }
+
+        BigDecimal subtotal = BigDecimal.ZERO;
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderNumber(orderNumberGenerator.nextOrderNumber());
+        order.setOrderStatus(Order.OrderStatus.PENDING);
+        order.setOrderDate(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+        order.setShippingAddress(shippingAddress);
+
+        Map<Long, Integer> quantityMap = cartItems.stream()
+                .collect(Collectors.toMap(
+                        item -> item.getProduct().getProductId(),
+                        CartItem::getQuantity
+                ));
+
+        List<Long> productIds = new ArrayList<>(quantityMap.keySet());
+        // Locking only serializes concurrent checkouts, the guarded reservation below is what prevents overselling
+        boolean lockProducts = stockReservationMode == StockReservationMode.PESSIMISTIC_LOCK;
+        List<Product> products = lockProducts
+                ? productRepo.findAllByIdForUpdate(productIds)
+                : productRepo.findAllById(productIds);
+
+        // Check for missing products
+        if (products.size() != productIds.size()) {
+            Set<Long> foundIds = products.stream()
+                    .map(Product::getProductId)
+                    .collect(Collectors.toSet());
+
+            List<Long> missingIds = productIds.stream()
+                    .filter(id -> !foundIds.contains(id))
+                    .toList();
+
+            throw new ProductNotFoundException(missingIds);
+        }
+
+        for (Product product : products) {
+            Long productId = product.getProductId();
+            Integer quantity = quantityMap.get(productId);
+
+            if (!product.getIsActive()) throw new ProductNotAvailableException(productId);
+            if (product.getAvailableStock() < quantity) throw new InsufficientProductStockException(productId, product.getAvailableStock());
+
+            // Calculate item total
+            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+            subtotal = subtotal.add(itemTotal);
+
+            // Create order item
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProduct(product);
+            orderItem.setQuantity(quantity);
+            orderItem.setUnitPrice(product.getPrice());
+            orderItem.setTotal(itemTotal);
+
+            order.addOrderItem(orderItem);
+        }
+
+        // Reserve stock for the whole cart, products.stock itself only changes once the payment is captured
+        stockReservationService.reserveStock(quantityMap);
+
+        BigDecimal shipping = BigDecimal.valueOf(20);
+        BigDecimal tax = subtotal.multiply(BigDecimal.valueOf(0.1));
+        BigDecimal grandTotal = subtotal.add(shipping).add(tax);
+
+        subtotal = subtotal.setScale(calculationScale, calculationRoundingMode);
+        tax = tax.setScale(calculationScale, calculationRoundingMode);
+        grandTotal = grandTotal.setScale(calculationScale, calculationRoundingMode);
+
+        order.setSubtotal(subtotal);
+        order.setShippingCost(shipping);
+        order.setTax(tax);
+        order.setGrandTotal(grandTotal);
+
+        return order;
+    }
+
+    // Catch business exceptions
+    @Recover
+    public Order recoverFromUserNotFound(UserNotFoundException ex, Long userId) {
+        throw ex;  // Re-throw to global handler since it has its own response
+    }
+
+    @Recover
+    public Order recoverFromCartEmpty(CartEmptyException ex, Long userId) {
+        throw ex;  // Re-throw to global handler since it has its own response
+    }
+
+    @Recover
+    public Order recoverFromShippingMissing(ShippingAddressMissingException ex, Long userId) {
+        throw ex;  // Re-throw to global handler since it has its own response
+    }
+
+    @Recover
+    public Order recoverFromProductNotFound(ProductNotFoundException ex, Long userId) {
+        throw ex;  // Re-throw to global handler since it has its own response
+    }
+
+    @Recover
+    public Order recoverFromProductNotAvailable(ProductNotAvailableException ex, Long userId) {
+        throw ex;  // Re-throw to global handler since it has its own response
+    }
+
+    @Recover
+    public Order recoverFromInsufficientStock(InsufficientProductStockException ex, Long userId) {
+        throw ex;  // Re-throw to global handler since it has its own response
+    }
+
+    // Generic fallback for lock-related exceptions after retry attempts and any other exceptions
+    @Recover
+    public Order recoverCheckout(Throwable ex, Long userId) {
+        throw new CheckoutFailException(userId, ex.getMessage());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Order;
+import com.example.eshop.model.OrderItem;
+import com.example.eshop.model.OrderSummary;
+import com.example.eshop.repository.OrderSummaryJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Maintains the order_summaries read model served by the order history endpoints.
+ * Every order state change must call updateStatus in the same transaction, see OrderService.
+ * Both hooks also feed the order counters of the admin dashboard.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSummaryService {
+
+    private final OrderSummaryJdbcRepository summaryRepo;
+    private final AdminStatsService adminStatsService;
+
+    @Value("${app.order-summary.backfill-batch-size:1000}")
+    private int backfillBatchSize;
+
+    // Called in the transaction that inserts the order, after its id is assigned
+    public void recordOrder(Order order) {
+        List<OrderItem> items = order.getOrderItems();
+        int itemCount = items.stream().mapToInt(OrderItem::getQuantity).sum();
+        String thumbnailUrl = items.isEmpty() ? null : items.get(0).getProduct().getImageUrl();
+
+        summaryRepo.insert(new OrderSummary(
+                order.getOrderId(),
+                order.getUser().getId(),
+                order.getOrderNumber(),
+                order.getOrderDate(),
+                order.getOrderStatus(),
+                order.getSubtotal(),
+                order.getDiscountAmount(),
+                order.getShippingCost(),
+                order.getTax(),
+                order.getGrandTotal(),
+                itemCount,
+                thumbnailUrl,
+                LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS)
+        ));
+        adminStatsService.orderPlaced(order.getOrderStatus(), order.getGrandTotal());
+    }
+
+    public void updateStatus(Order order) {
+        if (summaryRepo.updateStatus(order.getOrderId(), order.getOrderStatus()) == 0) {
+            log.warn("No order summary for order {}, the backfill at the next startup builds it", order.getOrderNumber());
+        }
+        // The loaded status is still remembered, the entity is only flushed at commit
+        adminStatsService.orderStatusChanged(order.getPersistedStatus(), order.getOrderStatus(), order.getGrandTotal());
+    }
+
+    // Builds missing summaries for orders placed before the read model existed and repairs the status of
+    // summaries that fell behind their order, one id range per statement
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingSummaries() {
+        long[] range = summaryRepo.findOrderIdRange();
+        if (range == null) {
+            return;
+        }
+
+        int built = 0;
+        int refreshed = 0;
+        for (long from = range[0]; from <= range[1]; from += backfillBatchSize) {
+            built += backfillRange(from, from + backfillBatchSize);
+            refreshed += summaryRepo.refreshStatusRange(from, from + backfillBatchSize);
+        }
+        if (built > 0 || refreshed > 0) {
+            log.info("Backfilled {} order summaries, refreshed the status of {}", built, refreshed);
+        }
+    }
+
+    // Another node may backfill the same range concurrently, the retry skips the rows it wrote
+    private int backfillRange(long fromOrderId, long toOrderId) {
+        try {
+            return summaryRepo.backfillRange(fromOrderId, toOrderId);
+        } catch (DuplicateKeyException e) {
+            return summaryRepo.backfillRange(fromOrderId, toOrderId);
+        }
+    }
+}
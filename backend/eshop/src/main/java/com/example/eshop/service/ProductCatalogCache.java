@@ -0,0 +1,199 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.dto.business.ProductCacheStats;
+import com.example.eshop.model.dto.business.ProductDto;
+import com.example.eshop.model.dto.business.ProductListDto;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * In-process cache of the public product catalog: products by id, the featured list and the
+ * first page of each category listing.
+ * Regions are bounded LRU maps whose entries also expire after the TTL. Admin changes evict the
+ * affected entries after commit through ProductCatalogChangedEvent. Stock consumed by checkouts
+ * is not evicted and is refreshed by the TTL, reservations always check the database.
+ */
+@Component
+@Slf4j
+public class ProductCatalogCache {
+
+    @Value("${app.product-cache.ttl:PT10M}")
+    private Duration ttl = Duration.ofMinutes(10);
+
+    @Value("${app.product-cache.max-products:10000}")
+    private int maxProducts = 10_000;
+
+    @Value("${app.product-cache.max-pages:1000}")
+    private int maxPages = 1_000;
+
+    private Region<Long, ProductDto> products;
+    private Region<String, List<ProductListDto>> featured;
+    private Region<CategoryPageKey, Page<ProductListDto>> categoryPages;
+
+    @PostConstruct
+    void init() {
+        products = new Region<>("products", maxProducts, ttl);
+        featured = new Region<>("featured", 1, ttl);
+        categoryPages = new Region<>("category-pages", maxPages, ttl);
+    }
+
+    public ProductDto getProduct(Long productId, Supplier<ProductDto> loader) {
+        return products.get(productId, loader);
+    }
+
+    public List<ProductListDto> getFeaturedProducts(Supplier<List<ProductListDto>> loader) {
+        return featured.get("featured", loader);
+    }
+
+    public Page<ProductListDto> getCategoryPage(CategoryPageKey key, Supplier<Page<ProductListDto>> loader) {
+        return categoryPages.get(key, loader);
+    }
+
+    // fallbackExecution covers changes made outside a transaction
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.affectsAllProducts()) {
+            products.invalidateAll();
+            categoryPages.invalidateAll();
+        } else {
+            products.invalidate(event.productId());
+            categoryPages.invalidateIf(key -> event.categoryIds().contains(key.categoryId()));
+        }
+        // Newest products and any of them may have changed, the list is a single entry
+        featured.invalidateAll();
+        log.debug("Product catalog cache invalidated for {}", event);
+    }
+
+    // Imported products are new, only the pages listing their categories and the newest products change
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        categoryPages.invalidateIf(key -> event.categoryIds().contains(key.categoryId()));
+        featured.invalidateAll();
+        log.debug("Product catalog cache invalidated for {}", event);
+    }
+
+    public List<ProductCacheStats> getStats() {
+        return List.of(products.stats(), featured.stats(), categoryPages.stats());
+    }
+
+    public record CategoryPageKey(Long categoryId, int size, String sort) {
+    }
+
+    /**
+     * Bounded, access ordered map with per-entry expiry.
+     * Loads run outside the lock. A load that started before an invalidation is served but not
+     * stored, otherwise a read racing an admin commit could cache the old row until the TTL.
+     */
+    static final class Region<K, V> {
+
+        private final String name;
+        private final int maxSize;
+        private final long ttlNanos;
+        private final LinkedHashMap<K, Entry<V>> entries;
+        private long generation;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong expirations = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+
+        Region(String name, int maxSize, Duration ttl) {
+            this.name = name;
+            this.maxSize = maxSize;
+            this.ttlNanos = ttl.toNanos();
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    if (size() > Region.this.maxSize) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        V get(K key, Supplier<V> loader) {
+            long loadGeneration;
+            synchronized (this) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null) {
+                    if (entry.expiresAt() - System.nanoTime() > 0) {
+                        hits.incrementAndGet();
+                        return entry.value();
+                    }
+                    entries.remove(key);
+                    expirations.incrementAndGet();
+                }
+                loadGeneration = generation;
+            }
+
+            misses.incrementAndGet();
+            V value = loader.get();
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+                }
+            }
+            return value;
+        }
+
+        synchronized void invalidate(K key) {
+            generation++;
+            if (entries.remove(key) != null) {
+                invalidations.incrementAndGet();
+            }
+        }
+
+        synchronized void invalidateIf(Predicate<K> matches) {
+            generation++;
+            Iterator<K> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if (matches.test(keys.next())) {
+                    keys.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+
+        synchronized void invalidateAll() {
+            generation++;
+            invalidations.addAndGet(entries.size());
+            entries.clear();
+        }
+
+        synchronized ProductCacheStats stats() {
+            long hitCount = hits.get();
+            long lookups = hitCount + misses.get();
+            return new ProductCacheStats(
+                    name,
+                    entries.size(),
+                    maxSize,
+                    hitCount,
+                    misses.get(),
+                    evictions.get(),
+                    expirations.get(),
+                    invalidations.get(),
+                    lookups > 0 ? (double) hitCount / lookups : 0
+            );
+        }
+
+        private record Entry<V>(V value, long expiresAt) {
+        }
+    }
+}
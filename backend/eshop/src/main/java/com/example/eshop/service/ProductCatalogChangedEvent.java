@@ -0,0 +1,25 @@
+package com.example.eshop.service;
+
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Published by the admin write paths of products and categories, the product catalog cache
+ * drops the affected entries and the in-process indexes re-read them once the change commits.
+ * A null productId means the whole catalog is affected, e.g. a category was renamed.
+ */
+public record ProductCatalogChangedEvent(Long productId, Set<Long> categoryIds) {
+
+    public static ProductCatalogChangedEvent product(Long productId, Long... categoryIds) {
+        // Old and new category of a moved product, either may repeat the other
+        return new ProductCatalogChangedEvent(productId, Set.copyOf(Arrays.asList(categoryIds)));
+    }
+
+    public static ProductCatalogChangedEvent allProducts() {
+        return new ProductCatalogChangedEvent(null, Set.of());
+    }
+
+    public boolean affectsAllProducts() {
+        return productId == null;
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.dto.business.ProductFacetCount;
+import com.example.eshop.model.dto.business.ProductFacetDocument;
+import com.example.eshop.model.dto.business.ProductFacetsDto;
+import com.example.eshop.model.dto.business.ProductFilter;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process columns of the product fields the storefront filters on, used to count category,
+ * price bucket and in-stock facets in one pass over the filtered products.
+ * Kept current from ProductCatalogChangedEvent and ProductsImportedEvent. Checkout reservations change available stock
+ * without an event, so the columns are also re-read periodically and the in-stock counts may
+ * lag by up to that interval. Facets come from SQL until the first build has finished.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+
+    private final ProductJpaRepository productRepository;
+    private final CategoryJpaRepository categoryRepository;
+
+    @Value("${app.product-facets.build-batch-size:5000}")
+    private int buildBatchSize = 5_000;
+
+    // Lower bounds of the price buckets after the first one, which starts at zero
+    @Value("${app.product-facets.price-buckets:50,100,250,500,1000}")
+    private List<BigDecimal> priceBucketBounds = List.of(BigDecimal.valueOf(50), BigDecimal.valueOf(100),
+            BigDecimal.valueOf(250), BigDecimal.valueOf(500), BigDecimal.valueOf(1000));
+
+    // Guards columns and categoryNames, facet counts share the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns = new Columns(16);
+    private Map<Long, String> categoryNames = new HashMap<>();
+
+    private final AtomicBoolean building = new AtomicBoolean();
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        refresh();
+    }
+
+    // Reads every product into fresh columns and swaps them in, the old ones serve meanwhile
+    @Scheduled(fixedDelayString = "${app.product-facets.refresh-interval:PT5M}",
+            initialDelayString = "${app.product-facets.refresh-interval:PT5M}")
+    public void refresh() {
+        if (!building.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            Columns fresh = new Columns(Math.max(16, size()));
+            Map<Long, String> names = new HashMap<>();
+            Long afterId = 0L;
+            List<ProductFacetDocument> page;
+            do {
+                page = productRepository.findFacetDocumentPage(afterId, PageRequest.of(0, buildBatchSize));
+                for (ProductFacetDocument document : page) {
+                    fresh.put(document, toCents(document.price()));
+                    names.put(document.categoryId(), document.categoryName());
+                }
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).productId();
+                }
+            } while (page.size() == buildBatchSize);
+
+            lock.writeLock().lock();
+            try {
+                columns = fresh;
+                categoryNames = names;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+
+            // Written while the products were read, the fresh columns may hold an older version
+            for (Long productId : List.copyOf(changedDuringBuild)) {
+                changedDuringBuild.remove(productId);
+                reload(productId);
+            }
+            log.info("Product facet index read {} products in {} ms", fresh.count(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            building.set(false);
+        }
+    }
+
+    // Cheaper to re-read everything than to look up a large import product by product
+    @Async
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        refresh();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.affectsAllProducts()) {
+            // Category renamed or deleted, products keep their category ids
+            reloadCategoryNames();
+            return;
+        }
+        if (building.get()) {
+            changedDuringBuild.add(event.productId());
+        }
+        reload(event.productId());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<BigDecimal> priceBucketBounds() {
+        return priceBucketBounds;
+    }
+
+    // searchIds, when not null, limits the count to products the search index matched
+    public ProductFacetsDto compute(ProductFilter filter, Collection<Long> searchIds) {
+        long minCents = filter.minPrice() != null ? toCeilCents(filter.minPrice()) : Long.MIN_VALUE;
+        long maxCents = filter.maxPrice() != null ? toCents(filter.maxPrice()) : Long.MAX_VALUE;
+        long[] bucketCents = priceBucketBounds.stream().mapToLong(ProductFacetIndex::toCeilCents).toArray();
+
+        lock.readLock().lock();
+        try {
+            FacetCounter counter = new FacetCounter(priceBucketBounds.size() + 1);
+            if (searchIds != null) {
+                for (Long productId : searchIds) {
+                    Integer ordinal = columns.ordinalByProductId.get(productId);
+                    if (ordinal != null) {
+                        countIfMatching(ordinal, filter, minCents, maxCents, bucketCents, counter);
+                    }
+                }
+            } else {
+                for (int ordinal = 0; ordinal < columns.size; ordinal++) {
+                    if (columns.productIds[ordinal] != 0) {
+                        countIfMatching(ordinal, filter, minCents, maxCents, bucketCents, counter);
+                    }
+                }
+            }
+            return counter.toDto(categoryNames, priceBucketBounds);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same facets from the grouped rows of the SQL fallback
+    public ProductFacetsDto summarize(List<ProductFacetCount> counts) {
+        FacetCounter counter = new FacetCounter(priceBucketBounds.size() + 1);
+        Map<Long, String> names = new HashMap<>();
+        for (ProductFacetCount count : counts) {
+            counter.add(count.categoryId(), count.priceBucket(), count.inStock() == 1, count.count());
+            names.put(count.categoryId(), count.categoryName());
+        }
+        return counter.toDto(names, priceBucketBounds);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Private helper methods
+    private void countIfMatching(int ordinal, ProductFilter filter, long minCents, long maxCents,
+                                 long[] bucketCents, FacetCounter counter) {
+        long cents = columns.priceCents[ordinal];
+        boolean inStock = columns.available[ordinal] > 0;
+        if (!filter.categoryIds().isEmpty() && !filter.categoryIds().contains(columns.categoryIds[ordinal])
+                || cents < minCents || cents > maxCents
+                || filter.active() != null && filter.active() != columns.active[ordinal]
+                || filter.inStock() != null && filter.inStock() != inStock) {
+            return;
+        }
+        int bucket = 0;
+        while (bucket < bucketCents.length && cents >= bucketCents[bucket]) {
+            bucket++;
+        }
+        counter.add(columns.categoryIds[ordinal], bucket, inStock, 1);
+    }
+
+    private void reload(Long productId) {
+        ProductFacetDocument document = productRepository.findFacetDocument(productId).orElse(null);
+        lock.writeLock().lock();
+        try {
+            if (document == null) {
+                columns.remove(productId);
+            } else {
+                columns.put(document, toCents(document.price()));
+                categoryNames.put(document.categoryId(), document.categoryName());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void reloadCategoryNames() {
+        Map<Long, String> names = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            names.put(category.getId(), category.getCategoryName());
+        }
+        lock.writeLock().lock();
+        try {
+            categoryNames = names;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Prices have two decimals, bounds are rounded so whole cents compare like the decimals
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValue();
+    }
+
+    private static long toCeilCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValue();
+    }
+
+    // Parallel arrays by ordinal, a zero product id marks a free slot
+    private static final class Columns {
+        private long[] productIds;
+        private long[] categoryIds;
+        private long[] priceCents;
+        private int[] available;
+        private boolean[] active;
+        private int size;
+        private final Map<Long, Integer> ordinalByProductId = new HashMap<>();
+        private final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+
+        Columns(int capacity) {
+            productIds = new long[capacity];
+            categoryIds = new long[capacity];
+            priceCents = new long[capacity];
+            available = new int[capacity];
+            active = new boolean[capacity];
+        }
+
+        void put(ProductFacetDocument document, long cents) {
+            Integer ordinal = ordinalByProductId.get(document.productId());
+            if (ordinal == null) {
+                ordinal = freeOrdinals.isEmpty() ? size++ : freeOrdinals.pop();
+                if (ordinal == productIds.length) {
+                    grow();
+                }
+                ordinalByProductId.put(document.productId(), ordinal);
+            }
+            productIds[ordinal] = document.productId();
+            categoryIds[ordinal] = document.categoryId();
+            priceCents[ordinal] = cents;
+            available[ordinal] = document.availableStock();
+            active[ordinal] = Boolean.TRUE.equals(document.active());
+        }
+
+        void remove(Long productId) {
+            Integer ordinal = ordinalByProductId.remove(productId);
+            if (ordinal != null) {
+                productIds[ordinal] = 0;
+                freeOrdinals.push(ordinal);
+            }
+        }
+
+        int count() {
+            return ordinalByProductId.size();
+        }
+
+        private void grow() {
+            int capacity = productIds.length * 2;
+            productIds = Arrays.copyOf(productIds, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            priceCents = Arrays.copyOf(priceCents, capacity);
+            available = Arrays.copyOf(available, capacity);
+            active = Arrays.copyOf(active, capacity);
+        }
+    }
+
+    private static final class FacetCounter {
+        private final Map<Long, long[]> categoryCounts = new HashMap<>();
+        private final long[] bucketCounts;
+        private long total;
+        private long inStock;
+
+        FacetCounter(int buckets) {
+            bucketCounts = new long[buckets];
+        }
+
+        void add(long categoryId, int bucket, boolean available, long count) {
+            categoryCounts.computeIfAbsent(categoryId, id -> new long[1])[0] += count;
+            bucketCounts[bucket] += count;
+            total += count;
+            if (available) {
+                inStock += count;
+            }
+        }
+
+        ProductFacetsDto toDto(Map<Long, String> categoryNames, List<BigDecimal> bounds) {
+            List<ProductFacetsDto.CategoryCount> categories = new ArrayList<>();
+            categoryCounts.forEach((categoryId, count) ->
+                    categories.add(new ProductFacetsDto.CategoryCount(categoryId, categoryNames.get(categoryId), count[0])));
+            categories.sort(Comparator.comparingLong(ProductFacetsDto.CategoryCount::count).reversed()
+                    .thenComparing(ProductFacetsDto.CategoryCount::categoryId));
+
+            List<ProductFacetsDto.PriceBucket> priceBuckets = new ArrayList<>();
+            for (int bucket = 0; bucket < bucketCounts.length; bucket++) {
+                priceBuckets.add(new ProductFacetsDto.PriceBucket(
+                        bucket == 0 ? BigDecimal.ZERO : bounds.get(bucket - 1),
+                        bucket < bounds.size() ? bounds.get(bucket) : null,
+                        bucketCounts[bucket]));
+            }
+            return new ProductFacetsDto(total, inStock, categories, priceBuckets);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.eshop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the records of a product import upload one at a time, so only the current record is held
+ * in memory. Field names are lowercased, values are the raw text.
+ */
+abstract class ProductImportReader implements Closeable {
+
+    // Guards against an unterminated quote swallowing the rest of the file
+    static final int MAX_RECORD_LENGTH = 64 * 1024;
+
+    protected final BufferedReader reader;
+
+    protected ProductImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    static ProductImportReader open(BufferedReader reader, ProductImportService.Format format) throws IOException {
+        return format == ProductImportService.Format.NDJSON ? new Ndjson(reader) : new Csv(reader);
+    }
+
+    // Next record, or null at the end of the input. A record that cannot be read carries an error.
+    abstract Record next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    record Record(long row, Map<String, String> values, String error) {
+    }
+
+    /**
+     * RFC 4180 CSV with a header row naming the columns. Quoted fields may hold commas, doubled
+     * quotes and line breaks. Rows are numbered by the line they start on, the header is line 1.
+     */
+    static final class Csv extends ProductImportReader {
+
+        private final List<String> header;
+        private long line = 1;
+
+        Csv(BufferedReader reader) throws IOException {
+            super(reader);
+            List<String> names = readFields();
+            if (names == null) {
+                throw new IOException("The file is empty");
+            }
+            header = names.stream()
+                    .map(name -> name.replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT))
+                    .toList();
+        }
+
+        List<String> header() {
+            return header;
+        }
+
+        @Override
+        Record next() throws IOException {
+            List<String> fields;
+            long row;
+            do {
+                row = line;
+                fields = readFields();
+                if (fields == null) {
+                    return null;
+                }
+            } while (fields.size() == 1 && fields.get(0).isBlank());
+
+            if (fields.size() != header.size()) {
+                return new Record(row, Map.of(), "Expected " + header.size() + " fields but found " + fields.size());
+            }
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                values.put(header.get(i), fields.get(i));
+            }
+            return new Record(row, values, null);
+        }
+
+        private List<String> readFields() throws IOException {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            boolean wasQuoted = false;
+            int length = 0;
+            int c = reader.read();
+            if (c == -1) {
+                return null;
+            }
+            for (; c != -1; c = reader.read()) {
+                if (++length > MAX_RECORD_LENGTH) {
+                    throw new IOException("Row at line " + line + " is longer than " + MAX_RECORD_LENGTH + " characters");
+                }
+                if (quoted) {
+                    if (c == '"') {
+                        reader.mark(1);
+                        if (reader.read() == '"') {
+                            field.append('"');
+                        } else {
+                            reader.reset();
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') {
+                            line++;
+                        }
+                        field.append((char) c);
+                    }
+                } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                    quoted = true;
+                    wasQuoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    wasQuoted = false;
+                } else if (c == '\n') {
+                    line++;
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    /**
+     * One JSON object per line, blank lines are skipped. Scalar values are taken as text.
+     */
+    static final class Ndjson extends ProductImportReader {
+
+        private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+        private long line;
+
+        Ndjson(BufferedReader reader) {
+            super(reader);
+        }
+
+        @Override
+        Record next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+                if (text == null) {
+                    return null;
+                }
+            } while (text.isBlank());
+
+            if (text.length() > MAX_RECORD_LENGTH) {
+                return new Record(line, Map.of(), "Line is longer than " + MAX_RECORD_LENGTH + " characters");
+            }
+            JsonNode node;
+            try {
+                node = OBJECT_MAPPER.readTree(text);
+            } catch (JsonProcessingException e) {
+                return new Record(line, Map.of(), "Invalid JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return new Record(line, Map.of(), "Expected a JSON object");
+            }
+            Map<String, String> values = new HashMap<>();
+            node.fields().forEachRemaining(entry -> {
+                if (entry.getValue().isValueNode() && !entry.getValue().isNull()) {
+                    values.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue().asText());
+                }
+            });
+            return new Record(line, values, null);
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.ProductImportNotFoundException;
+import com.example.eshop.model.dto.business.CategorySummaryDto;
+import com.example.eshop.model.dto.business.ProductImportError;
+import com.example.eshop.model.dto.business.ProductImportRow;
+import com.example.eshop.model.dto.business.ProductImportStatus;
+import com.example.eshop.repository.ProductImportJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Bulk product import from CSV or NDJSON uploads, run as a background job.
+ * The upload is streamed to a temporary file and then read record by record, valid rows are
+ * written in chunks of multi-row INSERTs and rejected rows are reported with their row number.
+ * Each chunk commits on its own, a failed job keeps the rows written before it failed.
+ * Products are imported without uploading images, image_url is stored as given.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportService {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    public static final MediaType CSV = MediaType.parseMediaType("text/csv");
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("name", "description", "price", "stock", "category");
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 1000;
+    private static final int MAX_IMAGE_URL_LENGTH = 255;
+    // products.price is DECIMAL(10, 2)
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+    private static final int RETAINED_JOBS = 20;
+
+    private final ProductImportJdbcRepository importRepository;
+    private final CategoryRegistry categoryRegistry;
+    private final AdminStatsService adminStatsService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.product-import.batch-size:500}")
+    private int batchSize = 500;
+
+    @Value("${app.product-import.max-file-size:100MB}")
+    private DataSize maxFileSize = DataSize.ofMegabytes(100);
+
+    @Value("${app.product-import.max-reported-errors:100}")
+    private int maxReportedErrors = 100;
+
+    // One import at a time, later uploads queue behind it
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("product-import").daemon().factory());
+
+    // Most recent jobs, oldest first, guarded by itself
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public enum Format {
+        CSV, NDJSON;
+
+        static Format of(MediaType contentType) {
+            if (contentType != null && ProductImportService.NDJSON.isCompatibleWith(contentType)) {
+                return NDJSON;
+            }
+            if (contentType != null && ProductImportService.CSV.isCompatibleWith(contentType)) {
+                return CSV;
+            }
+            throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE,
+                    "Products are imported from " + ProductImportService.CSV + " or " + ProductImportService.NDJSON);
+        }
+    }
+
+    // Copies the upload to disk and queues the job, the body is never held in memory as a whole
+    public ProductImportStatus submit(InputStream body, MediaType contentType, String fileName) {
+        Format format = Format.of(contentType);
+        Path upload = null;
+        try {
+            upload = Files.createTempFile("product-import-", "." + format.name().toLowerCase(Locale.ROOT));
+            long size = copyLimited(body, upload);
+            if (size == 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The import file is empty");
+            }
+        } catch (IOException e) {
+            deleteQuietly(upload);
+            throw new UncheckedIOException("Could not store the import upload", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(upload);
+            throw e;
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), fileName, format);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            if (jobs.size() > RETAINED_JOBS) {
+                jobs.values().stream()
+                        .filter(Job::isFinished)
+                        .findFirst()
+                        .ifPresent(oldest -> jobs.remove(oldest.id));
+            }
+        }
+        Path file = upload;
+        executor.execute(() -> run(job, file));
+        log.info("Queued product import {} of {} ({})", job.id, fileName, format);
+        return job.toStatus();
+    }
+
+    public ProductImportStatus getStatus(String jobId) {
+        synchronized (jobs) {
+            Job job = jobs.get(jobId);
+            if (job == null) {
+                throw new ProductImportNotFoundException(jobId);
+            }
+            return job.toStatus();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Private helper methods
+    private void run(Job job, Path upload) {
+        job.state = ProductImportStatus.RUNNING;
+        long afterProductId = importRepository.findMaxProductId();
+        Set<Long> categoryIds = new HashSet<>();
+        try (BufferedReader input = Files.newBufferedReader(upload, StandardCharsets.UTF_8);
+             ProductImportReader reader = ProductImportReader.open(input, job.format)) {
+            if (reader instanceof ProductImportReader.Csv csv) {
+                List<String> missing = REQUIRED_COLUMNS.stream().filter(column -> !csv.header().contains(column)).toList();
+                if (!missing.isEmpty()) {
+                    job.fail("Missing columns: " + String.join(", ", missing));
+                    return;
+                }
+            }
+
+            Map<String, Long> categories = categoryIdsByName();
+            List<ProductImportRow> chunk = new ArrayList<>(batchSize);
+            ProductImportReader.Record record;
+            while ((record = reader.next()) != null) {
+                job.rowsRead++;
+                ProductImportRow row = toRow(record, categories, job);
+                if (row != null) {
+                    chunk.add(row);
+                    if (chunk.size() == batchSize) {
+                        write(chunk, job, categoryIds);
+                        chunk.clear();
+                    }
+                }
+            }
+            write(chunk, job, categoryIds);
+            job.complete();
+            log.info("Product import {} finished: {} rows, {} imported, {} rejected",
+                    job.id, job.rowsRead, job.imported, job.failed);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Product import {} failed after {} rows", job.id, job.rowsRead, e);
+            job.fail(e.getMessage());
+        } finally {
+            deleteQuietly(upload);
+            if (job.imported > 0) {
+                try {
+                    eventPublisher.publishEvent(new ProductsImportedEvent(afterProductId, Set.copyOf(categoryIds)));
+                } catch (RuntimeException e) {
+                    log.warn("Could not announce product import {}", job.id, e);
+                }
+            }
+        }
+    }
+
+    // A constraint violation fails the whole statement, the chunk is then written row by row to find it
+    private void write(List<ProductImportRow> chunk, Job job, Set<Long> categoryIds) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            importRepository.insertAll(chunk);
+            accepted(chunk, job, categoryIds);
+        } catch (DataIntegrityViolationException e) {
+            for (ProductImportRow row : chunk) {
+                try {
+                    importRepository.insertAll(List.of(row));
+                    accepted(List.of(row), job, categoryIds);
+                } catch (DataIntegrityViolationException rowError) {
+                    job.reject(row.row(), "Rejected by the database: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    private void accepted(List<ProductImportRow> rows, Job job, Set<Long> categoryIds) {
+        int active = 0;
+        for (ProductImportRow row : rows) {
+            categoryIds.add(row.categoryId());
+            if (row.active()) {
+                active++;
+            }
+        }
+        job.imported += rows.size();
+        adminStatsService.productsImported(rows.size(), active);
+    }
+
+    private ProductImportRow toRow(ProductImportReader.Record record, Map<String, Long> categories, Job job) {
+        if (record.error() != null) {
+            job.reject(record.row(), record.error());
+            return null;
+        }
+        Map<String, String> values = record.values();
+        List<String> problems = new ArrayList<>();
+
+        String name = text(values, "name");
+        if (name == null) {
+            problems.add("name is required");
+        } else if (name.length() > MAX_NAME_LENGTH) {
+            problems.add("name must be at most " + MAX_NAME_LENGTH + " characters");
+        }
+
+        String description = text(values, "description");
+        if (description == null) {
+            problems.add("description is required");
+        } else if (description.length() > MAX_DESCRIPTION_LENGTH) {
+            problems.add("description must be at most " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+
+        BigDecimal price = null;
+        String priceText = text(values, "price");
+        try {
+            price = priceText != null ? new BigDecimal(priceText) : null;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        if (price == null || price.signum() <= 0 || price.stripTrailingZeros().scale() > 2 || price.compareTo(MAX_PRICE) > 0) {
+            problems.add("price must be a positive amount with at most 2 decimals");
+            price = null;
+        }
+
+        Integer stock = null;
+        String stockText = text(values, "stock");
+        try {
+            stock = stockText != null ? Integer.valueOf(stockText) : null;
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        if (stock == null || stock < 0) {
+            problems.add("stock must be a whole number of at least 0");
+        }
+
+        String category = text(values, "category");
+        Long categoryId = category != null ? categories.get(category.toLowerCase(Locale.ROOT)) : null;
+        if (category == null) {
+            problems.add("category is required");
+        } else if (categoryId == null) {
+            problems.add("unknown category '" + category + "'");
+        }
+
+        String imageUrl = text(values, "image_url");
+        if (imageUrl != null && imageUrl.length() > MAX_IMAGE_URL_LENGTH) {
+            problems.add("image_url must be at most " + MAX_IMAGE_URL_LENGTH + " characters");
+        }
+
+        Boolean active = parseActive(text(values, "active"));
+        if (active == null) {
+            problems.add("active must be true or false");
+        }
+
+        if (!problems.isEmpty()) {
+            job.reject(record.row(), String.join(", ", problems));
+            return null;
+        }
+        return new ProductImportRow(record.row(), categoryId, name, description, price.setScale(2), imageUrl, stock, active);
+    }
+
+    // Looked up once per job, categories created during an import are not seen by it
+    private Map<String, Long> categoryIdsByName() {
+        Map<String, Long> categories = new HashMap<>();
+        for (CategorySummaryDto category : categoryRegistry.getAll()) {
+            categories.put(category.name().toLowerCase(Locale.ROOT), category.id());
+        }
+        return categories;
+    }
+
+    private static String text(Map<String, String> values, String column) {
+        String value = values.get(column);
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    // Missing means active, null means unreadable
+    private static Boolean parseActive(String value) {
+        if (value == null) {
+            return true;
+        }
+        return switch (value.toLowerCase(Locale.ROOT)) {
+            case "true", "1", "yes" -> true;
+            case "false", "0", "no" -> false;
+            default -> null;
+        };
+    }
+
+    private long copyLimited(InputStream body, Path target) throws IOException {
+        long limit = maxFileSize.toBytes();
+        long copied = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                copied += read;
+                if (copied > limit) {
+                    throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Import files are limited to " + maxFileSize.toMegabytes() + " MB");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return copied;
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete import upload {}", file, e);
+        }
+    }
+
+    // Counters are only written by the import thread
+    private final class Job {
+
+        private final String id;
+        private final String fileName;
+        private final Format format;
+        private final LocalDateTime submittedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        private final List<ProductImportError> errors = new CopyOnWriteArrayList<>();
+        private volatile String state = ProductImportStatus.QUEUED;
+        private volatile long rowsRead;
+        private volatile long imported;
+        private volatile long failed;
+        private volatile String failureReason;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String id, String fileName, Format format) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+        }
+
+        private void reject(long row, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ProductImportError(row, message));
+            }
+        }
+
+        private void complete() {
+            finishedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            state = ProductImportStatus.COMPLETED;
+        }
+
+        private void fail(String reason) {
+            failureReason = reason;
+            finishedAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            state = ProductImportStatus.FAILED;
+        }
+
+        private boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        private ProductImportStatus toStatus() {
+            return new ProductImportStatus(id, fileName, format.name(), state, rowsRead, imported, failed,
+                    List.copyOf(errors), failureReason, submittedAt, finishedAt);
+        }
+    }
+}
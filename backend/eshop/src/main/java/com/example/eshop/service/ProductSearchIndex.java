@@ -0,0 +1,359 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.dto.business.ProductSearchDocument;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over product names and descriptions, backing product search.
+ * Text is split on anything but letters and digits, lowercased and stripped of accents. Every
+ * query token must match a term, the last one usually by prefix, and hits are ranked by the
+ * name/description weight of the matched terms times their idf. Prefix matches count for the
+ * share of the term they cover.
+ * Built at startup and kept current from ProductCatalogChangedEvent and ProductsImportedEvent,
+ * searches fall back to the database until the first build has finished.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final ProductJpaRepository productRepository;
+
+    @Value("${app.product-search.build-batch-size:5000}")
+    private int buildBatchSize = 5_000;
+
+    // Guards everything below, searches share the read lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postingsByTerm = new TreeMap<>();
+    private final List<Doc> docs = new ArrayList<>();
+    private final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final Map<Long, Integer> ordinalByProductId = new HashMap<>();
+
+    // Products changed while a scan is reading pages, the scan must not overwrite them
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger runningScans = new AtomicInteger();
+    private volatile boolean ready;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        scanAfter(0L);
+        ready = true;
+        log.info("Product search index built with {} products and {} terms in {} ms", size(), termCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Async
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        long start = System.nanoTime();
+        int read = scanAfter(event.afterProductId());
+        log.info("Product search index read {} imported products in {} ms", read,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        // Category changes do not touch indexed text
+        if (event.affectsAllProducts()) {
+            return;
+        }
+        if (!ready || runningScans.get() > 0) {
+            changedDuringBuild.add(event.productId());
+        }
+        productRepository.findSearchDocument(event.productId())
+                .ifPresentOrElse(this::index, () -> remove(event.productId()));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void index(ProductSearchDocument document) {
+        lock.writeLock().lock();
+        try {
+            put(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDoc(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ids of the products on the requested page, an unsorted pageable ranks by relevance
+    public Page<Long> search(String query, Pageable pageable) {
+        String[] tokens = tokenize(query).toArray(String[]::new);
+        if (tokens.length == 0) {
+            return Page.empty(pageable);
+        }
+
+        lock.readLock().lock();
+        try {
+            int docCount = docs.size();
+            float[] scores = new float[docCount];
+            // Number of leading query tokens each doc has matched so far
+            int[] matchedTokens = new int[docCount];
+
+            for (int t = 0; t < tokens.length; t++) {
+                String token = tokens[t];
+                Map<String, Postings> matchingTerms =
+                        postingsByTerm.subMap(token, true, token + Character.MAX_VALUE, false);
+                for (Map.Entry<String, Postings> term : matchingTerms.entrySet()) {
+                    Postings postings = term.getValue();
+                    float idf = (float) Math.log(1 + (double) ordinalByProductId.size() / postings.size);
+                    float coverage = (float) token.length() / term.getKey().length();
+                    for (int i = 0; i < postings.size; i++) {
+                        int ordinal = postings.ordinals[i];
+                        if (matchedTokens[ordinal] >= t) {
+                            matchedTokens[ordinal] = t + 1;
+                            scores[ordinal] += postings.weights[i] * idf * coverage;
+                        }
+                    }
+                }
+            }
+
+            long offset = pageable.getOffset();
+            int wanted = (int) Math.min(Integer.MAX_VALUE - 1, offset + pageable.getPageSize());
+            Comparator<Integer> order = resultOrder(pageable.getSort(), scores);
+            // Keeps the best "wanted" hits, the worst of them at the head
+            PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(wanted, 1024) + 1, order.reversed());
+            long hits = 0;
+            for (int ordinal = 0; ordinal < docCount; ordinal++) {
+                if (matchedTokens[ordinal] == tokens.length) {
+                    hits++;
+                    top.offer(ordinal);
+                    if (top.size() > wanted) {
+                        top.poll();
+                    }
+                }
+            }
+
+            Integer[] ranked = top.toArray(Integer[]::new);
+            Arrays.sort(ranked, order);
+            List<Long> productIds = new ArrayList<>();
+            for (int i = (int) Math.min(offset, ranked.length); i < ranked.length; i++) {
+                productIds.add(docs.get(ranked[i]).productId());
+            }
+            return new PageImpl<>(productIds, pageable, hits);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinalByProductId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postingsByTerm.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Distinct tokens in order of appearance
+    static Set<String> tokenize(String text) {
+        return new LinkedHashSet<>(splitTokens(text));
+    }
+
+    // Tokens in order with repeats, shared with the suggest index
+    static List<String> splitTokens(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        // Most catalog text is ASCII, decomposing it would only cost time
+        String normalized = text.chars().allMatch(c -> c < 128)
+                ? text
+                : DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(TOKEN_SEPARATOR.split(normalized.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    // Indexes every product with a higher id, page by page, and returns how many were read
+    private int scanAfter(Long afterId) {
+        runningScans.incrementAndGet();
+        int read = 0;
+        try {
+            List<ProductSearchDocument> page;
+            do {
+                page = productRepository.findSearchDocumentPage(afterId, PageRequest.of(0, buildBatchSize));
+                lock.writeLock().lock();
+                try {
+                    for (ProductSearchDocument document : page) {
+                        // Written since the scan started, the index already holds a newer version
+                        if (!changedDuringBuild.contains(document.productId())) {
+                            put(document);
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                read += page.size();
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).productId();
+                }
+            } while (page.size() == buildBatchSize);
+        } finally {
+            if (runningScans.decrementAndGet() == 0) {
+                changedDuringBuild.clear();
+            }
+        }
+        return read;
+    }
+
+    // Private helper methods, callers hold the write lock
+    private void put(ProductSearchDocument document) {
+        removeDoc(document.productId());
+
+        Map<String, Float> weights = new LinkedHashMap<>();
+        addFieldWeights(weights, document.productName(), NAME_WEIGHT);
+        addFieldWeights(weights, document.description(), DESCRIPTION_WEIGHT);
+
+        int ordinal = freeOrdinals.isEmpty() ? docs.size() : freeOrdinals.pop();
+        Doc doc = new Doc(document.productId(),
+                document.productName() != null ? document.productName().toLowerCase(Locale.ROOT) : "",
+                document.price(),
+                weights.keySet().toArray(String[]::new));
+        if (ordinal == docs.size()) {
+            docs.add(doc);
+        } else {
+            docs.set(ordinal, doc);
+        }
+        ordinalByProductId.put(document.productId(), ordinal);
+
+        weights.forEach((term, weight) ->
+                postingsByTerm.computeIfAbsent(term, key -> new Postings()).add(ordinal, weight));
+    }
+
+    private void removeDoc(Long productId) {
+        Integer ordinal = ordinalByProductId.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        for (String term : docs.get(ordinal).terms()) {
+            Postings postings = postingsByTerm.get(term);
+            postings.remove(ordinal);
+            if (postings.size == 0) {
+                postingsByTerm.remove(term);
+            }
+        }
+        docs.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+    }
+
+    // Repeated words count with diminishing returns
+    private void addFieldWeights(Map<String, Float> weights, String text, float fieldWeight) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : splitTokens(text)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        frequencies.forEach((term, frequency) ->
+                weights.merge(term, fieldWeight * (1 + (float) Math.log(frequency)), Float::sum));
+    }
+
+    private Comparator<Integer> resultOrder(Sort sort, float[] scores) {
+        Comparator<Integer> byProductId = Comparator.comparing(ordinal -> docs.get(ordinal).productId());
+        Sort.Order sortOrder = sort.stream().findFirst().orElse(null);
+        if (sortOrder == null) {
+            return Comparator.<Integer>comparingDouble(ordinal -> -scores[ordinal]).thenComparing(byProductId);
+        }
+
+        // Ids grow with creation time, the remaining sort fields are not indexed
+        Comparator<Integer> order = switch (sortOrder.getProperty()) {
+            case "productName" -> Comparator.comparing(ordinal -> docs.get(ordinal).sortName());
+            case "price" -> Comparator.comparing(ordinal -> docs.get(ordinal).price(),
+                    Comparator.nullsFirst(Comparator.naturalOrder()));
+            default -> byProductId;
+        };
+        if (sortOrder.isDescending()) {
+            order = order.reversed();
+        }
+        return order.thenComparing(byProductId);
+    }
+
+    private record Doc(Long productId, String sortName, BigDecimal price, String[] terms) {
+    }
+
+    // Unordered postings of one term, parallel arrays keep them compact
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private float[] weights = new float[4];
+        private int size;
+
+        void add(int ordinal, float weight) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ordinals[size] = ordinal;
+            weights[size] = weight;
+            size++;
+        }
+
+        void remove(int ordinal) {
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) {
+                    size--;
+                    ordinals[i] = ordinals[size];
+                    weights[i] = weights[size];
+                    return;
+                }
+            }
+        }
+    }
+}
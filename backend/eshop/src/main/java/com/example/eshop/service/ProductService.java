@@ -5,17 +5,45 @@ import com.example.eshop.exception.ProductNotFoundException;
 import com.example.eshop.model.Category;
 import com.example.eshop.model.Product;
 import com.example.eshop.model.dto.business.ProductDto;
+import com.example.eshop.model.dto.business.ProductFacetsDto;
+import com.example.eshop.model.dto.business.ProductFilter;
+import com.example.eshop.model.dto.business.ProductListDto;
+import com.example.eshop.model.dto.business.ProductScrollDto;
+import com.example.eshop.model.dto.business.SuggestionDto;
+import com.example.eshop.repository.ProductFilterQueryRepository;
 import com.example.eshop.repository.interfaces.CategoryJpaRepository;
 import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import com.example.eshop.service.ProductCatalogCache.CategoryPageKey;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +53,17 @@ public class ProductService {
 
     private final ProductJpaRepository productRepository;
     private final CategoryJpaRepository categoryRepository;
+    private final ProductCatalogCache catalogCache;
+    private final ProductSearchIndex searchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductFilterQueryRepository productFilterQueryRepository;
+    private final ProductFacetIndex facetIndex;
+    private final ProductSuggestIndex suggestIndex;
+    private final AdminStatsService adminStatsService;
+
+    // Largest set of search hits combined with other filters as an id list
+    @Value("${app.product-search.max-filter-ids:5000}")
+    private int maxFilterSearchIds = 5000;
 
     @Transactional(readOnly = true)
     public Page<Product> getAllProducts(Pageable pageable) {
@@ -32,6 +71,19 @@ public class ProductService {
         return productRepository.findAll(pageable);
     }
 
+    // Admin listing, full DTOs read in one query
+    @Transactional(readOnly = true)
+    public Page<ProductDto> getProductDtos(Pageable pageable) {
+        log.debug("Fetching product DTOs with pagination: {}", pageable);
+        return productRepository.findProductDtos(pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<ProductListDto> getProductList(Pageable pageable) {
+        log.debug("Fetching product list with pagination: {}", pageable);
+        return productRepository.findListItems(pageable);
+    }
+
     @Transactional(readOnly = true)
     public Product getProductById(Long id) {
         log.debug("Fetching product by id: {}", id);
@@ -39,47 +91,111 @@ public class ProductService {
                 .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id));
     }
 
-    @Transactional(readOnly = true)
-    public Page<Product> getProductsByCategory(Long categoryId, Pageable pageable) {
+    // Served from the catalog cache, SUPPORTS keeps cache hits from opening a transaction
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductDto getProductDtoById(Long id) {
+        return catalogCache.getProduct(id, () -> productRepository.findProductDtoById(id)
+                .orElseThrow(() -> new ProductNotFoundException("Product not found with id: " + id)));
+    }
+
+    // Only first pages are cached, deeper pages are rarely requested twice
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductListDto> getProductsByCategory(Long categoryId, Pageable pageable) {
         log.debug("Fetching products by category id: {} with pagination: {}", categoryId, pageable);
-        
-        if (!categoryRepository.existsById(categoryId)) {
-            throw new CategoryNotFoundException("Category not found with id: " + categoryId);
+        if (pageable.getPageNumber() > 0) {
+            return loadProductsByCategory(categoryId, pageable);
         }
-        
-        return productRepository.findByCategoryId(categoryId, pageable);
+
+        CategoryPageKey key = new CategoryPageKey(categoryId, pageable.getPageSize(), pageable.getSort().toString());
+        return catalogCache.getCategoryPage(key, () -> loadProductsByCategory(categoryId, pageable));
     }
 
+    // Keyset mode of the listings, cost per window does not grow with depth and nothing is counted
     @Transactional(readOnly = true)
-    public Page<Product> searchProducts(String searchTerm, Pageable pageable) {
-        log.debug("Searching products with term: {} and pagination: {}", searchTerm, pageable);
-        return productRepository.findByProductNameContainingIgnoreCaseOrDescriptionContainingIgnoreCase(
-                searchTerm, pageable);
+    public ProductScrollDto scrollProducts(Long categoryId, String sortBy, Sort.Direction direction,
+                                           String cursor, int size) {
+        log.debug("Scrolling products - categoryId: {}, sortBy: {} {}, size: {}", categoryId, sortBy, direction, size);
+
+        if (categoryId != null && !categoryRepository.existsById(categoryId)) {
+            throw new CategoryNotFoundException("Category not found with id: " + categoryId);
+        }
+
+        String sortProperty = scrollSortProperty(sortBy);
+        KeysetScrollPosition position = decodeScrollCursor(cursor, sortProperty, direction);
+
+        // product_id breaks ties so every product has a unique position, the grid projection is read directly
+        Window<ProductListDto> window = productFilterQueryRepository.findWindow(categoryId, sortProperty, direction, position, size);
+
+        String nextCursor = window.hasNext()
+                ? encodeScrollCursor((KeysetScrollPosition) window.positionAt(window.size() - 1), sortProperty, direction)
+                : null;
+        return new ProductScrollDto(window.getContent(), nextCursor);
     }
 
-    @Transactional(readOnly = true)
-    public Page<Product> getProductsByPriceRange(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
-        log.debug("Fetching products by price range: {} - {} with pagination: {}", minPrice, maxPrice, pageable);
-        return productRepository.findByPriceBetween(minPrice, maxPrice, pageable);
+    // Any combination of catalog filters in one query. The plain listing, a single category and a
+    // plain search keep their own paths so they still hit the catalog cache and the search index.
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public Page<ProductListDto> getProducts(ProductFilter filter, Pageable pageable) {
+        log.debug("Fetching products with filter: {} and pagination: {}", filter, pageable);
+        if (filter.isEmpty()) {
+            return getProductList(pageable);
+        }
+        if (filter.isSingleCategoryOnly()) {
+            return getProductsByCategory(filter.categoryIds().iterator().next(), pageable);
+        }
+        if (filter.isSearchOnly()) {
+            return searchProducts(filter.searchTerm(), pageable);
+        }
+
+        // The index matches the term, SQL applies the other filters to the matched ids
+        List<Long> searchIds = searchHitIds(filter, Sort.unsorted());
+        if (searchIds == null || pageable.getSort().isSorted()) {
+            return productFilterQueryRepository.findPage(filter, searchIds, pageable);
+        }
+        return rankedFilterPage(filter, searchIds, pageable);
     }
 
-    @Transactional(readOnly = true)
-    public Page<Product> getProductsByCategoryAndPriceRange(Long categoryId, BigDecimal minPrice, 
-                                                           BigDecimal maxPrice, Pageable pageable) {
-        log.debug("Fetching products by category: {} and price range: {} - {} with pagination: {}", 
-                categoryId, minPrice, maxPrice, pageable);
-        
-        if (!categoryRepository.existsById(categoryId)) {
-            throw new CategoryNotFoundException("Category not found with id: " + categoryId);
+    // Served from memory only, no transaction is needed
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        return suggestIndex.suggest(prefix, limit);
+    }
+
+    // Category, price bucket and in-stock counts over everything the filter matches
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public ProductFacetsDto getProductFacets(ProductFilter filter) {
+        List<Long> searchIds = searchHitIds(filter, Sort.by("productId"));
+        if (facetIndex.isReady() && (searchIds != null || !filter.hasSearchTerm())) {
+            return facetIndex.compute(filter, searchIds);
         }
-        
-        return productRepository.findByCategoryIdAndPriceBetween(categoryId, minPrice, maxPrice, pageable);
+        return facetIndex.summarize(
+                productFilterQueryRepository.findFacetCounts(filter, searchIds, facetIndex.priceBucketBounds()));
     }
 
     @Transactional(readOnly = true)
-    public List<Product> getFeaturedProducts() {
+    public Page<ProductListDto> searchProducts(String searchTerm, Pageable pageable) {
+        log.debug("Searching products with term: {} and pagination: {}", searchTerm, pageable);
+        if (!searchIndex.isReady()) {
+            // Index still building after startup
+            return productRepository.searchListItems(searchTerm, pageable);
+        }
+
+        Page<Long> productIds = searchIndex.search(searchTerm, pageable);
+        Map<Long, ProductListDto> productsById = productRepository.findListItemsByProductIdIn(productIds.getContent())
+                .stream()
+                .collect(Collectors.toMap(ProductListDto::id, Function.identity()));
+        // Keep the index ranking, skip products deleted since the search
+        List<ProductListDto> products = productIds.getContent().stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(products, pageable, productIds.getTotalElements());
+    }
+
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public List<ProductListDto> getFeaturedProducts() {
         log.debug("Fetching featured products");
-        return productRepository.findTop8ByOrderByProductIdDesc();
+        return catalogCache.getFeaturedProducts(() -> productRepository.findNewestListItems(PageRequest.of(0, 8)));
     }
 
     @Transactional(readOnly = true)
@@ -104,6 +220,8 @@ public class ProductService {
                 .build();
         
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.product(savedProduct.getId(), category.getId()));
+        adminStatsService.productCreated(Boolean.TRUE.equals(savedProduct.getIsActive()));
         log.info("Created product with id: {}", savedProduct.getId());
         return savedProduct;
     }
@@ -112,6 +230,8 @@ public class ProductService {
         log.debug("Updating product with id: {}", id);
         
         Product existingProduct = getProductById(id);
+        Long previousCategoryId = existingProduct.getCategory().getId();
+        boolean wasActive = Boolean.TRUE.equals(existingProduct.getIsActive());
         
         Category category = categoryRepository.findById(productDto.categoryId())
                 .orElseThrow(() -> new CategoryNotFoundException("Category not found with id: " + productDto.categoryId()));
@@ -125,6 +245,8 @@ public class ProductService {
         existingProduct.setCategory(category);
         
         Product updatedProduct = productRepository.save(existingProduct);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.product(id, previousCategoryId, category.getId()));
+        adminStatsService.productActiveChanged(wasActive, Boolean.TRUE.equals(updatedProduct.getIsActive()));
         log.info("Updated product with id: {}", updatedProduct.getId());
         return updatedProduct;
     }
@@ -134,6 +256,8 @@ public class ProductService {
         
         Product product = getProductById(id);
         productRepository.delete(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.product(id, product.getCategory().getId()));
+        adminStatsService.productDeleted(Boolean.TRUE.equals(product.getIsActive()));
         log.info("Deleted product with id: {}", id);
     }
 
@@ -144,6 +268,7 @@ public class ProductService {
         product.setStockQuantity(stockQuantity);
         
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(ProductCatalogChangedEvent.product(id, product.getCategory().getId()));
         log.info("Updated stock for product id: {} to quantity: {}", id, stockQuantity);
         return updatedProduct;
     }
@@ -151,7 +276,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public boolean isProductInStock(Long productId, Integer requestedQuantity) {
         Product product = getProductById(productId);
-        return product.getStockQuantity() >= requestedQuantity;
+        return product.getAvailableStock() >= requestedQuantity;
     }
 
     @Transactional(readOnly = true)
@@ -173,4 +298,103 @@ public class ProductService {
                 product.getIsActive()
         );
     }
+
+    // Private helper methods
+    private Page<ProductListDto> loadProductsByCategory(Long categoryId, Pageable pageable) {
+        Page<ProductListDto> products = productRepository.findListItemsByCategoryId(categoryId, pageable);
+        requireCategoryIfEmpty(categoryId, products);
+        return products;
+    }
+
+    // Ids the search index matches for the term, null when SQL has to match it: no term, index
+    // still building or too many hits for an id list
+    private List<Long> searchHitIds(ProductFilter filter, Sort order) {
+        if (!filter.hasSearchTerm() || !searchIndex.isReady()) {
+            return null;
+        }
+        Page<Long> hits = searchIndex.search(filter.searchTerm(), PageRequest.of(0, maxFilterSearchIds, order));
+        return hits.getTotalElements() > maxFilterSearchIds ? null : hits.getContent();
+    }
+
+    // Relevance order, ids passing the filters keep their index rank and only one page is loaded
+    private Page<ProductListDto> rankedFilterPage(ProductFilter filter, List<Long> rankedIds, Pageable pageable) {
+        Set<Long> matching = new HashSet<>(productFilterQueryRepository.findMatchingIds(filter, rankedIds));
+        List<Long> filteredIds = rankedIds.stream().filter(matching::contains).toList();
+
+        int from = (int) Math.min(pageable.getOffset(), filteredIds.size());
+        int to = Math.min(from + pageable.getPageSize(), filteredIds.size());
+        List<Long> pageIds = filteredIds.subList(from, to);
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, filteredIds.size());
+        }
+
+        Map<Long, ProductListDto> productsById = productRepository.findListItemsByProductIdIn(pageIds).stream()
+                .collect(Collectors.toMap(ProductListDto::id, Function.identity()));
+        List<ProductListDto> products = pageIds.stream()
+                .map(productsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(products, pageable, filteredIds.size());
+    }
+
+    // A page with products proves the category exists, only empty pages pay for the lookup
+    private void requireCategoryIfEmpty(Long categoryId, Page<ProductListDto> products) {
+        if (products.isEmpty() && !categoryRepository.existsById(categoryId)) {
+            throw new CategoryNotFoundException("Category not found with id: " + categoryId);
+        }
+    }
+
+    // Sort fields of the paged listings except updatedAt, anything else falls back to the id.
+    // Every stock change rewrites updated_at, products would move behind the cursor mid-scroll and
+    // an index on it would be rewritten on every checkout.
+    private String scrollSortProperty(String sortBy) {
+        return switch (sortBy) {
+            case "name" -> "productName";
+            case "price" -> "price";
+            case "createdAt" -> "createdAt";
+            default -> "productId";
+        };
+    }
+
+    // Opaque cursor for the position of the last product of a window, bound to the sort it was made for
+    private String encodeScrollCursor(KeysetScrollPosition last, String sortProperty, Sort.Direction direction) {
+        Object sortValue = switch (sortProperty) {
+            case "productName", "createdAt" -> last.getKeys().get(sortProperty);
+            case "price" -> ((BigDecimal) last.getKeys().get(sortProperty)).toPlainString();
+            default -> "";
+        };
+        String position = sortProperty + "|" + direction + "|" + last.getKeys().get("productId") + "|" + sortValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private KeysetScrollPosition decodeScrollCursor(String cursor, String sortProperty, Sort.Direction direction) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String[] position;
+        try {
+            // The sort value is last, product names may contain the separator
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+        if (position.length != 4 || !position[0].equals(sortProperty) || !position[1].equals(direction.name())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor does not match the requested sort");
+        }
+
+        try {
+            Map<String, Object> keys = new LinkedHashMap<>();
+            switch (sortProperty) {
+                case "productName" -> keys.put(sortProperty, position[3]);
+                case "price" -> keys.put(sortProperty, new BigDecimal(position[3]));
+                case "createdAt" -> keys.put(sortProperty, LocalDateTime.parse(position[3]));
+                default -> { }
+            }
+            keys.put("productId", Long.parseLong(position[2]));
+            return ScrollPosition.forward(keys);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
 }
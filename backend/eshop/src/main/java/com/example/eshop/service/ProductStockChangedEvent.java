@@ -0,0 +1,11 @@
+package com.example.eshop.service;
+
+import java.util.Set;
+
+/**
+ * Published when checkout reservations change the available stock of products
+ * ({@code stock - reserved_stock}), the cart summaries containing them are dropped after commit.
+ * Admin stock edits are covered by ProductCatalogChangedEvent.
+ */
+public record ProductStockChangedEvent(Set<Long> productIds) {
+}
@@ -0,0 +1,214 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.dto.business.SuggestionDto;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Typeahead over product and category names. Every name is stored once per word it contains,
+ * keyed by the normalized text from that word on, so "dell xps 13" is found by "xps" too. A
+ * prefix lookup is one range scan of a sorted skip list, readers never lock.
+ * Built at startup and kept current from ProductCatalogChangedEvent and ProductsImportedEvent,
+ * suggestions are partial until the first build has finished.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestIndex {
+
+    // Separates the name text from the item id in keys, sorts before any name character
+    private static final char KEY_SEPARATOR = '\u0000';
+    // Longer names are only found by their first words
+    private static final int MAX_WORDS = 8;
+    // Candidates read per requested suggestion before ranking
+    private static final int SCAN_FACTOR = 8;
+
+    private final ProductJpaRepository productRepository;
+    private final CategoryJpaRepository categoryRepository;
+
+    @Value("${app.product-suggest.build-batch-size:10000}")
+    private int buildBatchSize = 10_000;
+
+    private final ConcurrentSkipListMap<String, Entry> entries = new ConcurrentSkipListMap<>();
+    // Keys written for each item, replaced as a whole when the item is renamed
+    private final Map<String, List<String>> keysByItem = new ConcurrentHashMap<>();
+    // Products changed while a scan is reading pages, the scan must not overwrite them
+    private final Set<Long> changedDuringBuild = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger runningScans = new AtomicInteger();
+    private volatile boolean ready;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long start = System.nanoTime();
+        reloadCategories();
+        scanAfter(0L);
+        ready = true;
+        log.info("Product suggest index built with {} names and {} keys in {} ms", keysByItem.size(), entries.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @Async
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        int read = scanAfter(event.afterProductId());
+        log.debug("Product suggest index read {} imported products", read);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        if (event.affectsAllProducts()) {
+            // A category was created, renamed or deleted
+            reloadCategories();
+            return;
+        }
+        if (!ready || runningScans.get() > 0) {
+            changedDuringBuild.add(event.productId());
+        }
+        productRepository.findProductSuggestion(event.productId())
+                .ifPresentOrElse(this::put, () -> remove(SuggestionDto.PRODUCT, event.productId()));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Names matching the prefix at a word start. Whole-name prefixes rank first, then categories,
+    // then shorter names.
+    public List<SuggestionDto> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        NavigableMap<String, Entry> matches = entries.subMap(normalized, true, normalized + Character.MAX_VALUE, false);
+        Map<String, Entry> candidates = new LinkedHashMap<>();
+        int scanLimit = limit * SCAN_FACTOR;
+        for (Entry entry : matches.values()) {
+            // Several words of one name can match, keep its best placed key
+            candidates.merge(itemKey(entry.suggestion().type(), entry.suggestion().id()), entry,
+                    (kept, other) -> other.nameStart() ? other : kept);
+            if (candidates.size() >= scanLimit) {
+                break;
+            }
+        }
+
+        return candidates.values().stream()
+                .sorted(Comparator.comparing((Entry entry) -> !entry.nameStart())
+                        .thenComparing(entry -> !SuggestionDto.CATEGORY.equals(entry.suggestion().type()))
+                        .thenComparingInt(entry -> entry.suggestion().name().length())
+                        .thenComparing(entry -> entry.suggestion().name()))
+                .limit(limit)
+                .map(Entry::suggestion)
+                .toList();
+    }
+
+    public int size() {
+        return keysByItem.size();
+    }
+
+    // Private helper methods
+    // Adds every product with a higher id, page by page, and returns how many were read
+    private int scanAfter(Long afterId) {
+        runningScans.incrementAndGet();
+        int read = 0;
+        try {
+            List<SuggestionDto> page;
+            do {
+                page = productRepository.findProductSuggestionPage(afterId, PageRequest.of(0, buildBatchSize));
+                for (SuggestionDto product : page) {
+                    // Written since the scan started, the index already holds a newer version
+                    if (!changedDuringBuild.contains(product.id())) {
+                        put(product);
+                    }
+                }
+                read += page.size();
+                if (!page.isEmpty()) {
+                    afterId = page.get(page.size() - 1).id();
+                }
+            } while (page.size() == buildBatchSize);
+        } finally {
+            if (runningScans.decrementAndGet() == 0) {
+                changedDuringBuild.clear();
+            }
+        }
+        return read;
+    }
+
+    private void put(SuggestionDto suggestion) {
+        List<String> words = ProductSearchIndex.splitTokens(suggestion.name());
+        String idSuffix = KEY_SEPARATOR + itemKey(suggestion.type(), suggestion.id());
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < Math.min(words.size(), MAX_WORDS); i++) {
+            String key = String.join(" ", words.subList(i, words.size())) + idSuffix;
+            keys.add(key);
+            entries.put(key, new Entry(suggestion, i == 0));
+        }
+
+        List<String> previousKeys = keysByItem.put(itemKey(suggestion.type(), suggestion.id()), keys);
+        if (previousKeys != null) {
+            Set<String> current = new HashSet<>(keys);
+            previousKeys.stream().filter(key -> !current.contains(key)).forEach(entries::remove);
+        }
+    }
+
+    private void remove(String type, Long id) {
+        List<String> keys = keysByItem.remove(itemKey(type, id));
+        if (keys != null) {
+            keys.forEach(entries::remove);
+        }
+    }
+
+    private void reloadCategories() {
+        Set<Long> categoryIds = new HashSet<>();
+        for (Category category : categoryRepository.findAll()) {
+            categoryIds.add(category.getId());
+            put(new SuggestionDto(SuggestionDto.CATEGORY, category.getId(), category.getCategoryName()));
+        }
+        String categoryPrefix = SuggestionDto.CATEGORY + ":";
+        List.copyOf(keysByItem.keySet()).stream()
+                .filter(itemKey -> itemKey.startsWith(categoryPrefix))
+                .map(itemKey -> Long.valueOf(itemKey.substring(categoryPrefix.length())))
+                .filter(id -> !categoryIds.contains(id))
+                .forEach(id -> remove(SuggestionDto.CATEGORY, id));
+    }
+
+    private static String normalize(String text) {
+        List<String> words = ProductSearchIndex.splitTokens(text);
+        String joined = String.join(" ", words);
+        // "dell " has moved on to the next word, "dell" may still be a prefix of it
+        return text != null && !words.isEmpty() && Character.isWhitespace(text.charAt(text.length() - 1))
+                ? joined + " "
+                : joined;
+    }
+
+    private static String itemKey(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    private record Entry(SuggestionDto suggestion, boolean nameStart) {
+    }
+}
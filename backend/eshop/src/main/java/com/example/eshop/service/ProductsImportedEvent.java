@@ -0,0 +1,11 @@
+package com.example.eshop.service;
+
+import java.util.Set;
+
+/**
+ * Published once a bulk import has written its products, which all got ids above afterProductId.
+ * Too many products for one ProductCatalogChangedEvent each, the in-process indexes read them
+ * page by page instead.
+ */
+public record ProductsImportedEvent(long afterProductId, Set<Long> categoryIds) {
+}
@@ -15,6 +15,7 @@ import org.springframework.stereotype.Service;
 public class RegisterService {
     private final UserJpaRepository userRepo;
     private final PasswordEncoder passwordEncoder;
+    private final AdminStatsService adminStatsService;
 
     public User registerCustomer(RegisterRequest dto) {
         return register(dto);
@@ -36,6 +37,8 @@ public class RegisterService {
                 .status(UserStatus.ACTIVE)
                 .build();
 
-        return userRepo.save(user);
+        User savedUser = userRepo.save(user);
+        adminStatsService.userCreated();
+        return savedUser;
     }
 }
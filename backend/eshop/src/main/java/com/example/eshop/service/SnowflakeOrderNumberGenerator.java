@@ -0,0 +1,110 @@
+package com.example.eshop.service;
+
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake style order numbers: 41 bits of milliseconds since 2025-01-01, 10 bits of node id and
+ * 12 bits of sequence, written as 13 Crockford base32 characters.
+ * Numbers of one node are strictly increasing and sort in creation order as strings, so new orders
+ * are appended to the right edge of the order_number index instead of random pages.
+ * Every node must be started with its own app.order-number.node-id. On startup the generator resumes
+ * after the newest order number in the database, so numbers borrowed from future milliseconds or
+ * a clock that stepped back across a restart are never issued again.
+ */
+@Component
+@ConditionalOnProperty(name = "app.order-number.strategy", havingValue = "snowflake")
+@Slf4j
+public class SnowflakeOrderNumberGenerator implements OrderNumberGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final int LENGTH = 13;
+
+    private static final String CROCKFORD_BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    // Orders read on startup to find the newest order number, order ids follow insertion order
+    private static final int RESUME_WINDOW = 100;
+
+    private final long nodeId;
+    // Packed (timestamp << SEQUENCE_BITS | sequence) of the last number handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public SnowflakeOrderNumberGenerator(@Value("${app.order-number.node-id:-1}") long nodeId,
+                                         OrderJpaRepository orderRepo) {
+        this(nodeId);
+        orderRepo.findRecentOrderNumbers(PageRequest.of(0, RESUME_WINDOW)).stream()
+                .filter(SnowflakeOrderNumberGenerator::isSnowflake)
+                .max(String::compareTo)
+                .ifPresent(this::resumeAfter);
+    }
+
+    SnowflakeOrderNumberGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.order-number.node-id must be set to a value between 0 and "
+                    + MAX_NODE_ID + " that no other backend node uses");
+        }
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String nextOrderNumber() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        // An exhausted sequence or a clock that moved back borrows the next millisecond instead of waiting,
+        // the generator runs ahead of the wall clock until it catches up
+        long state = lastState.updateAndGet(last -> Math.max(now, last + 1));
+
+        long timestamp = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    // Continues with the millisecond after the given number. A clock still behind it is not waited for,
+    // nextId borrows milliseconds until the clock catches up
+    void resumeAfter(String orderNumber) {
+        long timestamp = decode(orderNumber) >>> (NODE_BITS + SEQUENCE_BITS);
+        lastState.accumulateAndGet(((timestamp + 1) << SEQUENCE_BITS) - 1, Math::max);
+
+        long aheadMillis = timestamp + EPOCH_MILLIS - System.currentTimeMillis();
+        if (aheadMillis > 0) {
+            log.warn("Order number {} is {} ms ahead of the clock, numbers continue after it", orderNumber, aheadMillis);
+        }
+    }
+
+    static boolean isSnowflake(String orderNumber) {
+        return orderNumber.length() == LENGTH
+                && orderNumber.chars().allMatch(c -> CROCKFORD_BASE32.indexOf(c) >= 0);
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = CROCKFORD_BASE32.charAt((int) (id & 31));
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    static long decode(String orderNumber) {
+        long id = 0;
+        for (char c : orderNumber.toCharArray()) {
+            id = (id << 5) | CROCKFORD_BASE32.indexOf(c);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.InsufficientProductStockException;
+import com.example.eshop.exception.PaymentProcessingException;
+import com.example.eshop.model.Order;
+import com.example.eshop.model.dto.business.StaleOrderReconcilerStats;
+import com.example.eshop.model.dto.business.StaleOrderRef;
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Settles PENDING orders whose checkout was abandoned.
+ * Stale orders are read page by page with a keyset cursor and checked against PayPal on virtual
+ * threads, at most {@code stale-order-concurrency} at a time and each status call bounded by a
+ * deadline. PayPal is never called inside a transaction, every state change of an order commits
+ * on its own through OrderService.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StaleOrderReconciler {
+
+    // Keyset start, before any order date
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final List<String> FINAL_PAYPAL_STATUSES = List.of("VOIDED", "COMPLETED", "DENIED");
+
+    private final OrderJpaRepository orderRepo;
+    private final OrderService orderService;
+    private final PayPalService payPalService;
+
+    @Value("${app.checkout.stale-order-age:PT1H}")
+    private Duration staleAfter;
+
+    @Value("${app.checkout.stale-order-expiry:PT3H}")
+    private Duration expireAfter;
+
+    @Value("${app.checkout.stale-order-page-size:200}")
+    private int pageSize;
+
+    @Value("${app.checkout.stale-order-concurrency:16}")
+    private int concurrency;
+
+    @Value("${app.checkout.stale-order-paypal-timeout:PT10S}")
+    private Duration paypalTimeout;
+
+    // Metrics
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong captured = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong retained = new AtomicLong();
+    private final AtomicLong manualReview = new AtomicLong();
+    private final AtomicLong paypalTimeouts = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicReference<LastRun> lastRun = new AtomicReference<>();
+
+    @Scheduled(fixedDelayString = "${app.checkout.stale-order-sweep-interval:PT1H}")
+    public void reconcileStalePendingOrders() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Stale order reconciliation already running, skipping");
+            return;
+        }
+
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startNanos = System.nanoTime();
+        long processedBefore = processed.get();
+        try {
+            reconcile(startedAt.minus(staleAfter));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Stale order reconciliation interrupted");
+        } finally {
+            long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+            long runProcessed = processed.get() - processedBefore;
+            lastRun.set(new LastRun(startedAt, durationMs, runProcessed));
+            runs.incrementAndGet();
+            running.set(false);
+            if (runProcessed > 0) {
+                log.info("Reconciled {} stale PENDING orders in {} ms", runProcessed, durationMs);
+            }
+        }
+    }
+
+    public StaleOrderReconcilerStats getStats() {
+        LastRun last = lastRun.get();
+        return new StaleOrderReconcilerStats(
+                running.get(),
+                runs.get(),
+                processed.get(),
+                captured.get(),
+                cancelled.get(),
+                expired.get(),
+                retained.get(),
+                manualReview.get(),
+                paypalTimeouts.get(),
+                failed.get(),
+                backlog.get(),
+                last != null ? last.startedAt() : null,
+                last != null ? last.durationMs() : 0,
+                last != null ? last.processed() : 0,
+                last != null ? last.ordersPerSecond() : 0
+        );
+    }
+
+    // Private helper methods
+    private void reconcile(LocalDateTime cutoff) throws InterruptedException {
+        backlog.set(orderRepo.countByOrderStatusAndOrderDateBefore(Order.OrderStatus.PENDING, cutoff));
+        Semaphore permits = new Semaphore(concurrency);
+
+        // Closing the executors waits for the orders still in flight, PayPal calls close last
+        try (ExecutorService paypalExecutor = Executors.newVirtualThreadPerTaskExecutor();
+             ExecutorService orderExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            LocalDateTime afterDate = KEYSET_START;
+            Long afterId = 0L;
+            List<StaleOrderRef> page;
+            do {
+                page = orderRepo.findStaleOrderPage(Order.OrderStatus.PENDING, cutoff, afterDate, afterId,
+                        PageRequest.of(0, pageSize));
+
+                for (StaleOrderRef order : page) {
+                    // Blocks the pager once the concurrency limit is reached
+                    permits.acquire();
+                    orderExecutor.submit(() -> {
+                        try {
+                            reconcileOrder(order, paypalExecutor);
+                        } catch (Exception e) {
+                            failed.incrementAndGet();
+                            log.error("Failed to reconcile stale order: {}", order.orderNumber(), e);
+                        } finally {
+                            processed.incrementAndGet();
+                            backlog.updateAndGet(remaining -> Math.max(0, remaining - 1));
+                            permits.release();
+                        }
+                    });
+                }
+
+                if (!page.isEmpty()) {
+                    StaleOrderRef last = page.get(page.size() - 1);
+                    afterDate = last.orderDate();
+                    afterId = last.orderId();
+                }
+            } while (page.size() == pageSize);
+        }
+    }
+
+    private void reconcileOrder(StaleOrderRef order, ExecutorService paypalExecutor) {
+        String paypalOrderId = order.paypalOrderId();
+        boolean isExpired = order.createdAt().isBefore(LocalDateTime.now().minus(expireAfter));
+
+        if (paypalOrderId == null || paypalOrderId.isBlank()) {
+            log.warn("Stale PENDING order {} has no PayPal ID. Marking as CANCELLED.", order.orderNumber());
+            orderService.cancelStaleOrder(order.orderId());
+            cancelled.incrementAndGet();
+            return;
+        }
+
+        String payPalStatus;
+        try {
+            payPalStatus = fetchPayPalStatus(paypalOrderId, paypalExecutor);
+        } catch (PaymentProcessingException e) {
+            if (isExpired) {
+                log.warn("Order {} is older than {} and PayPal status could not be retrieved. Marking as EXPIRED.",
+                        order.orderNumber(), expireAfter);
+                orderService.expireStaleOrder(order.orderId());
+                expired.incrementAndGet();
+            } else {
+                log.error("Failed to retrieve PayPal status for order {}: {}. Will retry next cycle.",
+                        order.orderNumber(), e.getMessage());
+                retained.incrementAndGet();
+            }
+            return;
+        }
+
+        if ("APPROVED".equalsIgnoreCase(payPalStatus)) {
+            log.info("Order {} (PayPal ID: {}) is APPROVED on PayPal. Attempting capture.", order.orderNumber(), paypalOrderId);
+            captureApprovedOrder(order);
+        } else if (FINAL_PAYPAL_STATUSES.contains(payPalStatus.toUpperCase())) {
+            // These are final statuses where no payment can happen
+            log.info("Order {} (PayPal ID: {}) has final PayPal status {}. Cancelling locally.",
+                    order.orderNumber(), paypalOrderId, payPalStatus);
+            orderService.cancelStaleOrder(order.orderId());
+            cancelled.incrementAndGet();
+        } else if (isExpired) {
+            log.warn("Order {} is older than {} with PayPal status {}. Marking as EXPIRED and cancelling.",
+                    order.orderNumber(), expireAfter, payPalStatus);
+            orderService.expireStaleOrder(order.orderId());
+            expired.incrementAndGet();
+        } else {
+            // PayPal status is CREATED, PENDING, or ambiguous no cancel yet
+            log.warn("Order {} (PayPal ID: {}) has ambiguous PayPal status {}. Retaining for next cycle.",
+                    order.orderNumber(), paypalOrderId, payPalStatus);
+            retained.incrementAndGet();
+        }
+    }
+
+    private void captureApprovedOrder(StaleOrderRef order) {
+        try {
+            if (!orderService.commitStaleOrderStock(order.orderId())) {
+                // Settled by the user or another node since the page was read
+                return;
+            }
+        } catch (InsufficientProductStockException e) {
+            log.warn("Order {} is APPROVED but its expired reservation could not be re-acquired. Cancelling.",
+                    order.orderNumber());
+            orderService.cancelStaleOrder(order.orderId());
+            cancelled.incrementAndGet();
+            return;
+        }
+
+        // No deadline here, abandoning the wait would not stop PayPal from moving the money
+        try {
+            payPalService.capturePayPalOrder(order.paypalOrderId());
+            orderService.markStaleOrderCaptured(order.orderId());
+            captured.incrementAndGet();
+        } catch (PaymentProcessingException e) {
+            // Capture failed even though PayPal said APPROVED. Payment might be captured manually later
+            orderService.markStaleOrderForManualReview(order.orderId());
+            manualReview.incrementAndGet();
+            log.error("CRITICAL: Capture failed for APPROVED order {}. PayPal ID: {}. Error: {}",
+                    order.orderNumber(), order.paypalOrderId(), e.getMessage());
+        }
+    }
+
+    // Bounds the status call, a timeout is handled like any other unreachable PayPal status
+    private String fetchPayPalStatus(String paypalOrderId, ExecutorService paypalExecutor) {
+        Future<String> call = paypalExecutor.submit(() -> payPalService.getOrderStatus(paypalOrderId));
+        try {
+            return call.get(paypalTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            paypalTimeouts.incrementAndGet();
+            throw new PaymentProcessingException("PayPal status call timed out after " + paypalTimeout);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PaymentProcessingException cause) {
+                throw cause;
+            }
+            throw new PaymentProcessingException("Unable to retrieve PayPal order status", e.getCause());
+        } catch (InterruptedException e) {
+            call.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PaymentProcessingException("Interrupted while waiting for PayPal status", e);
+        }
+    }
+
+    private record LastRun(LocalDateTime startedAt, long durationMs, long processed) {
+        double ordersPerSecond() {
+            return durationMs > 0 ? processed * 1000.0 / durationMs : 0;
+        }
+    }
+}
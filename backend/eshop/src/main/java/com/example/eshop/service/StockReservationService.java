@@ -0,0 +1,209 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.InsufficientProductStockException;
+import com.example.eshop.exception.ProductNotAvailableException;
+import com.example.eshop.exception.ProductNotFoundException;
+import com.example.eshop.model.Order;
+import com.example.eshop.model.OrderItem;
+import com.example.eshop.model.StockReservation;
+import com.example.eshop.model.StockReservation.ReservationStatus;
+import com.example.eshop.repository.ProductStockJdbcRepository;
+import com.example.eshop.repository.interfaces.StockReservationJpaRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Holds checkout stock in the stock_reservations ledger instead of taking it out of products.stock.
+ * A reservation is ACTIVE until the payment is captured (COMMITTED), the checkout is abandoned
+ * (RELEASED) or its TTL runs out (EXPIRED). Only ACTIVE reservations count in products.reserved_stock.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationService {
+
+    private final StockReservationJpaRepository reservationRepo;
+    private final ProductStockJdbcRepository productStockRepo;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.checkout.reservation-ttl:PT1H}")
+    private Duration reservationTtl;
+
+    // Reserves the whole cart or nothing, throws the business exception of the first product that falls short.
+    // Must share the transaction of recordReservations, reserved_stock without its ledger rows would leak.
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserveStock(Map<Long, Integer> quantityMap) {
+        List<Long> rejectedIds = productStockRepo.reserveStockAll(quantityMap);
+        if (rejectedIds.isEmpty()) {
+            stockChanged(quantityMap);
+            return;
+        }
+
+        Long productId = rejectedIds.get(0);
+        Integer availableStock = productStockRepo.findAvailableStock(productId);
+        if (availableStock == null) {
+            throw new ProductNotFoundException(rejectedIds);
+        }
+        if (availableStock >= quantityMap.get(productId)) {
+            // Enough stock left, so the guard failed on is_active
+            throw new ProductNotAvailableException(productId);
+        }
+        throw new InsufficientProductStockException(productId, availableStock);
+    }
+
+    // Writes one ledger entry per order item for stock already reserved with reserveStock
+    @Transactional
+    public void recordReservations(Order order) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(reservationTtl).truncatedTo(ChronoUnit.SECONDS);
+
+        List<StockReservation> reservations = order.getOrderItems().stream()
+                .map(item -> {
+                    StockReservation reservation = new StockReservation();
+                    reservation.setOrder(order);
+                    reservation.setProduct(item.getProduct());
+                    reservation.setQuantity(item.getQuantity());
+                    reservation.setStatus(ReservationStatus.ACTIVE);
+                    reservation.setExpiresAt(expiresAt);
+                    return reservation;
+                }).toList();
+
+        reservationRepo.saveAll(reservations);
+    }
+
+    // Takes the reserved units out of stock when the payment is about to be captured.
+    // Reservations that expired meanwhile are re-acquired from available stock, all-or-nothing.
+    @Transactional
+    public void commitReservations(Order order) {
+        if (isLegacyOrder(order)) {
+            // Placed before the ledger existed, its stock was already taken at checkout
+            return;
+        }
+
+        List<StockReservation> active = reservationRepo.findByOrderIdAndStatusForUpdate(
+                order.getOrderId(), ReservationStatus.ACTIVE);
+        if (active.isEmpty() && !reservationRepo.findByOrderIdAndStatusForUpdate(
+                order.getOrderId(), ReservationStatus.COMMITTED).isEmpty()) {
+            // Committed by a concurrent completion of the same order, a locking read sees it despite the snapshot
+            log.info("Stock already committed for order: {}", order.getOrderNumber());
+            return;
+        }
+        Map<Long, Integer> reservedQuantities = sumByProduct(active);
+
+        Map<Long, Integer> missingQuantities = order.getOrderItems().stream()
+                .filter(item -> !reservedQuantities.containsKey(item.getProduct().getProductId()))
+                .collect(Collectors.toMap(item -> item.getProduct().getProductId(), OrderItem::getQuantity, Integer::sum));
+
+        if (!missingQuantities.isEmpty()) {
+            log.info("Reservations of order {} expired for products {}, re-acquiring stock",
+                    order.getOrderNumber(), missingQuantities.keySet());
+            List<Long> rejectedIds = productStockRepo.decrementAvailableStockAll(missingQuantities);
+            if (!rejectedIds.isEmpty()) {
+                Long productId = rejectedIds.get(0);
+                throw new InsufficientProductStockException(productId, productStockRepo.findAvailableStock(productId));
+            }
+            stockChanged(missingQuantities);
+        }
+
+        if (!active.isEmpty()) {
+            productStockRepo.commitReservedStockAll(reservedQuantities);
+            updateStatus(active, ReservationStatus.COMMITTED);
+        }
+        log.info("Stock committed for order: {}", order.getOrderNumber());
+    }
+
+    // Gives the reserved units back to available stock, safe to call several times for the same order
+    @Transactional
+    public void releaseReservations(Order order) {
+        if (isLegacyOrder(order)) {
+            Map<Long, Integer> quantities = order.getOrderItems().stream()
+                    .collect(Collectors.toMap(item -> item.getProduct().getProductId(), OrderItem::getQuantity, Integer::sum));
+            productStockRepo.incrementStockAll(quantities);
+            stockChanged(quantities);
+            return;
+        }
+
+        List<StockReservation> active = reservationRepo.findByOrderIdAndStatusForUpdate(
+                order.getOrderId(), ReservationStatus.ACTIVE);
+        if (active.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> released = sumByProduct(active);
+        productStockRepo.releaseReservedStockAll(released);
+        stockChanged(released);
+        updateStatus(active, ReservationStatus.RELEASED);
+        log.info("Released {} stock reservations for order: {}", active.size(), order.getOrderNumber());
+    }
+
+    // Expires one batch of overdue reservations, returns how many were expired.
+    // Cost is proportional to the expired reservations thanks to the (status, expires_at) index.
+    @Transactional
+    public int expireReservations(int batchSize) {
+        List<StockReservation> expired = reservationRepo.findExpiredForUpdate(
+                ReservationStatus.ACTIVE, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Integer> released = sumByProduct(expired);
+        productStockRepo.releaseReservedStockAll(released);
+        stockChanged(released);
+        updateStatus(expired, ReservationStatus.EXPIRED);
+        return expired.size();
+    }
+
+    // Repairs products.reserved_stock that drifted from the ACTIVE reservations, e.g. after manual edits.
+    // Returns how many products were corrected.
+    @Transactional
+    public int reconcileReservedStock() {
+        List<Long> drifted = productStockRepo.findReservedStockDrift();
+        if (drifted.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> corrected = productStockRepo.reconcileReservedStockAll(drifted);
+        if (!corrected.isEmpty()) {
+            log.warn("Reserved stock of products {} did not match their active reservations, corrected", corrected);
+            eventPublisher.publishEvent(new ProductStockChangedEvent(Set.copyOf(corrected)));
+        }
+        return corrected.size();
+    }
+
+    // Private helper methods
+    private boolean isLegacyOrder(Order order) {
+        return !reservationRepo.existsByOrderOrderId(order.getOrderId());
+    }
+
+    // Committing reserved units leaves available stock as it is, everything else changes it
+    private void stockChanged(Map<Long, Integer> quantities) {
+        eventPublisher.publishEvent(new ProductStockChangedEvent(Set.copyOf(quantities.keySet())));
+    }
+
+    private void updateStatus(List<StockReservation> reservations, ReservationStatus status) {
+        List<Long> ids = reservations.stream().map(StockReservation::getReservationId).toList();
+        reservationRepo.updateStatus(ids, status, LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    private Map<Long, Integer> sumByProduct(List<StockReservation> reservations) {
+        return reservations.stream()
+                .collect(Collectors.toMap(
+                        reservation -> reservation.getProduct().getProductId(),
+                        StockReservation::getQuantity,
+                        Integer::sum
+                ));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.eshop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockReservationSweeper {
+
+    private final StockReservationService stockReservationService;
+
+    @Value("${app.checkout.reservation-sweep-batch-size:500}")
+    private int batchSize;
+
+    // Each batch commits on its own so locks on products rows are held only briefly
+    @Scheduled(fixedDelayString = "${app.checkout.reservation-sweep-interval:PT1M}")
+    public void sweepExpiredReservations() {
+        int total = 0;
+        int expired;
+        do {
+            expired = stockReservationService.expireReservations(batchSize);
+            total += expired;
+        } while (expired == batchSize);
+
+        if (total > 0) {
+            log.info("Expired {} stock reservations", total);
+        }
+    }
+
+    // Safety net for products.reserved_stock, the sweep above only sees reservation rows
+    @Scheduled(fixedDelayString = "${app.checkout.reservation-reconcile-interval:PT15M}")
+    public void reconcileReservedStock() {
+        stockReservationService.reconcileReservedStock();
+    }
+}
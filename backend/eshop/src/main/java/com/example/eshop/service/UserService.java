@@ -4,17 +4,27 @@ import com.example.eshop.exception.OrderNotFoundException;
 import com.example.eshop.exception.UserNotFoundException;
 import com.example.eshop.model.Order;
 import com.example.eshop.model.OrderItem;
+import com.example.eshop.model.OrderSummary;
 import com.example.eshop.model.Product;
 import com.example.eshop.model.User;
 import com.example.eshop.model.common.Role;
 import com.example.eshop.model.dto.business.*;
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import com.example.eshop.repository.interfaces.OrderSummaryJpaRepository;
 import com.example.eshop.repository.interfaces.UserJpaRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.util.Comparator;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
 
 @Service
@@ -23,6 +33,9 @@ import java.util.List;
 public class UserService {
 
     private final UserJpaRepository userRepo;
+    private final OrderJpaRepository orderRepo;
+    private final OrderSummaryJpaRepository orderSummaryRepo;
+    private final AdminStatsService adminStatsService;
 
     @Transactional(readOnly = true)
     public UserInfoDto getUserInfo(Long userId) {
@@ -31,9 +44,11 @@ public class UserService {
     }
 
     @Transactional(readOnly = true)
-    public UserOrderDto getUserOrders(Long userId) {
-        User user = findUserById(userId);
-        return mapToUserOrderResponseDto(user);
+    public UserOrderDto getUserOrders(Long userId, String cursor, int size) {
+        OrderCursor after = decodeCursor(cursor);
+        List<OrderSummary> summaries = orderSummaryRepo.findUserPage(
+                userId, after.orderDate(), after.orderId(), PageRequest.of(0, size));
+        return toUserOrderDto(summaries, size);
     }
 
     public UserInfoDto updateUserInfo(Long userId, UpdateUserInfoRequest request) {
@@ -47,24 +62,25 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public OrderDto getOrderById(Long userId, Long orderId) {
-        User user = findUserById(userId);
-
-        Order order = user.getOrders().stream()
-                .filter(o -> o.getOrderId().equals(orderId))
-                .findFirst()
+        Order order = orderRepo.findWithItemsByIdAndUserId(orderId, userId)
                 .orElseThrow(() -> new OrderNotFoundException(userId, orderId));
 
         return toOrderResponseDto(order);
     }
 
     @Transactional(readOnly = true)
-    public List<OrderDto> getOrdersByStatus(Long userId, String status) {
-        User user = findUserById(userId);
+    public UserOrderDto getOrdersByStatus(Long userId, String status, String cursor, int size) {
+        Order.OrderStatus orderStatus;
+        try {
+            orderStatus = Order.OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid order status: " + status);
+        }
 
-        return user.getOrders().stream()
-                .filter(order -> order.getOrderStatus().toString().equalsIgnoreCase(status))
-                .map(this::toOrderResponseDto)
-                .toList();
+        OrderCursor after = decodeCursor(cursor);
+        List<OrderSummary> summaries = orderSummaryRepo.findUserPageByStatus(
+                userId, orderStatus, after.orderDate(), after.orderId(), PageRequest.of(0, size));
+        return toUserOrderDto(summaries, size);
     }
 
     // Admin methods
@@ -100,11 +116,7 @@ public class UserService {
     public void deleteUser(Long id) {
         User user = findUserById(id);
         userRepo.delete(user);
-    }
-
-    @Transactional(readOnly = true)
-    public Long getTotalUserCount() {
-        return userRepo.count();
+        adminStatsService.userDeleted();
     }
 
     private void updateUserFields(User user, UpdateUserInfoRequest request) {
@@ -136,6 +148,36 @@ public class UserService {
                 .orElseThrow(() -> new UserNotFoundException(userId));
     }
 
+    // List views are served from the order_summaries read model, details stay on getOrderById
+    private UserOrderDto toUserOrderDto(List<OrderSummary> summaries, int size) {
+        OrderSummary last = summaries.isEmpty() ? null : summaries.get(summaries.size() - 1);
+        String nextCursor = summaries.size() == size ? encodeCursor(last.getOrderDate(), last.getOrderId()) : null;
+        return new UserOrderDto(summaries.stream().map(this::toOrderSummaryDto).toList(), nextCursor);
+    }
+
+    // Opaque cursor for the (order_date, order_id) position of the last order of a page
+    private String encodeCursor(LocalDateTime orderDate, Long orderId) {
+        String position = orderDate + "|" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private OrderCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return OrderCursor.FIRST_PAGE;
+        }
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new OrderCursor(LocalDateTime.parse(position[0]), Long.parseLong(position[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    private record OrderCursor(LocalDateTime orderDate, Long orderId) {
+        // Sorts after every order, the first page starts right below it
+        static final OrderCursor FIRST_PAGE = new OrderCursor(LocalDateTime.of(9999, 12, 31, 0, 0), Long.MAX_VALUE);
+    }
+
     // Mapping methods
     private UserInfoDto mapToUserInfoResponseDto(User user) {
         return new UserInfoDto(
@@ -147,15 +189,20 @@ public class UserService {
         );
     }
 
-    private UserOrderDto mapToUserOrderResponseDto(User user) {
-        return new UserOrderDto(mapOrders(user.getOrders()));
-    }
-
-    private List<OrderDto> mapOrders(List<Order> orders) {
-        return orders.stream()
-                .sorted(Comparator.comparing(Order::getOrderDate).reversed())
-                .map(this::toOrderResponseDto)
-                .toList();
+    private OrderSummaryDto toOrderSummaryDto(OrderSummary summary) {
+        return new OrderSummaryDto(
+                summary.getOrderId(),
+                summary.getOrderNumber(),
+                summary.getOrderDate(),
+                summary.getOrderStatus().toString(),
+                summary.getSubtotal(),
+                summary.getDiscountAmount(),
+                summary.getShippingCost(),
+                summary.getTax(),
+                summary.getGrandTotal(),
+                summary.getItemCount(),
+                summary.getThumbnailUrl()
+        );
     }
 
     private OrderDto toOrderResponseDto(Order order) {
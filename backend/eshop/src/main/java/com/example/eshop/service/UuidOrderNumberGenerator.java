@@ -0,0 +1,16 @@
+package com.example.eshop.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "app.order-number.strategy", havingValue = "uuid", matchIfMissing = true)
+// Default until a node id is configured for snowflake, random values spread inserts over the whole order_number index
+public class UuidOrderNumberGenerator implements OrderNumberGenerator {
+    @Override
+    public String nextOrderNumber() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.eshop.util;
+
+import com.example.eshop.security.validation.CartOperationValidator;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+import java.lang.annotation.*;
+
+@Constraint(validatedBy = CartOperationValidator.class)
+@Target({ElementType.TYPE, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ValidCartOperation {
+    String message() default "Required for this operation";
+    Class<?>[] groups() default {};
+    Class<? extends Payload>[] payload() default {};
+}
@@ -10,7 +10,8 @@ CREATE TABLE users (
     status ENUM('ACTIVE','INACTIVE','LOCKED') NOT NULL DEFAULT 'ACTIVE',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    deleted_at TIMESTAMP NULL
+    deleted_at TIMESTAMP NULL,
+    cart_version BIGINT NOT NULL DEFAULT 0
 ) ENGINE=InnoDB;
 
 CREATE TABLE categories (
@@ -31,10 +32,18 @@ CREATE TABLE products (
     price DECIMAL(10,2) NOT NULL,
     image_url VARCHAR(255),
     stock INT NOT NULL DEFAULT 0,
+    reserved_stock INT NOT NULL DEFAULT 0,  -- Units held by ACTIVE stock_reservations
     is_active BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    FOREIGN KEY (category_id) REFERENCES categories(category_id)
+    FOREIGN KEY (category_id) REFERENCES categories(category_id),
+    -- Keyset scrolling seeks on (sort field, product_id), globally and within a category
+    INDEX idx_products_name_id (product_name, product_id),
+    INDEX idx_products_price_id (price, product_id),
+    INDEX idx_products_created_id (created_at, product_id),
+    INDEX idx_products_category_name_id (category_id, product_name, product_id),
+    INDEX idx_products_category_price_id (category_id, price, product_id),
+    INDEX idx_products_category_created_id (category_id, created_at, product_id)
 ) ENGINE=InnoDB;
 
 CREATE TABLE cart_items (
@@ -63,7 +72,8 @@ CREATE TABLE orders (
     shipping_address VARCHAR(255) NOT NULL,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
-    FOREIGN KEY (user_id) REFERENCES users(user_id)
+    FOREIGN KEY (user_id) REFERENCES users(user_id),
+    INDEX idx_orders_status_date (order_status, order_date)
 ) ENGINE=InnoDB;
 
 CREATE TABLE order_items (
@@ -79,6 +89,41 @@ CREATE TABLE order_items (
     FOREIGN KEY (product_id) REFERENCES products(product_id)
 ) ENGINE=InnoDB;
 
+-- Read model of orders for the order history lists, kept in sync by OrderSummaryService
+CREATE TABLE order_summaries (
+    order_id BIGINT PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    order_number VARCHAR(50) NOT NULL,
+    order_date TIMESTAMP NOT NULL,
+    order_status ENUM('PENDING','PROCESSING','SHIPPED','DELIVERED','CANCELLED', 'MANUAL_REVIEW_PAYMENT', 'EXPIRED') NOT NULL,
+    subtotal DECIMAL(10,2) NOT NULL,
+    discount_amount DECIMAL(10,2) NOT NULL,
+    shipping_cost DECIMAL(10,2) NOT NULL,
+    tax DECIMAL(10,2) NOT NULL,
+    grand_total DECIMAL(10,2) NOT NULL,
+    item_count INT NOT NULL,
+    thumbnail_url VARCHAR(255),
+    updated_at TIMESTAMP NOT NULL,
+    FOREIGN KEY (order_id) REFERENCES orders(order_id) ON DELETE CASCADE,
+    INDEX idx_order_summaries_user_date (user_id, order_date, order_id),
+    INDEX idx_order_summaries_user_status_date (user_id, order_status, order_date, order_id)
+) ENGINE=InnoDB;
+
+CREATE TABLE stock_reservations (
+    reservation_id BIGINT PRIMARY KEY AUTO_INCREMENT,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL,
+    status ENUM('ACTIVE','COMMITTED','RELEASED','EXPIRED') NOT NULL DEFAULT 'ACTIVE',
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    FOREIGN KEY (order_id) REFERENCES orders(order_id) ON DELETE CASCADE,
+    FOREIGN KEY (product_id) REFERENCES products(product_id),
+    INDEX idx_stock_reservations_status_expires (status, expires_at),
+    INDEX idx_stock_reservations_order (order_id)
+) ENGINE=InnoDB;
+
 -- Spring Sessions
 CREATE TABLE SPRING_SESSION (
     PRIMARY_ID CHAR(36) NOT NULL,
@@ -0,0 +1,137 @@
+package com.example.eshop.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two H2 databases stand in for the primary and its replica, the test plays the replication
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(ReadReplicaConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.read-replica.urls=" + ReadReplicaConfigTest.REPLICA_URL,
+        "app.read-replica.max-lag=PT5S"
+})
+class ReadReplicaConfigTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private ReadReplicaDataSource readReplicaDataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate jdbc;
+    private JdbcTemplate primaryJdbc;
+    private JdbcTemplate replicaJdbc;
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        primaryJdbc = new JdbcTemplate(primaryDataSource);
+        replicaJdbc = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+        for (JdbcTemplate database : List.of(primaryJdbc, replicaJdbc)) {
+            database.execute("CREATE TABLE IF NOT EXISTS db_marker (name VARCHAR(20))");
+            database.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+            database.execute("DELETE FROM db_marker");
+            database.execute("DELETE FROM replica_heartbeat");
+        }
+        primaryJdbc.update("INSERT INTO db_marker (name) VALUES ('primary')");
+        replicaJdbc.update("INSERT INTO db_marker (name) VALUES ('replica')");
+    }
+
+    @Test
+    void readOnlyTransactions_shouldGoToACaughtUpReplica() {
+        replicateHeartbeat(System.currentTimeMillis());
+        readReplicaDataSource.checkReplicas();
+
+        assertEquals(List.of("replica-0"), readReplicaDataSource.getHealthyReplicas());
+        assertEquals("replica", readMarker(true));
+        assertEquals("primary", readMarker(false));
+        assertEquals("primary", jdbc.queryForObject("SELECT name FROM db_marker", String.class));
+    }
+
+    @Test
+    void readOnlyTransactions_shouldFallBackToPrimaryWhileTheReplicaLags() {
+        replicateHeartbeat(System.currentTimeMillis() - 60_000);
+        readReplicaDataSource.checkReplicas();
+
+        assertTrue(readReplicaDataSource.getHealthyReplicas().isEmpty());
+        assertEquals("primary", readMarker(true));
+
+        replicateHeartbeat(System.currentTimeMillis());
+        readReplicaDataSource.checkReplicas();
+
+        assertEquals("replica", readMarker(true));
+    }
+
+    @Test
+    void openInViewSession_shouldNotCarryTheReplicaConnectionIntoAWriteTransaction() {
+        replicateHeartbeat(System.currentTimeMillis());
+        readReplicaDataSource.checkReplicas();
+
+        // What OpenEntityManagerInViewInterceptor does around a request
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            assertEquals("replica", readMarker(true));
+            assertEquals("primary", readMarker(false));
+            // The session keeps the primary connection after writing, later reads see the write
+            assertEquals("primary", readMarker(true));
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+
+    private String readMarker(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbc.queryForObject("SELECT name FROM db_marker", String.class));
+    }
+
+    private void replicateHeartbeat(long beatAt) {
+        replicaJdbc.update("DELETE FROM replica_heartbeat");
+        replicaJdbc.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", beatAt);
+    }
+}
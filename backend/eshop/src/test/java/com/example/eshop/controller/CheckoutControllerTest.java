@@ -3,6 +3,7 @@ package com.example.eshop.controller;
 import com.example.eshop.model.dto.business.PayPalOrderDetailDto;
 import com.example.eshop.model.dto.business.PaymentOrderDto;
 import com.example.eshop.security.SecurityConfig;
+import com.example.eshop.service.IdempotencyService;
 import com.example.eshop.service.OrderService;
 import com.example.eshop.security.util.CurrentUserProvider;
 
@@ -53,6 +54,11 @@ class CheckoutControllerTest {
             return mock(OrderService.class);
         }
 
+        @Bean
+        public IdempotencyService idempotencyService() {
+            return new IdempotencyService();
+        }
+
         @Bean
         public CurrentUserProvider currentUserProvider() {
             return mock(CurrentUserProvider.class);
@@ -0,0 +1,96 @@
+package com.example.eshop.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartItemJdbcRepositoryTest {
+
+    private static final long USER_ID = 7L;
+    private static final long PRODUCT_ID = 1L;
+    private static final long INACTIVE_PRODUCT_ID = 2L;
+    private static final long MISSING_PRODUCT_ID = 99L;
+
+    private JdbcTemplate jdbcTemplate;
+    private CartItemJdbcRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:cart-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        repository = new CartItemJdbcRepository(jdbcTemplate);
+
+        jdbcTemplate.execute("CREATE TABLE products (" +
+                "product_id BIGINT PRIMARY KEY, " +
+                "stock INT NOT NULL, " +
+                "reserved_stock INT NOT NULL DEFAULT 0, " +
+                "is_active BOOLEAN NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (" +
+                "cart_item_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "user_id BIGINT NOT NULL, " +
+                "product_id BIGINT NOT NULL, " +
+                "quantity INT NOT NULL, " +
+                "added_at TIMESTAMP NOT NULL, " +
+                "updated_at TIMESTAMP NOT NULL, " +
+                "UNIQUE (user_id, product_id))");
+        jdbcTemplate.update("INSERT INTO products (product_id, stock, reserved_stock, is_active) VALUES (?, 10, 2, TRUE)", PRODUCT_ID);
+        jdbcTemplate.update("INSERT INTO products (product_id, stock, is_active) VALUES (?, 10, FALSE)", INACTIVE_PRODUCT_ID);
+    }
+
+    @Test
+    void addQuantity_shouldInsertThenAddToTheExistingRow() {
+        assertTrue(repository.addQuantity(USER_ID, PRODUCT_ID, 3));
+        assertTrue(repository.addQuantity(USER_ID, PRODUCT_ID, 4));
+
+        assertEquals(7, quantityOf(PRODUCT_ID));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_items", Integer.class));
+    }
+
+    @Test
+    void addQuantity_shouldWriteNothingBeyondAvailableStock() {
+        assertTrue(repository.addQuantity(USER_ID, PRODUCT_ID, 5));
+
+        // 8 available, 5 already in the cart
+        assertFalse(repository.addQuantity(USER_ID, PRODUCT_ID, 4));
+        assertFalse(repository.addQuantity(USER_ID, INACTIVE_PRODUCT_ID, 1));
+        assertFalse(repository.addQuantity(USER_ID, MISSING_PRODUCT_ID, 1));
+
+        assertEquals(5, quantityOf(PRODUCT_ID));
+        assertEquals(new CartItemJdbcRepository.StockCheck(true, 8, 5),
+                repository.findStockCheck(USER_ID, PRODUCT_ID).orElseThrow());
+        assertEquals(new CartItemJdbcRepository.StockCheck(false, 10, null),
+                repository.findStockCheck(USER_ID, INACTIVE_PRODUCT_ID).orElseThrow());
+        assertTrue(repository.findStockCheck(USER_ID, MISSING_PRODUCT_ID).isEmpty());
+    }
+
+    @Test
+    void setQuantity_shouldOnlyUpdateItemsInTheCartWithinStock() {
+        assertFalse(repository.setQuantity(USER_ID, PRODUCT_ID, 1));
+
+        repository.addQuantity(USER_ID, PRODUCT_ID, 1);
+        assertTrue(repository.setQuantity(USER_ID, PRODUCT_ID, 8));
+        assertFalse(repository.setQuantity(USER_ID, PRODUCT_ID, 9));
+
+        assertEquals(8, quantityOf(PRODUCT_ID));
+    }
+
+    @Test
+    void delete_shouldRemoveOneItemAndDeleteAllTheWholeCart() {
+        repository.addQuantity(USER_ID, PRODUCT_ID, 1);
+        repository.addQuantity(USER_ID + 1, PRODUCT_ID, 1);
+
+        assertTrue(repository.delete(USER_ID, PRODUCT_ID));
+        assertFalse(repository.delete(USER_ID, PRODUCT_ID));
+        assertEquals(1, repository.deleteAll(USER_ID + 1));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cart_items", Integer.class));
+    }
+
+    private int quantityOf(long productId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT quantity FROM cart_items WHERE user_id = ? AND product_id = ?", Integer.class, USER_ID, productId);
+    }
+}
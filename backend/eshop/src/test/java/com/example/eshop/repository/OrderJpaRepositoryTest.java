@@ -0,0 +1,106 @@
+package com.example.eshop.repository;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.Order;
+import com.example.eshop.model.OrderItem;
+import com.example.eshop.model.Product;
+import com.example.eshop.model.User;
+import com.example.eshop.model.common.Role;
+import com.example.eshop.model.common.UserStatus;
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class OrderJpaRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderJpaRepository orderRepo;
+
+    private User customer;
+    private User otherCustomer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setCategoryName("Phones");
+        category.setSlug("phones");
+        entityManager.persist(category);
+
+        product = Product.builder()
+                .category(category)
+                .productName("Phone")
+                .description("A phone")
+                .price(BigDecimal.TEN)
+                .stock(100)
+                .build();
+        entityManager.persist(product);
+
+        customer = entityManager.persist(user("customer@example.com"));
+        otherCustomer = entityManager.persist(user("other@example.com"));
+    }
+
+    @Test
+    void findWithItemsByIdAndUserId_shouldOnlyReturnOwnOrderWithItems() {
+        Order order = persistOrder(customer, LocalDateTime.of(2026, 1, 1, 12, 0), Order.OrderStatus.PROCESSING);
+        entityManager.clear();
+
+        Order found = orderRepo.findWithItemsByIdAndUserId(order.getOrderId(), customer.getId()).orElseThrow();
+        entityManager.clear();
+
+        assertEquals(1, found.getOrderItems().size());
+        assertEquals("Phone", found.getOrderItems().get(0).getProduct().getProductName());
+        assertTrue(orderRepo.findWithItemsByIdAndUserId(order.getOrderId(), otherCustomer.getId()).isEmpty());
+    }
+
+    private User user(String email) {
+        return User.builder()
+                .email(email)
+                .hashedPassword("hash")
+                .firstName("First")
+                .lastName("Last")
+                .phoneNumber("0123456789")
+                .role(Role.CUSTOMER)
+                .status(UserStatus.ACTIVE)
+                .build();
+    }
+
+    private Order persistOrder(User user, LocalDateTime orderDate, Order.OrderStatus status) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setOrderDate(orderDate);
+        order.setOrderStatus(status);
+        order.setSubtotal(BigDecimal.TEN);
+        order.setGrandTotal(BigDecimal.TEN);
+        order.setShippingAddress("Street 1");
+
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(1);
+        item.setUnitPrice(BigDecimal.TEN);
+        item.setTotal(BigDecimal.TEN);
+        order.addOrderItem(item);
+
+        return entityManager.persistAndFlush(order);
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.eshop.repository;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.Order;
+import com.example.eshop.model.OrderItem;
+import com.example.eshop.model.OrderSummary;
+import com.example.eshop.model.Product;
+import com.example.eshop.model.User;
+import com.example.eshop.model.common.Role;
+import com.example.eshop.model.common.UserStatus;
+import com.example.eshop.repository.interfaces.OrderSummaryJpaRepository;
+import com.example.eshop.service.AdminStatsService;
+import com.example.eshop.service.OrderSummaryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({OrderSummaryJdbcRepository.class, OrderSummaryService.class, AdminStatsService.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-summaries;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class OrderSummaryJdbcRepositoryTest {
+
+    private static final LocalDateTime FIRST_PAGE_DATE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OrderSummaryJpaRepository summaryRepo;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private OrderSummaryJdbcRepository summaryJdbcRepo;
+
+    @Autowired
+    private AdminStatsService adminStatsService;
+
+    private User customer;
+    private User otherCustomer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setCategoryName("Phones");
+        category.setSlug("phones");
+        entityManager.persist(category);
+
+        product = Product.builder()
+                .category(category)
+                .productName("Phone")
+                .description("A phone")
+                .price(BigDecimal.TEN)
+                .imageUrl("https://img.example.com/phone.png")
+                .stock(100)
+                .build();
+        entityManager.persist(product);
+
+        customer = entityManager.persist(user("customer@example.com"));
+        otherCustomer = entityManager.persist(user("other@example.com"));
+    }
+
+    @Test
+    void findUserPage_shouldWalkNewestFirstWithoutGapsOrDuplicates() {
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+        List<Long> expected = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            // Pairs of orders share an order_date, the order id breaks the tie
+            Order order = persistOrder(customer, base.plusMinutes(i / 2), Order.OrderStatus.PROCESSING);
+            orderSummaryService.recordOrder(order);
+            expected.add(0, order.getOrderId());
+        }
+        orderSummaryService.recordOrder(persistOrder(otherCustomer, base, Order.OrderStatus.PROCESSING));
+
+        List<Long> walked = new ArrayList<>();
+        LocalDateTime beforeDate = FIRST_PAGE_DATE;
+        Long beforeId = Long.MAX_VALUE;
+        List<OrderSummary> page;
+        do {
+            page = summaryRepo.findUserPage(customer.getId(), beforeDate, beforeId, PageRequest.of(0, 3));
+            page.forEach(summary -> walked.add(summary.getOrderId()));
+            if (!page.isEmpty()) {
+                OrderSummary last = page.get(page.size() - 1);
+                beforeDate = last.getOrderDate();
+                beforeId = last.getOrderId();
+            }
+        } while (page.size() == 3);
+
+        assertEquals(expected, walked);
+    }
+
+    @Test
+    void updateStatus_shouldMoveSummaryBetweenStatusPages() {
+        Order order = persistOrder(customer, LocalDateTime.of(2026, 1, 1, 12, 0), Order.OrderStatus.PENDING);
+        orderSummaryService.recordOrder(order);
+
+        order.setOrderStatus(Order.OrderStatus.CANCELLED);
+        orderSummaryService.updateStatus(order);
+
+        assertTrue(summaryRepo.findUserPageByStatus(customer.getId(), Order.OrderStatus.PENDING,
+                FIRST_PAGE_DATE, Long.MAX_VALUE, PageRequest.of(0, 10)).isEmpty());
+        List<OrderSummary> cancelled = summaryRepo.findUserPageByStatus(customer.getId(), Order.OrderStatus.CANCELLED,
+                FIRST_PAGE_DATE, Long.MAX_VALUE, PageRequest.of(0, 10));
+        assertEquals(1, cancelled.size());
+        assertEquals(order.getOrderId(), cancelled.get(0).getOrderId());
+    }
+
+    @Test
+    void backfillMissingSummaries_shouldBuildSummariesOfLegacyOrdersOnce() {
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+        List<Order> legacyOrders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            legacyOrders.add(persistOrder(customer, base.plusMinutes(i), Order.OrderStatus.DELIVERED));
+        }
+        orderSummaryService.recordOrder(legacyOrders.get(2));
+
+        // Called on the target, the bean's @Async proxy would run it outside the test transaction
+        OrderSummaryService backfill = new OrderSummaryService(summaryJdbcRepo, adminStatsService);
+        ReflectionTestUtils.setField(backfill, "backfillBatchSize", 2);
+        backfill.backfillMissingSummaries();
+        backfill.backfillMissingSummaries();
+        entityManager.clear();
+
+        List<OrderSummary> summaries = summaryRepo.findAll();
+        assertEquals(5, summaries.size());
+        OrderSummary summary = summaryRepo.findById(legacyOrders.get(0).getOrderId()).orElseThrow();
+        assertEquals(3, summary.getItemCount());
+        assertEquals("https://img.example.com/phone.png", summary.getThumbnailUrl());
+        assertEquals(Order.OrderStatus.DELIVERED, summary.getOrderStatus());
+    }
+
+    @Test
+    void backfillMissingSummaries_shouldRefreshTheStatusOfSummariesBehindTheirOrder() {
+        Order order = persistOrder(customer, LocalDateTime.of(2026, 1, 1, 12, 0), Order.OrderStatus.PENDING);
+        orderSummaryService.recordOrder(order);
+        // The status change committed without its summary, e.g. while the backfill was inserting it
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE orders SET order_status = 'CANCELLED' WHERE order_id = " + order.getOrderId())
+                .executeUpdate();
+
+        OrderSummaryService backfill = new OrderSummaryService(summaryJdbcRepo, adminStatsService);
+        ReflectionTestUtils.setField(backfill, "backfillBatchSize", 2);
+        backfill.backfillMissingSummaries();
+        entityManager.clear();
+
+        assertEquals(Order.OrderStatus.CANCELLED, summaryRepo.findById(order.getOrderId()).orElseThrow().getOrderStatus());
+    }
+
+    private User user(String email) {
+        return User.builder()
+                .email(email)
+                .hashedPassword("hash")
+                .firstName("First")
+                .lastName("Last")
+                .phoneNumber("0123456789")
+                .role(Role.CUSTOMER)
+                .status(UserStatus.ACTIVE)
+                .build();
+    }
+
+    private Order persistOrder(User user, LocalDateTime orderDate, Order.OrderStatus status) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderNumber("ORD-" + System.nanoTime());
+        order.setOrderDate(orderDate);
+        order.setOrderStatus(status);
+        order.setSubtotal(BigDecimal.valueOf(30));
+        order.setGrandTotal(BigDecimal.valueOf(30));
+        order.setShippingAddress("Street 1");
+
+        OrderItem item = new OrderItem();
+        item.setProduct(product);
+        item.setQuantity(3);
+        item.setUnitPrice(BigDecimal.TEN);
+        item.setTotal(BigDecimal.valueOf(30));
+        order.addOrderItem(item);
+
+        return entityManager.persistAndFlush(order);
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.eshop.repository;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.Product;
+import com.example.eshop.model.dto.business.ProductFacetsDto;
+import com.example.eshop.model.dto.business.ProductFilter;
+import com.example.eshop.model.dto.business.ProductListDto;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import com.example.eshop.service.ProductFacetIndex;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(ProductFilterQueryRepository.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-filters;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductFilterQueryRepositoryTest {
+
+    // One bit per filter, every combination is checked
+    private static final int SEARCH = 1;
+    private static final int CATEGORIES = 2;
+    private static final int MIN_PRICE = 4;
+    private static final int MAX_PRICE = 8;
+    private static final int ACTIVE = 16;
+    private static final int IN_STOCK = 32;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductFilterQueryRepository repository;
+
+    @Autowired
+    private ProductJpaRepository productRepository;
+
+    @Autowired
+    private CategoryJpaRepository categoryRepository;
+
+    private final List<Product> products = new ArrayList<>();
+    private final List<Long> categoryIds = new ArrayList<>();
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int c = 0; c < 3; c++) {
+            Category category = new Category();
+            category.setCategoryName("Category " + c);
+            category.setSlug("category-" + c);
+            entityManager.persist(category);
+            categoryIds.add(category.getId());
+
+            for (int p = 0; p < 12; p++) {
+                Product product = entityManager.persist(Product.builder()
+                        .category(category)
+                        .productName((p % 3 == 0 ? "Laptop " : "Phone ") + c + "-" + p)
+                        .description(p % 4 == 0 ? "Pairs with a laptop dock" : "Accessory")
+                        .price(BigDecimal.valueOf(10L * p + c))
+                        .stock(p % 5)
+                        .isActive(p % 2 == 0)
+                        .build());
+                products.add(product);
+            }
+        }
+        entityManager.flush();
+        // Some stock is fully held by reservations
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE products SET reserved_stock = stock WHERE MOD(product_id, 7) = 0")
+                .executeUpdate();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    static Stream<Integer> filterCombinations() {
+        return IntStream.range(0, 64).boxed();
+    }
+
+    @ParameterizedTest
+    @MethodSource("filterCombinations")
+    void findPage_shouldApplyEveryGivenFilterInOneQuery(int combination) {
+        ProductFilter filter = filterFor(combination);
+
+        Page<ProductListDto> page = repository.findPage(filter, null,
+                PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "price")));
+
+        List<Long> expected = products.stream()
+                .filter(product -> matches(product, filter))
+                .sorted(Comparator.comparing(Product::getPrice).reversed())
+                .map(Product::getProductId)
+                .toList();
+        assertEquals(expected, page.getContent().stream().map(ProductListDto::id).toList());
+        // A partial page needs no count query
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @MethodSource("filterCombinations")
+    void findFacetCounts_shouldAggregateInOneQueryAndAgreeWithFacetIndex(int combination) {
+        ProductFilter filter = filterFor(combination);
+        ProductFacetIndex facetIndex = new ProductFacetIndex(productRepository, categoryRepository);
+        facetIndex.refresh();
+        // The facet index leaves term matching to the search index
+        List<Long> searchIds = filter.hasSearchTerm()
+                ? products.stream().filter(product -> matches(product, filter)).map(Product::getProductId).toList()
+                : null;
+        statistics.clear();
+
+        ProductFacetsDto fromSql = facetIndex.summarize(
+                repository.findFacetCounts(filter, null, facetIndex.priceBucketBounds()));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(products.stream().filter(product -> matches(product, filter)).count(), fromSql.total());
+        assertEquals(facetIndex.compute(filter, searchIds), fromSql);
+    }
+
+    @Test
+    void findPage_shouldCountOnlyWhenPageIsFull() {
+        ProductFilter filter = filterFor(CATEGORIES | ACTIVE);
+
+        Page<ProductListDto> page = repository.findPage(filter, null, PageRequest.of(0, 3));
+
+        assertEquals(3, page.getNumberOfElements());
+        assertEquals(products.stream().filter(product -> matches(product, filter)).count(), page.getTotalElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findPage_shouldReuseCompiledShapeForOtherValues() {
+        repository.findPage(new ProductFilter(null, Set.of(categoryIds.get(0)), BigDecimal.ONE, null, true, null),
+                null, PageRequest.of(0, 10));
+        int shapes = repository.compiledShapeCount();
+
+        repository.findPage(new ProductFilter(null, Set.copyOf(categoryIds), BigDecimal.TEN, null, false, null),
+                null, PageRequest.of(2, 5));
+        assertEquals(shapes, repository.compiledShapeCount());
+
+        repository.findPage(new ProductFilter(null, Set.of(categoryIds.get(0)), BigDecimal.ONE, null, true, null),
+                null, PageRequest.of(0, 10, Sort.by("productName")));
+        assertEquals(shapes + 1, repository.compiledShapeCount());
+    }
+
+    @Test
+    void findPageAndMatchingIds_shouldRestrictToSearchIds() {
+        ProductFilter filter = new ProductFilter("ignored", Set.of(categoryIds.get(1)), null, null, true, null);
+        List<Long> searchIds = products.stream().map(Product::getProductId).filter(id -> id % 2 == 1).toList();
+
+        List<Long> expected = products.stream()
+                .filter(product -> product.getProductId() % 2 == 1)
+                .filter(product -> product.getCategory().getId().equals(categoryIds.get(1)) && product.getIsActive())
+                .map(Product::getProductId)
+                .toList();
+        assertEquals(expected, repository.findPage(filter, searchIds, PageRequest.of(0, 100))
+                .map(ProductListDto::id).getContent());
+        assertEquals(Set.copyOf(expected), Set.copyOf(repository.findMatchingIds(filter, searchIds)));
+        assertTrue(repository.findPage(filter, List.of(), PageRequest.of(0, 10)).isEmpty());
+    }
+
+    private ProductFilter filterFor(int combination) {
+        return new ProductFilter(
+                (combination & SEARCH) != 0 ? "laptop" : null,
+                (combination & CATEGORIES) != 0 ? Set.of(categoryIds.get(0), categoryIds.get(2)) : null,
+                (combination & MIN_PRICE) != 0 ? BigDecimal.valueOf(30) : null,
+                (combination & MAX_PRICE) != 0 ? BigDecimal.valueOf(90) : null,
+                (combination & ACTIVE) != 0 ? Boolean.TRUE : null,
+                (combination & IN_STOCK) != 0 ? Boolean.TRUE : null);
+    }
+
+    private boolean matches(Product product, ProductFilter filter) {
+        boolean reservedAway = product.getProductId() % 7 == 0;
+        int available = reservedAway ? 0 : product.getStock();
+        return (filter.searchTerm() == null
+                || product.getProductName().toUpperCase().contains(filter.searchTerm().toUpperCase())
+                || product.getDescription().contains(filter.searchTerm()))
+                && (filter.categoryIds().isEmpty() || filter.categoryIds().contains(product.getCategory().getId()))
+                && (filter.minPrice() == null || product.getPrice().compareTo(filter.minPrice()) >= 0)
+                && (filter.maxPrice() == null || product.getPrice().compareTo(filter.maxPrice()) <= 0)
+                && (filter.active() == null || filter.active().equals(product.getIsActive()))
+                && (filter.inStock() == null || filter.inStock() == available > 0);
+    }
+}
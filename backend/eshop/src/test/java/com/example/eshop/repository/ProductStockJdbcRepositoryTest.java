@@ -0,0 +1,176 @@
+package com.example.eshop.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductStockJdbcRepositoryTest {
+
+    private static final long HOT_PRODUCT_ID = 1L;
+    private static final long SIDE_PRODUCT_ID = 2L;
+    private static final long INACTIVE_PRODUCT_ID = 3L;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ProductStockJdbcRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:stock-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=30000");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        repository = new ProductStockJdbcRepository(jdbcTemplate);
+
+        jdbcTemplate.execute("CREATE TABLE products (" +
+                "product_id BIGINT PRIMARY KEY, " +
+                "stock INT NOT NULL, " +
+                "reserved_stock INT NOT NULL DEFAULT 0, " +
+                "is_active BOOLEAN NOT NULL)");
+        insertProduct(HOT_PRODUCT_ID, 100, true);
+        insertProduct(SIDE_PRODUCT_ID, 10_000, true);
+        insertProduct(INACTIVE_PRODUCT_ID, 50, false);
+    }
+
+    @Test
+    void reserveStockAll_shouldReserveWholeCart() {
+        List<Long> rejected = repository.reserveStockAll(Map.of(HOT_PRODUCT_ID, 3, SIDE_PRODUCT_ID, 5));
+
+        assertTrue(rejected.isEmpty());
+        assertEquals(97, repository.findAvailableStock(HOT_PRODUCT_ID));
+        assertEquals(9_995, repository.findAvailableStock(SIDE_PRODUCT_ID));
+        assertEquals(100, stockOf(HOT_PRODUCT_ID));
+    }
+
+    @Test
+    void reserveStockAll_shouldReserveNothingWhenOneProductFallsShort() {
+        List<Long> rejected = repository.reserveStockAll(Map.of(HOT_PRODUCT_ID, 101, SIDE_PRODUCT_ID, 5));
+
+        assertEquals(List.of(HOT_PRODUCT_ID), rejected);
+        assertEquals(100, repository.findAvailableStock(HOT_PRODUCT_ID));
+        assertEquals(10_000, repository.findAvailableStock(SIDE_PRODUCT_ID));
+    }
+
+    @Test
+    void reserveStockAll_shouldRejectInactiveProduct() {
+        List<Long> rejected = repository.reserveStockAll(Map.of(INACTIVE_PRODUCT_ID, 1, SIDE_PRODUCT_ID, 1));
+
+        assertEquals(List.of(INACTIVE_PRODUCT_ID), rejected);
+        assertEquals(50, repository.findAvailableStock(INACTIVE_PRODUCT_ID));
+        assertEquals(10_000, repository.findAvailableStock(SIDE_PRODUCT_ID));
+    }
+
+    @Test
+    void commitReservedStockAll_shouldMoveReservedUnitsOutOfStock() {
+        repository.reserveStockAll(Map.of(HOT_PRODUCT_ID, 4));
+
+        repository.commitReservedStockAll(Map.of(HOT_PRODUCT_ID, 4));
+
+        assertEquals(96, stockOf(HOT_PRODUCT_ID));
+        assertEquals(96, repository.findAvailableStock(HOT_PRODUCT_ID));
+    }
+
+    @Test
+    void releaseReservedStockAll_shouldGiveUnitsBack() {
+        repository.reserveStockAll(Map.of(HOT_PRODUCT_ID, 4));
+
+        repository.releaseReservedStockAll(Map.of(HOT_PRODUCT_ID, 4));
+
+        assertEquals(100, stockOf(HOT_PRODUCT_ID));
+        assertEquals(100, repository.findAvailableStock(HOT_PRODUCT_ID));
+    }
+
+    @Test
+    void decrementAvailableStockAll_shouldNotTakeReservedUnits() {
+        repository.reserveStockAll(Map.of(HOT_PRODUCT_ID, 98));
+
+        List<Long> rejected = repository.decrementAvailableStockAll(Map.of(HOT_PRODUCT_ID, 3, SIDE_PRODUCT_ID, 1));
+
+        assertEquals(List.of(HOT_PRODUCT_ID), rejected);
+        assertEquals(100, stockOf(HOT_PRODUCT_ID));
+        assertEquals(10_000, stockOf(SIDE_PRODUCT_ID));
+    }
+
+    @Test
+    void reconcileReservedStockAll_shouldResetDriftToActiveReservations() {
+        jdbcTemplate.execute("CREATE TABLE stock_reservations (" +
+                "reservation_id BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+                "product_id BIGINT NOT NULL, " +
+                "quantity INT NOT NULL, " +
+                "status VARCHAR(20) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO stock_reservations (product_id, quantity, status) VALUES " +
+                "(1, 3, 'ACTIVE'), (1, 2, 'ACTIVE'), (1, 7, 'EXPIRED'), (2, 4, 'ACTIVE')");
+        // Product 1 leaked units reserved without ledger rows, product 3 holds units nothing reserves
+        repository.reserveStockAll(Map.of(HOT_PRODUCT_ID, 9, SIDE_PRODUCT_ID, 4));
+        jdbcTemplate.update("UPDATE products SET reserved_stock = 6 WHERE product_id = ?", INACTIVE_PRODUCT_ID);
+
+        List<Long> drifted = repository.findReservedStockDrift();
+        assertEquals(List.of(HOT_PRODUCT_ID, INACTIVE_PRODUCT_ID), drifted.stream().sorted().toList());
+
+        assertEquals(List.of(HOT_PRODUCT_ID, INACTIVE_PRODUCT_ID), repository.reconcileReservedStockAll(drifted));
+        assertEquals(95, repository.findAvailableStock(HOT_PRODUCT_ID));
+        assertEquals(9_996, repository.findAvailableStock(SIDE_PRODUCT_ID));
+        assertEquals(50, repository.findAvailableStock(INACTIVE_PRODUCT_ID));
+        assertTrue(repository.findReservedStockDrift().isEmpty());
+    }
+
+    @Test
+    void concurrentCheckouts_shouldNeverOversell() throws Exception {
+        int checkouts = 400;
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch startGate = new CountDownLatch(1);
+        AtomicInteger reservedHotUnits = new AtomicInteger();
+        AtomicInteger successfulCheckouts = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < checkouts; i++) {
+            int quantity = 1 + (i % 3);
+            futures.add(executor.submit(() -> {
+                startGate.await();
+                List<Long> rejected = transactionTemplate.execute(status ->
+                        repository.reserveStockAll(Map.of(HOT_PRODUCT_ID, quantity, SIDE_PRODUCT_ID, 1)));
+                if (rejected.isEmpty()) {
+                    reservedHotUnits.addAndGet(quantity);
+                    successfulCheckouts.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        startGate.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int hotStock = repository.findAvailableStock(HOT_PRODUCT_ID);
+        int sideStock = repository.findAvailableStock(SIDE_PRODUCT_ID);
+
+        assertTrue(hotStock >= 0, "Stock went negative: " + hotStock);
+        assertTrue(successfulCheckouts.get() < checkouts, "Demand should exceed the available stock");
+        assertEquals(100 - reservedHotUnits.get(), hotStock);
+        // Rejected carts must not keep the units of the other product they contained
+        assertEquals(10_000 - successfulCheckouts.get(), sideStock);
+        assertEquals(100, stockOf(HOT_PRODUCT_ID));
+    }
+
+    private void insertProduct(long productId, int stock, boolean active) {
+        jdbcTemplate.update("INSERT INTO products (product_id, stock, is_active) VALUES (?, ?, ?)",
+                productId, stock, active);
+    }
+
+    private int stockOf(long productId) {
+        return jdbcTemplate.queryForObject("SELECT stock FROM products WHERE product_id = ?", Integer.class, productId);
+    }
+}
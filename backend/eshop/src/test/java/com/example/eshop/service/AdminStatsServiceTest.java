@@ -0,0 +1,107 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Order;
+import com.example.eshop.model.dto.business.AdminStatsDto;
+import com.example.eshop.model.dto.business.OrderStatusTotal;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import com.example.eshop.repository.interfaces.UserJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdminStatsServiceTest {
+
+    private UserJpaRepository userRepo;
+    private ProductJpaRepository productRepo;
+    private CategoryJpaRepository categoryRepo;
+    private OrderJpaRepository orderRepo;
+    private AdminStatsService adminStatsService;
+
+    @BeforeEach
+    void setUp() {
+        userRepo = mock(UserJpaRepository.class);
+        productRepo = mock(ProductJpaRepository.class);
+        categoryRepo = mock(CategoryJpaRepository.class);
+        orderRepo = mock(OrderJpaRepository.class);
+        adminStatsService = new AdminStatsService(userRepo, productRepo, categoryRepo, orderRepo);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void writes_shouldMoveCountersAndPaidRevenue() {
+        adminStatsService.userCreated();
+        adminStatsService.productCreated(true);
+        adminStatsService.productCreated(false);
+        adminStatsService.productActiveChanged(true, false);
+        adminStatsService.categoryCreated();
+        adminStatsService.orderPlaced(Order.OrderStatus.PENDING, new BigDecimal("40.25"));
+        adminStatsService.orderStatusChanged(Order.OrderStatus.PENDING, Order.OrderStatus.PROCESSING, new BigDecimal("40.25"));
+        adminStatsService.orderPlaced(Order.OrderStatus.PROCESSING, new BigDecimal("10.00"));
+        adminStatsService.orderStatusChanged(Order.OrderStatus.PROCESSING, Order.OrderStatus.CANCELLED, new BigDecimal("10.00"));
+
+        AdminStatsDto stats = adminStatsService.getStats();
+
+        assertEquals(1, stats.users());
+        assertEquals(2, stats.products());
+        assertEquals(0, stats.activeProducts());
+        assertEquals(1, stats.categories());
+        assertEquals(0, stats.ordersByStatus().get("PENDING"));
+        assertEquals(1, stats.ordersByStatus().get("PROCESSING"));
+        assertEquals(1, stats.ordersByStatus().get("CANCELLED"));
+        assertEquals(new BigDecimal("40.25"), stats.revenue());
+    }
+
+    @Test
+    void writes_shouldOnlyCountOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        adminStatsService.userCreated();
+        adminStatsService.categoryCreated();
+        assertEquals(0, adminStatsService.getStats().users());
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.get(0).afterCommit();
+
+        assertEquals(1, adminStatsService.getStats().users());
+        assertEquals(0, adminStatsService.getStats().categories());
+    }
+
+    @Test
+    void reconcile_shouldResetCountersFromTheDatabaseAndReportDrift() {
+        adminStatsService.userCreated();
+        when(userRepo.count()).thenReturn(3L);
+        when(productRepo.count()).thenReturn(5L);
+        when(productRepo.countByIsActiveTrue()).thenReturn(4L);
+        when(categoryRepo.count()).thenReturn(2L);
+        when(orderRepo.findStatusTotals()).thenReturn(List.of(
+                new OrderStatusTotal(Order.OrderStatus.DELIVERED, 2L, new BigDecimal("99.90")),
+                new OrderStatusTotal(Order.OrderStatus.PENDING, 1L, new BigDecimal("5.00"))));
+
+        adminStatsService.reconcile();
+        AdminStatsDto stats = adminStatsService.getStats();
+
+        assertEquals(3, stats.users());
+        assertEquals(4, stats.activeProducts());
+        assertEquals(2, stats.ordersByStatus().get("DELIVERED"));
+        assertEquals(1, stats.ordersByStatus().get("PENDING"));
+        assertEquals(new BigDecimal("99.90"), stats.revenue());
+        assertEquals(2 + 5 + 4 + 2 + 2 + 1, stats.lastReconcileDrift());
+        assertNotNull(stats.lastReconciledAt());
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.CartItemNotFoundException;
+import com.example.eshop.exception.CartVersionMismatchException;
+import com.example.eshop.exception.InsufficientProductStockException;
+import com.example.eshop.model.Category;
+import com.example.eshop.model.Product;
+import com.example.eshop.model.User;
+import com.example.eshop.model.common.Role;
+import com.example.eshop.model.common.UserStatus;
+import com.example.eshop.model.dto.business.AddToCartRequest;
+import com.example.eshop.model.dto.business.CartItemDto;
+import com.example.eshop.model.dto.business.CartOperation;
+import com.example.eshop.model.dto.business.CartSummaryDto;
+import com.example.eshop.model.dto.business.UserCartDto;
+import com.example.eshop.repository.CartItemJdbcRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The upserts need H2's MySQL mode, so the configured database is kept
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({CartService.class, CartItemJdbcRepository.class, CartWriteBehindStore.class, CartSummaryCache.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:cart-service;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CartServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartItemJdbcRepository cartItemJdbcRepo;
+
+    @Autowired
+    private CartSummaryCache cartSummaryCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User customer;
+    private Product phone;
+    private Product charger;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setCategoryName("Phones");
+        category.setSlug("phones");
+        entityManager.persist(category);
+        phone = entityManager.persist(product(category, "Phone", 5));
+        charger = entityManager.persist(product(category, "Charger", 50));
+        customer = entityManager.persist(User.builder()
+                .email("customer@example.com")
+                .hashedPassword("hash")
+                .firstName("First")
+                .lastName("Last")
+                .phoneNumber("0123456789")
+                .role(Role.CUSTOMER)
+                .status(UserStatus.ACTIVE)
+                .build());
+        entityManager.flush();
+        cartItemJdbcRepo.addQuantity(customer.getId(), charger.getProductId(), 1);
+        entityManager.clear();
+    }
+
+    @Test
+    void applyOperations_shouldApplyAllInOrderAndReturnTheCart() {
+        UserCartDto cart = cartService.applyOperations(customer.getId(), List.of(
+                operation(CartOperation.Type.ADD, phone.getProductId(), 2),
+                operation(CartOperation.Type.ADD, phone.getProductId(), 1),
+                operation(CartOperation.Type.SET, charger.getProductId(), 10),
+                operation(CartOperation.Type.REMOVE, charger.getProductId(), null)), null);
+
+        assertEquals(Map.of(phone.getProductId(), 3), cartItemJdbcRepo.findQuantities(customer.getId()));
+        assertEquals(List.of(3), cart.items().stream().map(CartItemDto::quantity).toList());
+    }
+
+    @Test
+    void applyOperations_shouldChangeNothingWhenOneOperationFails() {
+        List<CartOperation> overStock = List.of(
+                operation(CartOperation.Type.SET, charger.getProductId(), 2),
+                operation(CartOperation.Type.ADD, phone.getProductId(), 6));
+        List<CartOperation> notInCart = List.of(
+                operation(CartOperation.Type.CLEAR, null, null),
+                operation(CartOperation.Type.SET, charger.getProductId(), 2));
+
+        assertThrows(InsufficientProductStockException.class,
+                () -> cartService.applyOperations(customer.getId(), overStock, null));
+        assertThrows(CartItemNotFoundException.class,
+                () -> cartService.applyOperations(customer.getId(), notInCart, null));
+
+        assertEquals(Map.of(charger.getProductId(), 1), cartItemJdbcRepo.findQuantities(customer.getId()));
+    }
+
+    @Test
+    void getUserCart_shouldReadItemsProductsAndCategoriesInOneQuery() {
+        cartItemJdbcRepo.addQuantity(customer.getId(), phone.getProductId(), 2);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        UserCartDto cart = cartService.getUserCart(customer.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(List.of("Charger", "Phone"), cart.items().stream().map(item -> item.product().name()).toList());
+        assertEquals(List.of("Phones", "Phones"), cart.items().stream().map(item -> item.product().categoryName()).toList());
+        assertEquals(new BigDecimal("30.00"), cart.totalPrice());
+    }
+
+    @Test
+    void getCartSummary_shouldBeCachedUntilTheCartOrOneOfItsProductsChanges() {
+        CartSummaryDto summary = cartService.getCartSummary(customer.getId());
+        assertEquals(new CartSummaryDto(1, 1, new BigDecimal("10.00"), true, List.of()), summary);
+
+        cartItemJdbcRepo.setQuantity(customer.getId(), charger.getProductId(), 3);
+        assertSame(summary, cartService.getCartSummary(customer.getId()));
+
+        cartService.addItemToCart(customer.getId(), new AddToCartRequest(phone.getProductId(), 5), null);
+        assertEquals(new CartSummaryDto(2, 8, new BigDecimal("80.00"), true, List.of()),
+                cartService.getCartSummary(customer.getId()));
+
+        // A checkout reserved the last phones meanwhile
+        entityManager.getEntityManager()
+                .createNativeQuery("UPDATE products SET reserved_stock = 1 WHERE product_id = " + phone.getProductId())
+                .executeUpdate();
+        cartSummaryCache.onStockChanged(new ProductStockChangedEvent(Set.of(phone.getProductId() + 100)));
+        assertTrue(cartService.getCartSummary(customer.getId()).allAvailable());
+
+        cartSummaryCache.onStockChanged(new ProductStockChangedEvent(Set.of(phone.getProductId())));
+        assertEquals(new CartSummaryDto(2, 8, new BigDecimal("80.00"), false, List.of(phone.getProductId())),
+                cartService.getCartSummary(customer.getId()));
+    }
+
+    @Test
+    void edits_shouldBumpTheCartVersionAndBeRejectedAgainstAnOutdatedOne() {
+        long version = cartService.getUserCart(customer.getId()).version();
+
+        long edited = cartService.updateCartItem(customer.getId(), charger.getProductId(), 2, version);
+        assertEquals(version + 1, edited);
+        assertEquals(edited, cartService.getCartVersion(customer.getId()));
+
+        // A second tab still holding the first version
+        CartVersionMismatchException mismatch = assertThrows(CartVersionMismatchException.class,
+                () -> cartService.removeCartItem(customer.getId(), charger.getProductId(), version));
+        assertEquals(edited, mismatch.getCurrentVersion());
+
+        UserCartDto cart = cartService.applyOperations(customer.getId(),
+                List.of(operation(CartOperation.Type.CLEAR, null, null)), edited);
+        assertEquals(edited + 1, cart.version());
+        assertEquals(List.of(), cart.items());
+    }
+
+    @Test
+    void applyOperations_shouldKeepTheVersionWhenNothingChanges() {
+        long version = cartService.getCartVersion(customer.getId());
+
+        UserCartDto cart = cartService.applyOperations(customer.getId(), List.of(
+                operation(CartOperation.Type.SET, charger.getProductId(), 1)), version);
+
+        assertEquals(version, cart.version());
+        assertEquals(version, cartService.getCartVersion(customer.getId()));
+    }
+
+    private static CartOperation operation(CartOperation.Type type, Long productId, Integer quantity) {
+        return new CartOperation(type, productId, quantity);
+    }
+
+    private static Product product(Category category, String name, int stock) {
+        return Product.builder()
+                .category(category)
+                .productName(name)
+                .description(name)
+                .price(BigDecimal.TEN)
+                .stock(stock)
+                .build();
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.CartVersionMismatchException;
+import com.example.eshop.repository.CartItemJdbcRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class CartWriteBehindStoreTest {
+
+    private static final long USER_ID = 7L;
+    private static final long OTHER_USER_ID = 8L;
+    private static final long PHONE_ID = 1L;
+    private static final long CHARGER_ID = 2L;
+    private static final long MISSING_PRODUCT_ID = 99L;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private CartItemJdbcRepository repository;
+    private CartWriteBehindStore store;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:cart-store-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        repository = spy(new CartItemJdbcRepository(jdbcTemplate));
+        store = newStore();
+
+        jdbcTemplate.execute("CREATE TABLE users (user_id BIGINT PRIMARY KEY, cart_version BIGINT NOT NULL DEFAULT 0)");
+        jdbcTemplate.execute("CREATE TABLE products (product_id BIGINT PRIMARY KEY)");
+        jdbcTemplate.execute("CREATE TABLE cart_items (" +
+                "cart_item_id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+                "user_id BIGINT NOT NULL, " +
+                "product_id BIGINT NOT NULL REFERENCES products (product_id), " +
+                "quantity INT NOT NULL, " +
+                "added_at TIMESTAMP NOT NULL, " +
+                "updated_at TIMESTAMP NOT NULL, " +
+                "UNIQUE (user_id, product_id))");
+        jdbcTemplate.update("INSERT INTO users (user_id) VALUES (?), (?)", USER_ID, OTHER_USER_ID);
+        jdbcTemplate.update("INSERT INTO products (product_id) VALUES (?), (?)", PHONE_ID, CHARGER_ID);
+    }
+
+    @Test
+    void compute_shouldCoalesceEditsIntoOneWritePerItem() {
+        store.compute(USER_ID, PHONE_ID, null, current -> current + 1);
+        store.compute(USER_ID, PHONE_ID, null, current -> current + 2);
+        store.compute(USER_ID, CHARGER_ID, null, current -> 4);
+        store.compute(USER_ID, CHARGER_ID, null, current -> 0);
+
+        assertEquals(Map.of(), repository.findQuantities(USER_ID));
+
+        store.flushAll();
+
+        assertEquals(Map.of(PHONE_ID, 3), repository.findQuantities(USER_ID));
+        verify(repository, times(1)).writeQuantities(anyList());
+    }
+
+    @Test
+    void compute_shouldStartFromTheSavedCartAndLeaveItUnchangedWhenRejected() {
+        jdbcTemplate.update("INSERT INTO cart_items (user_id, product_id, quantity, added_at, updated_at) " +
+                "VALUES (?, ?, 5, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", USER_ID, PHONE_ID);
+
+        store.compute(USER_ID, PHONE_ID, null, current -> current + 1);
+        store.flush(USER_ID);
+        assertEquals(Map.of(PHONE_ID, 6), repository.findQuantities(USER_ID));
+        assertThrows(IllegalStateException.class, () -> store.compute(USER_ID, PHONE_ID, null, current -> {
+            throw new IllegalStateException("Out of stock");
+        }));
+        store.clear(USER_ID, null);
+        store.compute(USER_ID, CHARGER_ID, null, current -> current + 1);
+        store.flush(USER_ID);
+
+        assertEquals(Map.of(CHARGER_ID, 1), repository.findQuantities(USER_ID));
+    }
+
+    @Test
+    void crash_shouldOnlyLoseEditsMadeSinceTheLastFlush() {
+        store.compute(USER_ID, PHONE_ID, null, current -> 2);
+        store.flushAll();
+        store.compute(USER_ID, PHONE_ID, null, current -> 9);
+        store.compute(USER_ID, CHARGER_ID, null, current -> 1);
+
+        // A restarted instance only sees what was flushed, item by item at a quantity the user chose
+        CartWriteBehindStore restarted = newStore();
+        restarted.compute(USER_ID, PHONE_ID, null, current -> {
+            assertEquals(2, current);
+            return current;
+        });
+        assertEquals(Map.of(PHONE_ID, 2), repository.findQuantities(USER_ID));
+    }
+
+    @Test
+    void flush_shouldKeepEditsPendingWhenTheWriteFailsAndRetryThem() {
+        store.compute(USER_ID, PHONE_ID, null, current -> 2);
+        doThrow(new DataAccessResourceFailureException("Database down"))
+                .doCallRealMethod()
+                .when(repository).writeQuantities(anyList());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> store.flush(USER_ID));
+        assertEquals(Map.of(), repository.findQuantities(USER_ID));
+
+        store.compute(USER_ID, PHONE_ID, null, current -> current + 1);
+        store.flushAll();
+
+        assertEquals(Map.of(PHONE_ID, 3), repository.findQuantities(USER_ID));
+    }
+
+    @Test
+    void flush_shouldDiscardOnlyTheCartThatCanNoLongerBeWritten() {
+        store.compute(USER_ID, MISSING_PRODUCT_ID, null, current -> 1);
+        store.compute(OTHER_USER_ID, PHONE_ID, null, current -> 1);
+
+        store.flushAll();
+
+        assertEquals(Map.of(PHONE_ID, 1), repository.findQuantities(OTHER_USER_ID));
+        // Reloaded from the database on the next edit
+        store.compute(USER_ID, PHONE_ID, null, current -> current + 1);
+        store.flushAll();
+        assertEquals(Map.of(PHONE_ID, 1), repository.findQuantities(USER_ID));
+    }
+
+    @Test
+    void cart_shouldFlushTheLeastRecentlyUsedCartBeforeEvictingIt() {
+        ReflectionTestUtils.setField(store, "maxCarts", 1);
+
+        store.compute(USER_ID, PHONE_ID, null, current -> 2);
+        store.compute(OTHER_USER_ID, PHONE_ID, null, current -> 1);
+
+        assertEquals(Map.of(PHONE_ID, 2), repository.findQuantities(USER_ID));
+        assertEquals(Map.of(), repository.findQuantities(OTHER_USER_ID));
+    }
+
+    @Test
+    void compute_shouldCountVersionsAndRejectEditsOfAnOutdatedCart() {
+        jdbcTemplate.update("UPDATE users SET cart_version = 4 WHERE user_id = ?", USER_ID);
+
+        assertEquals(5, store.compute(USER_ID, PHONE_ID, 4L, current -> 1));
+        // Changing nothing keeps the version
+        assertEquals(5, store.compute(USER_ID, PHONE_ID, null, current -> current));
+        CartVersionMismatchException mismatch = assertThrows(CartVersionMismatchException.class,
+                () -> store.compute(USER_ID, PHONE_ID, 4L, current -> current + 1));
+        assertEquals(5, mismatch.getCurrentVersion());
+        assertEquals(5, store.version(USER_ID));
+
+        // Only the reserved block is written, the quantities wait for the flush
+        assertEquals(Optional.of(104L), repository.findCartVersion(USER_ID));
+        assertEquals(Map.of(), repository.findQuantities(USER_ID));
+    }
+
+    @Test
+    void compute_shouldOnlyWriteTheVersionWhenTheReservedBlockIsUsedUp() {
+        ReflectionTestUtils.setField(store, "versionBlockSize", 2);
+
+        assertEquals(1, store.compute(USER_ID, PHONE_ID, null, current -> 1));
+        assertEquals(2, store.compute(USER_ID, PHONE_ID, null, current -> 2));
+        assertEquals(Optional.of(2L), repository.findCartVersion(USER_ID));
+        assertEquals(3, store.compute(USER_ID, PHONE_ID, null, current -> 3));
+
+        assertEquals(Optional.of(4L), repository.findCartVersion(USER_ID));
+        verify(repository, times(2)).reserveCartVersions(USER_ID, 2);
+    }
+
+    @Test
+    void crash_shouldNeverReuseTheVersionOfALostEdit() {
+        long lost = store.compute(USER_ID, PHONE_ID, null, current -> 3);
+
+        CartWriteBehindStore restarted = newStore();
+        long reloaded = restarted.version(USER_ID);
+        assertTrue(reloaded > lost);
+        assertThrows(CartVersionMismatchException.class,
+                () -> restarted.compute(USER_ID, PHONE_ID, lost, current -> 1));
+        assertTrue(restarted.compute(USER_ID, PHONE_ID, null, current -> 1) > reloaded);
+    }
+
+    @Test
+    void shutdown_shouldWriteTheCartsAndGiveBackTheirUnusedVersions() {
+        long version = store.compute(USER_ID, PHONE_ID, null, current -> 2);
+
+        store.shutdown();
+
+        assertEquals(Optional.of(version), repository.findCartVersion(USER_ID));
+        assertEquals(Map.of(PHONE_ID, 2), repository.findQuantities(USER_ID));
+        CartWriteBehindStore restarted = newStore();
+        assertEquals(version + 1, restarted.compute(USER_ID, PHONE_ID, version, current -> 1));
+    }
+
+    private CartWriteBehindStore newStore() {
+        return new CartWriteBehindStore(repository, transactionManager);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.Product;
+import com.example.eshop.model.dto.business.CategorySummaryDto;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(CategoryRegistry.class)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:category-registry;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class CategoryRegistryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CategoryRegistry categoryRegistry;
+
+    private Category phones;
+    private Category laptops;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        phones = persistCategory("Phones");
+        laptops = persistCategory("laptops");
+        persistCategory("Tablets");
+        for (int i = 0; i < 3; i++) {
+            persistProduct(phones, "Phone " + i);
+        }
+        persistProduct(laptops, "Laptop");
+        entityManager.flush();
+        entityManager.clear();
+        // The registry outlives the rolled back data of earlier tests
+        ReflectionTestUtils.setField(categoryRegistry, "categories", null);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getAll_shouldLoadCountsInOneQueryAndServeLaterReadsFromMemory() {
+        List<CategorySummaryDto> first = categoryRegistry.getAll();
+        List<CategorySummaryDto> second = categoryRegistry.getAll();
+
+        assertEquals(List.of("laptops", "Phones", "Tablets"), first.stream().map(CategorySummaryDto::name).toList());
+        assertEquals(List.of(1L, 3L, 0L), first.stream().map(CategorySummaryDto::productCount).toList());
+        assertEquals(first, second);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void onCatalogChanged_shouldRecountOnlyTouchedCategories() {
+        categoryRegistry.getAll();
+        Product moved = persistProduct(laptops, "Laptop 2");
+        entityManager.flush();
+        statistics.clear();
+
+        categoryRegistry.onCatalogChanged(ProductCatalogChangedEvent.product(moved.getProductId(), laptops.getId()));
+
+        assertEquals(2L, categoryRegistry.find(laptops.getId()).orElseThrow().productCount());
+        assertEquals(3L, categoryRegistry.find(phones.getId()).orElseThrow().productCount());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void onCatalogChanged_shouldReloadAfterCategoryWrites() {
+        categoryRegistry.getAll();
+        persistCategory("Cameras");
+        entityManager.flush();
+
+        categoryRegistry.onCatalogChanged(ProductCatalogChangedEvent.allProducts());
+
+        assertEquals(4, categoryRegistry.getAll().size());
+        assertEquals("Cameras", categoryRegistry.getAll().get(0).name());
+    }
+
+    private Category persistCategory(String name) {
+        Category category = new Category();
+        category.setCategoryName(name);
+        category.setSlug(name.toLowerCase());
+        return entityManager.persist(category);
+    }
+
+    private Product persistProduct(Category category, String name) {
+        return entityManager.persist(Product.builder()
+                .category(category)
+                .productName(name)
+                .description(name)
+                .price(BigDecimal.TEN)
+                .stock(1)
+                .build());
+    }
+}
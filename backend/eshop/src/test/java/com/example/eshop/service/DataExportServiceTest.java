@@ -0,0 +1,152 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.Order;
+import com.example.eshop.model.OrderItem;
+import com.example.eshop.model.Product;
+import com.example.eshop.model.User;
+import com.example.eshop.model.common.Role;
+import com.example.eshop.model.common.UserStatus;
+import com.example.eshop.repository.ExportJdbcRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({DataExportService.class, ExportJdbcRepository.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:data-export;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.export.fetch-size=2"
+})
+class DataExportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataExportService dataExportService;
+
+    private Product phone;
+    private Product charger;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setCategoryName("Phones");
+        category.setSlug("phones");
+        entityManager.persist(category);
+
+        phone = entityManager.persist(product(category, "Phone \"X\"", "Fast, small\nand light", "199.99", true));
+        charger = entityManager.persist(product(category, "Charger", "USB-C", "9.50", false));
+
+        User customer = entityManager.persist(User.builder()
+                .email("customer@example.com")
+                .hashedPassword("hash")
+                .firstName("First")
+                .lastName("Last")
+                .phoneNumber("0123456789")
+                .role(Role.CUSTOMER)
+                .status(UserStatus.ACTIVE)
+                .build());
+        persistOrder(customer, "ORD-1", LocalDateTime.of(2026, 1, 1, 12, 0));
+        persistOrder(customer, "ORD-2", LocalDateTime.of(2026, 2, 1, 12, 0));
+        persistOrder(customer, "ORD-3", LocalDateTime.of(2026, 3, 1, 12, 0));
+        entityManager.clear();
+    }
+
+    @Test
+    void exportProducts_csv_shouldWriteHeaderAndQuoteSpecialFields() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = dataExportService.exportProducts(DataExportService.Format.CSV, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, rows);
+        assertEquals("product_id,name,description,price,stock,reserved_stock,category,image_url,active,created_at,updated_at",
+                lines.get(0));
+        assertTrue(lines.get(1).startsWith(phone.getProductId() + ",\"Phone \"\"X\"\"\",\"Fast, small"));
+        assertTrue(lines.get(2).startsWith("and light\",199.99,5,0,Phones,,true,"));
+        assertTrue(lines.get(3).startsWith(charger.getProductId() + ",Charger,USB-C,9.50,5,0,Phones,,false,"));
+    }
+
+    @Test
+    void exportProducts_ndjson_shouldKeepJsonTypes() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        dataExportService.exportProducts(DataExportService.Format.NDJSON, output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, lines.size());
+        JsonNode first = new ObjectMapper().readTree(lines.get(0));
+        assertEquals("Phone \"X\"", first.get("name").asText());
+        assertTrue(first.get("price").isNumber());
+        assertEquals(new BigDecimal("199.99"), first.get("price").decimalValue());
+        assertTrue(first.get("active").isBoolean());
+        assertTrue(first.get("image_url").isNull());
+        assertTrue(first.get("created_at").isTextual());
+    }
+
+    @Test
+    void exportOrdersAndItems_shouldOnlyIncludeOrdersPlacedInRange() {
+        ByteArrayOutputStream orders = new ByteArrayOutputStream();
+        ByteArrayOutputStream items = new ByteArrayOutputStream();
+        LocalDateTime from = LocalDateTime.of(2026, 2, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+        long orderRows = dataExportService.exportOrders(DataExportService.Format.CSV, from, to, orders);
+        long itemRows = dataExportService.exportOrderItems(DataExportService.Format.CSV, from, null, items);
+
+        assertEquals(1, orderRows);
+        assertTrue(orders.toString(StandardCharsets.UTF_8).lines().skip(1).allMatch(line -> line.contains(",ORD-2,")));
+        assertEquals(4, itemRows);
+        assertEquals(List.of("ORD-2", "ORD-2", "ORD-3", "ORD-3"), items.toString(StandardCharsets.UTF_8).lines()
+                .skip(1).map(line -> line.split(",")[2]).toList());
+    }
+
+    private Product product(Category category, String name, String description, String price, boolean active) {
+        return Product.builder()
+                .category(category)
+                .productName(name)
+                .description(description)
+                .price(new BigDecimal(price))
+                .stock(5)
+                .isActive(active)
+                .build();
+    }
+
+    private void persistOrder(User user, String orderNumber, LocalDateTime orderDate) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderNumber(orderNumber);
+        order.setOrderDate(orderDate);
+        order.setSubtotal(BigDecimal.valueOf(30));
+        order.setGrandTotal(BigDecimal.valueOf(30));
+        order.setShippingAddress("Street 1");
+        for (Product product : List.of(phone, charger)) {
+            OrderItem item = new OrderItem();
+            item.setProduct(product);
+            item.setQuantity(1);
+            item.setUnitPrice(BigDecimal.TEN);
+            item.setTotal(BigDecimal.TEN);
+            order.addOrderItem(item);
+        }
+        entityManager.persistAndFlush(order);
+    }
+}
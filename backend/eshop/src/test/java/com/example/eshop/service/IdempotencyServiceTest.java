@@ -0,0 +1,154 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.IdempotencyConflictException;
+import com.example.eshop.exception.IdempotencyStoreFullException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService();
+    }
+
+    @Test
+    void execute_shouldReplayStoredResponse() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String first = idempotencyService.execute("checkout", 1L, "key-1", null, () -> "order-" + calls.incrementAndGet());
+        String replay = idempotencyService.execute("checkout", 1L, "key-1", null, () -> "order-" + calls.incrementAndGet());
+
+        assertEquals("order-1", first);
+        assertEquals("order-1", replay);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_shouldScopeKeysPerUser() {
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute("checkout", 1L, "key-1", null, calls::incrementAndGet);
+        idempotencyService.execute("checkout", 2L, "key-1", null, calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_shouldRunEveryRequestWithoutKey() {
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute("checkout", 1L, null, null, calls::incrementAndGet);
+        idempotencyService.execute("checkout", 1L, null, null, calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_shouldRejectKeyReusedForAnotherPayload() {
+        idempotencyService.execute("complete", 1L, "key-1", "PAYPAL-1", () -> "done");
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> idempotencyService.execute("complete", 1L, "key-1", "PAYPAL-2", () -> "done"));
+    }
+
+    @Test
+    void execute_shouldForgetFailedRequest() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("checkout", 1L, "key-1", null,
+                () -> { throw new IllegalStateException("PayPal down"); }));
+
+        assertEquals("retried", idempotencyService.execute("checkout", 1L, "key-1", null, () -> "retried"));
+    }
+
+    @Test
+    void execute_shouldRunAgainAfterTtl() {
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ZERO);
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute("checkout", 1L, "key-1", null, calls::incrementAndGet);
+        idempotencyService.evictExpired();
+        idempotencyService.execute("checkout", 1L, "key-1", null, calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_shouldRejectNewKeysWhenFullInsteadOfSkippingDeduplication() {
+        ReflectionTestUtils.setField(idempotencyService, "maxEntries", 1);
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("checkout", 1L, "key-1", null, calls::incrementAndGet);
+
+        assertThrows(IdempotencyStoreFullException.class,
+                () -> idempotencyService.execute("checkout", 1L, "key-2", null, calls::incrementAndGet));
+        assertEquals(1, calls.get());
+        // Stored keys still replay
+        assertEquals(1, idempotencyService.execute("checkout", 1L, "key-1", null, calls::incrementAndGet));
+    }
+
+    @Test
+    void execute_shouldMakeRoomByEvictingExpiredEntriesWhenFull() {
+        ReflectionTestUtils.setField(idempotencyService, "maxEntries", 1);
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ZERO);
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("checkout", 1L, "key-1", null, calls::incrementAndGet);
+
+        idempotencyService.execute("checkout", 1L, "key-2", null, calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void execute_shouldRejectConcurrentDuplicatesInFlight() throws Exception {
+        int duplicates = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(duplicates);
+        CountDownLatch actionStarted = new CountDownLatch(1);
+        CountDownLatch releaseAction = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        Future<String> first = executor.submit(() -> idempotencyService.execute("checkout", 1L, "key-1", null, () -> {
+            calls.incrementAndGet();
+            actionStarted.countDown();
+            awaitQuietly(releaseAction);
+            return "order-1";
+        }));
+        assertTrue(actionStarted.await(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < duplicates - 1; i++) {
+            executor.submit(() -> {
+                try {
+                    idempotencyService.execute("checkout", 1L, "key-1", null, () -> "duplicate");
+                } catch (IdempotencyConflictException e) {
+                    conflicts.incrementAndGet();
+                }
+            }).get(10, TimeUnit.SECONDS);
+        }
+        releaseAction.countDown();
+
+        assertEquals("order-1", first.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertEquals(1, calls.get());
+        assertEquals(duplicates - 1, conflicts.get());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.eshop.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Insert rate of snowflake vs UUID order numbers into a unique order_number index.
+ * Not part of the regular build, run against a real database for meaningful numbers:
+ * mvn test -Dtest=OrderNumberInsertBenchmarkTest -Dbenchmark=true -Dbenchmark.rows=5000000
+ *   -Dbenchmark.url=jdbc:mysql://localhost:3306/bench -Dbenchmark.user=... -Dbenchmark.password=...
+ * Without benchmark.url it runs on in-memory H2.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderNumberInsertBenchmarkTest {
+
+    private static final int BATCH_SIZE = 1_000;
+
+    @Test
+    void compareInsertRates() {
+        int rows = Integer.getInteger("benchmark.rows", 2_000_000);
+
+        report("uuid", rows, new UuidOrderNumberGenerator());
+        report("snowflake", rows, new SnowflakeOrderNumberGenerator(1));
+    }
+
+    private void report(String name, int rows, OrderNumberGenerator generator) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource(name));
+        jdbcTemplate.execute("DROP TABLE IF EXISTS orders_bench_" + name);
+        jdbcTemplate.execute("CREATE TABLE orders_bench_" + name + " (" +
+                "order_id BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+                "order_number VARCHAR(50) NOT NULL UNIQUE)");
+
+        String sql = "INSERT INTO orders_bench_" + name + " (order_number) VALUES (?)";
+        long start = System.nanoTime();
+        long windowStart = start;
+        for (int inserted = 0; inserted < rows; inserted += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(new Object[]{generator.nextOrderNumber()});
+            }
+            jdbcTemplate.batchUpdate(sql, batch);
+
+            // Rate per million rows shows how it degrades as the index grows
+            if ((inserted + BATCH_SIZE) % 1_000_000 == 0) {
+                long now = System.nanoTime();
+                System.out.printf("%-9s rows %,d: %,.0f inserts/s%n", name, inserted + BATCH_SIZE,
+                        1_000_000 / ((now - windowStart) / 1e9));
+                windowStart = now;
+            }
+        }
+        System.out.printf("%-9s total %,d rows: %,.0f inserts/s%n", name, rows,
+                rows / ((System.nanoTime() - start) / 1e9));
+
+        jdbcTemplate.execute("DROP TABLE orders_bench_" + name);
+    }
+
+    private DriverManagerDataSource dataSource(String name) {
+        String url = System.getProperty("benchmark.url");
+        if (url == null) {
+            return new DriverManagerDataSource("jdbc:h2:mem:orders-bench-" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        }
+        return new DriverManagerDataSource(url,
+                System.getProperty("benchmark.user"), System.getProperty("benchmark.password"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.eshop.service;
+
+import com.example.eshop.exception.CheckoutFailException;
+import com.example.eshop.model.Order;
+import com.example.eshop.model.dto.business.PayPalOrderDetailDto;
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderServiceTest {
+
+    private static final long USER_ID = 7L;
+    private static final long ORDER_ID = 42L;
+    private static final String PAYPAL_ORDER_ID = "PAYPAL-1";
+
+    private PayPalService payPalService;
+    private OrderPlacementService orderPlacementService;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        payPalService = mock(PayPalService.class);
+        orderPlacementService = mock(OrderPlacementService.class);
+        orderService = new OrderService(mock(OrderJpaRepository.class), payPalService, mock(CartService.class),
+                mock(StockReservationService.class), orderPlacementService, mock(OrderSummaryService.class));
+
+        Order order = new Order();
+        order.setOrderId(ORDER_ID);
+        order.setOrderNumber("06JNYT7M40C7X");
+        when(orderPlacementService.placePendingOrder(USER_ID)).thenReturn(order);
+        when(payPalService.createPayPalOrder(order)).thenReturn(new PayPalOrderDetailDto(PAYPAL_ORDER_ID, "https://approve"));
+    }
+
+    @Test
+    void initializeCheckout_shouldAbandonPayPalOrderWhenAttachFails() {
+        when(orderPlacementService.attachPaypalOrderId(ORDER_ID, PAYPAL_ORDER_ID))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        assertThrows(CheckoutFailException.class, () -> orderService.initializeCheckout(USER_ID));
+
+        verify(orderPlacementService).abandonPaypalOrder(ORDER_ID, PAYPAL_ORDER_ID);
+    }
+
+    @Test
+    void initializeCheckout_shouldAbandonPayPalOrderWhenOrderLeftPending() {
+        when(orderPlacementService.attachPaypalOrderId(ORDER_ID, PAYPAL_ORDER_ID)).thenReturn(false);
+
+        assertThrows(CheckoutFailException.class, () -> orderService.initializeCheckout(USER_ID));
+
+        verify(orderPlacementService).abandonPaypalOrder(ORDER_ID, PAYPAL_ORDER_ID);
+    }
+}
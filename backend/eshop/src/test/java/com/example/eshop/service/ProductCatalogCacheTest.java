@@ -0,0 +1,128 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.dto.business.ProductCacheStats;
+import com.example.eshop.model.dto.business.ProductDto;
+import com.example.eshop.model.dto.business.ProductListDto;
+import com.example.eshop.service.ProductCatalogCache.CategoryPageKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductCatalogCacheTest {
+
+    private ProductCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCatalogCache();
+        ReflectionTestUtils.setField(cache, "maxProducts", 2);
+        ReflectionTestUtils.invokeMethod(cache, "init");
+    }
+
+    @Test
+    void getProduct_shouldLoadOnceAndCountHits() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+        ProductDto cached = cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cached.stockQuantity());
+        ProductCacheStats stats = productStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+    }
+
+    @Test
+    void getProduct_shouldEvictLeastRecentlyUsedWhenFull() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+        cache.getProduct(2L, () -> product(2L, loads.incrementAndGet()));
+        cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+
+        cache.getProduct(3L, () -> product(3L, loads.incrementAndGet()));
+        cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+        cache.getProduct(2L, () -> product(2L, loads.incrementAndGet()));
+
+        // Product 2 was the eldest access when 3 came in, 1 stayed cached
+        assertEquals(4, loads.get());
+        assertEquals(2, productStats().evictions());
+        assertEquals(2, productStats().size());
+    }
+
+    @Test
+    void getProduct_shouldReloadExpiredEntry() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttl", Duration.ofMillis(20));
+        ReflectionTestUtils.invokeMethod(cache, "init");
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+        Thread.sleep(40);
+        cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+
+        assertEquals(2, loads.get());
+        assertEquals(1, productStats().expirations());
+    }
+
+    @Test
+    void onCatalogChanged_shouldOnlyDropAffectedProductAndCategoryPages() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+        cache.getProduct(2L, () -> product(2L, loads.incrementAndGet()));
+        cache.getCategoryPage(new CategoryPageKey(10L, 20, "UNSORTED"), () -> page(loads.incrementAndGet()));
+        cache.getCategoryPage(new CategoryPageKey(20L, 20, "UNSORTED"), () -> page(loads.incrementAndGet()));
+        cache.getFeaturedProducts(() -> List.of(listItem(loads.incrementAndGet())));
+
+        cache.onCatalogChanged(ProductCatalogChangedEvent.product(1L, 10L, 10L));
+
+        cache.getProduct(1L, () -> product(1L, loads.incrementAndGet()));
+        cache.getProduct(2L, () -> product(2L, loads.incrementAndGet()));
+        cache.getCategoryPage(new CategoryPageKey(10L, 20, "UNSORTED"), () -> page(loads.incrementAndGet()));
+        cache.getCategoryPage(new CategoryPageKey(20L, 20, "UNSORTED"), () -> page(loads.incrementAndGet()));
+        cache.getFeaturedProducts(() -> List.of(listItem(loads.incrementAndGet())));
+
+        // Product 1, category 10 and the featured list reloaded
+        assertEquals(8, loads.get());
+    }
+
+    @Test
+    void getProduct_shouldNotStoreLoadThatRacedAnInvalidation() {
+        ProductDto stale = cache.getProduct(1L, () -> {
+            // Admin change commits while the old row is being read
+            cache.onCatalogChanged(ProductCatalogChangedEvent.product(1L, 10L));
+            return product(1L, 1);
+        });
+        ProductDto fresh = cache.getProduct(1L, () -> product(1L, 2));
+
+        assertEquals(1, stale.stockQuantity());
+        assertEquals(2, fresh.stockQuantity());
+    }
+
+    private ProductCacheStats productStats() {
+        return cache.getStats().stream()
+                .filter(stats -> stats.region().equals("products"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private ProductDto product(Long id, int stock) {
+        return new ProductDto(id, "Product " + id, "", BigDecimal.TEN, null, stock, 10L, "Phones", true);
+    }
+
+    private ProductListDto listItem(int stock) {
+        return new ProductListDto(1L, "Product 1", "", BigDecimal.TEN, null, stock, 10L, "Phones", true);
+    }
+
+    private Page<ProductListDto> page(int stock) {
+        return new PageImpl<>(List.of(listItem(stock)));
+    }
+}
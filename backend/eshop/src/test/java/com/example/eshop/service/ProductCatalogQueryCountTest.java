@@ -0,0 +1,161 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.Product;
+import com.example.eshop.model.dto.business.ProductDto;
+import com.example.eshop.model.dto.business.ProductFilter;
+import com.example.eshop.model.dto.business.ProductListDto;
+import com.example.eshop.model.dto.business.ProductSearchDocument;
+import com.example.eshop.repository.ProductFilterQueryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ProductService.class, ProductCatalogCache.class, ProductSearchIndex.class, ProductFilterQueryRepository.class,
+        ProductFacetIndex.class, ProductSuggestIndex.class, AdminStatsService.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-queries;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductCatalogQueryCountTest {
+
+    private static final int CATEGORIES = 5;
+    private static final int PRODUCTS_PER_CATEGORY = 10;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    private Statistics statistics;
+    private Category firstCategory;
+    private Long firstProductId;
+
+    @BeforeEach
+    void setUp() {
+        for (int c = 0; c < CATEGORIES; c++) {
+            Category category = new Category();
+            category.setCategoryName("Category " + c);
+            category.setSlug("category-" + c);
+            entityManager.persist(category);
+            if (c == 0) {
+                firstCategory = category;
+            }
+
+            for (int p = 0; p < PRODUCTS_PER_CATEGORY; p++) {
+                Product product = entityManager.persist(Product.builder()
+                        .category(category)
+                        .productName("Product " + c + "-" + p)
+                        .description("A long description ".repeat(50))
+                        .price(BigDecimal.valueOf(10 + p))
+                        .stock(10)
+                        .build());
+                if (firstProductId == null) {
+                    firstProductId = product.getProductId();
+                }
+            }
+        }
+        // Nothing may be served from the persistence context
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void getProductList_shouldReadRowsWithCategoriesInOneStatementPlusCount() {
+        Page<ProductListDto> page = productService.getProductList(PageRequest.of(0, 20, Sort.by("price")));
+
+        assertEquals(20, page.getNumberOfElements());
+        assertEquals(CATEGORIES * PRODUCTS_PER_CATEGORY, page.getTotalElements());
+        assertTrue(page.getContent().stream().allMatch(product -> product.categoryName() != null));
+        assertTrue(page.getContent().get(0).shortDescription().length() <= 120);
+        // One select for the rows and their categories, one for the total
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getProductsByCategory_shouldSkipCountAndCategoryLookupOnPartialPage() {
+        Page<ProductListDto> page = productService.getProductsByCategory(firstCategory.getId(), PageRequest.of(0, 20));
+
+        assertEquals(PRODUCTS_PER_CATEGORY, page.getNumberOfElements());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getFeaturedProducts_shouldUseOneStatement() {
+        List<ProductListDto> featured = productService.getFeaturedProducts();
+
+        assertEquals(8, featured.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getProductDtoById_shouldUseOneStatement() {
+        ProductDto product = productService.getProductDtoById(firstProductId);
+
+        assertEquals("Category 0", product.categoryName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void getProductDtos_shouldReadAdminPageInOneStatementPlusCount() {
+        Page<ProductDto> page = productService.getProductDtos(PageRequest.of(1, 20, Sort.by("id")));
+
+        assertEquals(20, page.getNumberOfElements());
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void getProducts_shouldFilterSearchHitsInSqlAndKeepRelevanceOrder() {
+        // Products are persisted category by category, ten each
+        Long nameMatch = firstProductId + 1;
+        Long descriptionMatch = firstProductId + 2;
+        Long otherCategoryMatch = firstProductId + PRODUCTS_PER_CATEGORY;
+        searchIndex.index(new ProductSearchDocument(descriptionMatch, "Desk", "Reading lamp", BigDecimal.ONE));
+        searchIndex.index(new ProductSearchDocument(nameMatch, "Lamp", "Lamp shade", BigDecimal.ONE));
+        searchIndex.index(new ProductSearchDocument(otherCategoryMatch, "Lamp", "Lamp shade", BigDecimal.ONE));
+        ProductSearchIndex indexTarget = AopTestUtils.getTargetObject(searchIndex);
+        ReflectionTestUtils.setField(indexTarget, "ready", true);
+
+        ProductFilter filter = new ProductFilter("lamp", Set.of(firstCategory.getId()), null, null, null, true);
+        Page<ProductListDto> page = productService.getProducts(filter, PageRequest.of(0, 20));
+
+        assertEquals(List.of(nameMatch, descriptionMatch), page.map(ProductListDto::id).getContent());
+        assertEquals(2, page.getTotalElements());
+        // Ids passing the filters, then the rows of the page
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.dto.business.ProductFacetCount;
+import com.example.eshop.model.dto.business.ProductFacetDocument;
+import com.example.eshop.model.dto.business.ProductFacetsDto;
+import com.example.eshop.model.dto.business.ProductFilter;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductFacetIndexTest {
+
+    private ProductJpaRepository productRepository;
+    private ProductFacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductJpaRepository.class);
+        facetIndex = new ProductFacetIndex(productRepository, mock(CategoryJpaRepository.class));
+        when(productRepository.findFacetDocumentPage(eq(0L), any())).thenReturn(List.of(
+                document(1L, 10L, "Phones", "49.99", 5, true),
+                document(2L, 10L, "Phones", "50.00", 0, true),
+                document(3L, 20L, "Laptops", "999.00", 2, true),
+                document(4L, 20L, "Laptops", "1500.00", 1, false)));
+        facetIndex.refresh();
+    }
+
+    @Test
+    void compute_shouldCountCategoriesPriceBucketsAndStockInOnePass() {
+        ProductFacetsDto facets = facetIndex.compute(filter(null, null, null, null), null);
+
+        assertTrue(facetIndex.isReady());
+        assertEquals(4, facets.total());
+        assertEquals(3, facets.inStock());
+        assertEquals(List.of(new ProductFacetsDto.CategoryCount(10L, "Phones", 2),
+                new ProductFacetsDto.CategoryCount(20L, "Laptops", 2)), facets.categories());
+        // 49.99 and 50.00 fall on either side of the first bound
+        assertEquals(List.of(1L, 1L, 0L, 0L, 1L, 1L),
+                facets.priceBuckets().stream().map(ProductFacetsDto.PriceBucket::count).toList());
+        assertEquals(BigDecimal.ZERO, facets.priceBuckets().get(0).from());
+        assertNull(facets.priceBuckets().get(5).to());
+    }
+
+    @Test
+    void compute_shouldApplyFiltersAndSearchIds() {
+        ProductFacetsDto filtered = facetIndex.compute(filter(Set.of(20L), new BigDecimal("999"), true, null), null);
+        ProductFacetsDto searched = facetIndex.compute(filter(null, null, null, true), List.of(2L, 3L, 99L));
+
+        assertEquals(1, filtered.total());
+        assertEquals(20L, filtered.categories().get(0).categoryId());
+        assertEquals(1, searched.total());
+        assertEquals(1, searched.inStock());
+    }
+
+    @Test
+    void onCatalogChanged_shouldUpdateAndRemoveProducts() {
+        when(productRepository.findFacetDocument(1L))
+                .thenReturn(Optional.of(document(1L, 20L, "Laptops", "300.00", 0, true)));
+        when(productRepository.findFacetDocument(4L)).thenReturn(Optional.empty());
+
+        facetIndex.onCatalogChanged(ProductCatalogChangedEvent.product(1L, 10L, 20L));
+        facetIndex.onCatalogChanged(ProductCatalogChangedEvent.product(4L, 20L));
+        ProductFacetsDto facets = facetIndex.compute(filter(null, null, null, null), null);
+
+        assertEquals(3, facetIndex.size());
+        assertEquals(1, facets.inStock());
+        assertEquals(List.of(new ProductFacetsDto.CategoryCount(20L, "Laptops", 2),
+                new ProductFacetsDto.CategoryCount(10L, "Phones", 1)), facets.categories());
+    }
+
+    @Test
+    void summarize_shouldFoldGroupedSqlRows() {
+        ProductFacetsDto facets = facetIndex.summarize(List.of(
+                new ProductFacetCount(10L, "Phones", 0, 1, 3L),
+                new ProductFacetCount(10L, "Phones", 1, 0, 2L),
+                new ProductFacetCount(20L, "Laptops", 5, 1, 4L)));
+
+        assertEquals(9, facets.total());
+        assertEquals(7, facets.inStock());
+        assertEquals(20L, facets.categories().get(1).categoryId());
+        assertEquals(4, facets.priceBuckets().get(5).count());
+    }
+
+    private static ProductFilter filter(Set<Long> categoryIds, BigDecimal minPrice, Boolean active, Boolean inStock) {
+        return new ProductFilter(null, categoryIds, minPrice, null, active, inStock);
+    }
+
+    private static ProductFacetDocument document(Long id, Long categoryId, String categoryName, String price,
+                                                 int available, boolean active) {
+        return new ProductFacetDocument(id, categoryId, categoryName, new BigDecimal(price), available, active);
+    }
+}
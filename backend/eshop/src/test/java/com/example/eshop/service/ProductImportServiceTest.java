@@ -0,0 +1,154 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.dto.business.ProductImportError;
+import com.example.eshop.model.dto.business.ProductImportStatus;
+import com.example.eshop.repository.ProductImportJdbcRepository;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Imports run on their own thread and commit per chunk, so the test data is committed too
+@DataJpaTest
+@Import({ProductImportService.class, ProductImportJdbcRepository.class, CategoryRegistry.class, AdminStatsService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-import;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "app.product-import.batch-size=2"
+})
+class ProductImportServiceTest {
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private CategoryJpaRepository categoryRepo;
+
+    @Autowired
+    private CategoryRegistry categoryRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Category phones;
+
+    @BeforeEach
+    void setUp() {
+        Category category = new Category();
+        category.setCategoryName("Phones");
+        category.setSlug("phones");
+        phones = categoryRepo.save(category);
+        ReflectionTestUtils.setField(categoryRegistry, "categories", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.update("DELETE FROM products");
+        jdbc.update("DELETE FROM categories");
+    }
+
+    @Test
+    void submit_csv_shouldImportValidRowsAndReportRejectedOnes() throws Exception {
+        String csv = """
+                name,description,price,stock,category,active
+                Phone A,"Fast, small",199.99,5,phones,
+                "Phone ""B\""\",Big,abc,3,Phones,true
+                Phone C,"Line one
+                line two",10,0,Tablets,no
+                Phone D,Cheap,9.5,7,PHONES,0
+                Phone E,Short row
+                Phone F,Spare,1,1,Phones,yes
+                """;
+
+        ProductImportStatus status = awaitFinished(submit(csv, "text/csv"));
+
+        assertEquals(ProductImportStatus.COMPLETED, status.state());
+        assertEquals(6, status.rowsRead());
+        assertEquals(3, status.imported());
+        assertEquals(3, status.failed());
+        assertEquals(List.of(3L, 4L, 7L), status.errors().stream().map(ProductImportError::row).toList());
+        assertTrue(status.errors().get(1).message().contains("unknown category 'Tablets'"));
+
+        assertEquals(List.of("Phone A", "Phone D", "Phone F"),
+                jdbc.queryForList("SELECT product_name FROM products ORDER BY product_name", String.class));
+        assertEquals("Fast, small", jdbc.queryForObject(
+                "SELECT description FROM products WHERE product_name = 'Phone A'", String.class));
+        assertEquals(0, new BigDecimal("9.50").compareTo(jdbc.queryForObject(
+                "SELECT price FROM products WHERE product_name = 'Phone D'", BigDecimal.class)));
+        assertFalse(jdbc.queryForObject(
+                "SELECT is_active FROM products WHERE product_name = 'Phone D'", Boolean.class));
+        assertEquals(List.of(phones.getCategoryId()),
+                jdbc.queryForList("SELECT DISTINCT category_id FROM products", Long.class));
+    }
+
+    @Test
+    void submit_ndjson_shouldImportObjectsPerLine() throws Exception {
+        String ndjson = """
+                {"name": "Phone A", "description": "A", "price": 5, "stock": 1, "category": "Phones"}
+
+                {"name": "Phone B", "description": "B", "price": -1, "stock": 1, "category": "Phones"}
+                not json
+                {"name": "Phone C", "description": "C", "price": "7.25", "stock": 2, "category": "phones", "active": false}
+                """;
+
+        ProductImportStatus status = awaitFinished(submit(ndjson, "application/x-ndjson"));
+
+        assertEquals(ProductImportStatus.COMPLETED, status.state());
+        assertEquals(4, status.rowsRead());
+        assertEquals(2, status.imported());
+        assertEquals(List.of(3L, 4L), status.errors().stream().map(ProductImportError::row).toList());
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM products", Integer.class));
+    }
+
+    @Test
+    void submit_csvWithoutRequiredColumns_shouldFailTheJob() throws Exception {
+        ProductImportStatus status = awaitFinished(submit("name,price\nPhone,1\n", "text/csv"));
+
+        assertEquals(ProductImportStatus.FAILED, status.state());
+        assertEquals("Missing columns: description, stock, category", status.failureReason());
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM products", Integer.class));
+    }
+
+    @Test
+    void submit_unsupportedContentType_shouldBeRejected() {
+        assertThrows(ResponseStatusException.class, () -> submit("{}", "application/json"));
+    }
+
+    private ProductImportStatus submit(String body, String contentType) {
+        return productImportService.submit(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                MediaType.parseMediaType(contentType), "products");
+    }
+
+    private ProductImportStatus awaitFinished(ProductImportStatus submitted) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ProductImportStatus status = productImportService.getStatus(submitted.jobId());
+            if (status.finishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(25);
+        }
+        fail("Import did not finish");
+        return null;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.dto.business.ProductSearchDocument;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Search latency of the in-process index vs the LIKE '%term%' query it replaced, page plus count.
+ * Not part of the regular build, run against a real database for meaningful numbers:
+ * mvn test -Dtest=ProductSearchBenchmarkTest -Dbenchmark=true -Dbenchmark.rows=1000000
+ *   -Dbenchmark.url=jdbc:mysql://localhost:3306/bench -Dbenchmark.user=... -Dbenchmark.password=...
+ * Without benchmark.url it runs on in-memory H2.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductSearchBenchmarkTest {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final String[] WORDS = {
+            "phone", "laptop", "wireless", "charger", "case", "screen", "galaxy", "ceramic", "mug", "camera",
+            "speaker", "bluetooth", "portable", "steel", "leather", "wallet", "gaming", "keyboard", "mouse", "monitor",
+            "cotton", "shirt", "running", "shoes", "kitchen", "knife", "garden", "lamp", "desk", "chair"
+    };
+    private static final String[] QUERIES = {"phone", "wireless charger", "gam", "leather wallet", "blue", "desk lamp"};
+    private static final int RUNS_PER_QUERY = 20;
+
+    @Test
+    void compareSearchLatency() {
+        int rows = Integer.getInteger("benchmark.rows", 1_000_000);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource());
+        ProductSearchIndex index = new ProductSearchIndex(mock(ProductJpaRepository.class));
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS products_bench");
+        jdbcTemplate.execute("CREATE TABLE products_bench (" +
+                "product_id BIGINT PRIMARY KEY, product_name VARCHAR(255) NOT NULL, description TEXT NOT NULL)");
+
+        Random random = new Random(42);
+        long indexNanos = 0;
+        for (int id = 1; id <= rows; id += BATCH_SIZE) {
+            List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = id; i < id + BATCH_SIZE && i <= rows; i++) {
+                String name = words(random, 3);
+                String description = words(random, 12);
+                batch.add(new Object[]{(long) i, name, description});
+
+                long start = System.nanoTime();
+                index.index(new ProductSearchDocument((long) i, name, description, BigDecimal.valueOf(i % 1000)));
+                indexNanos += System.nanoTime() - start;
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO products_bench VALUES (?, ?, ?)", batch);
+        }
+        System.out.printf("index built: %,d products, %,d terms in %,d ms%n",
+                index.size(), index.termCount(), indexNanos / 1_000_000);
+
+        String where = "UPPER(product_name) LIKE UPPER(CONCAT('%', ?, '%')) OR description LIKE CONCAT('%', ?, '%')";
+        for (String query : QUERIES) {
+            report("like", query, q -> {
+                jdbcTemplate.queryForList("SELECT product_id FROM products_bench WHERE " + where +
+                        " ORDER BY product_id LIMIT 20", Long.class, q, q);
+                jdbcTemplate.queryForObject("SELECT COUNT(*) FROM products_bench WHERE " + where, Long.class, q, q);
+            });
+            report("index", query, q -> index.search(q, PageRequest.of(0, 20)));
+        }
+
+        jdbcTemplate.execute("DROP TABLE products_bench");
+    }
+
+    private void report(String name, String query, Consumer<String> search) {
+        // Warm up
+        search.accept(query);
+        long[] nanos = new long[RUNS_PER_QUERY];
+        for (int i = 0; i < RUNS_PER_QUERY; i++) {
+            long start = System.nanoTime();
+            search.accept(query);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%-5s %-18s p50 %8.2f ms  p95 %8.2f ms%n", name, "\"" + query + "\"",
+                nanos[RUNS_PER_QUERY / 2] / 1e6, nanos[RUNS_PER_QUERY * 95 / 100] / 1e6);
+    }
+
+    private String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i > 0 ? " " : "").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    private DriverManagerDataSource dataSource() {
+        String url = System.getProperty("benchmark.url");
+        if (url == null) {
+            return new DriverManagerDataSource("jdbc:h2:mem:products-bench;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        }
+        return new DriverManagerDataSource(url,
+                System.getProperty("benchmark.user"), System.getProperty("benchmark.password"));
+    }
+}
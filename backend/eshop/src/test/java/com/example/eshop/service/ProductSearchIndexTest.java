@@ -0,0 +1,101 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.dto.business.ProductSearchDocument;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductSearchIndexTest {
+
+    private ProductJpaRepository productRepository;
+    private ProductSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductJpaRepository.class);
+        searchIndex = new ProductSearchIndex(productRepository);
+        searchIndex.index(document(1L, "Galaxy Phone", "Android smartphone with a large screen", "500"));
+        searchIndex.index(document(2L, "Phone Case", "Protective case for the Galaxy phone", "20"));
+        searchIndex.index(document(3L, "Laptop", "Thin laptop, pairs with your phone", "900"));
+        searchIndex.index(document(4L, "Café Mug", "Ceramic mug", "8"));
+    }
+
+    @Test
+    void search_shouldRequireEveryTokenAndRankNameMatchesFirst() {
+        Page<Long> galaxyPhone = searchIndex.search("galaxy phone", PageRequest.of(0, 10));
+        Page<Long> phone = searchIndex.search("PHONE", PageRequest.of(0, 10));
+
+        assertEquals(List.of(1L, 2L), galaxyPhone.getContent());
+        // The case names the phone twice, the laptop only mentions it in its description
+        assertEquals(List.of(2L, 1L, 3L), phone.getContent());
+        assertEquals(3, phone.getTotalElements());
+    }
+
+    @Test
+    void search_shouldMatchPrefixesIgnoringCaseAndAccents() {
+        assertEquals(List.of(3L), searchIndex.search("lap", PageRequest.of(0, 10)).getContent());
+        assertEquals(List.of(4L), searchIndex.search("cafe", PageRequest.of(0, 10)).getContent());
+        assertEquals(List.of(4L), searchIndex.search("CAFÉ m", PageRequest.of(0, 10)).getContent());
+        assertTrue(searchIndex.search("tablet", PageRequest.of(0, 10)).isEmpty());
+        assertTrue(searchIndex.search("  ,. ", PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void search_shouldPageAndSortByRequestedField() {
+        Pageable secondPage = PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "price"));
+
+        Page<Long> page = searchIndex.search("phone", secondPage);
+
+        assertEquals(List.of(2L), page.getContent());
+        assertEquals(3, page.getTotalElements());
+        assertEquals(2, page.getTotalPages());
+    }
+
+    @Test
+    void onCatalogChanged_shouldReindexOrDropProduct() {
+        when(productRepository.findSearchDocument(3L))
+                .thenReturn(Optional.of(document(3L, "Gaming Laptop", "Fast laptop", "1500")));
+        when(productRepository.findSearchDocument(2L)).thenReturn(Optional.empty());
+
+        searchIndex.onCatalogChanged(ProductCatalogChangedEvent.product(3L, 10L));
+        searchIndex.onCatalogChanged(ProductCatalogChangedEvent.product(2L, 10L));
+
+        assertEquals(List.of(1L), searchIndex.search("phone", PageRequest.of(0, 10)).getContent());
+        assertEquals(List.of(3L), searchIndex.search("gaming", PageRequest.of(0, 10)).getContent());
+        assertEquals(3, searchIndex.size());
+    }
+
+    @Test
+    void build_shouldReadProductsInKeysetPages() {
+        ProductSearchIndex index = new ProductSearchIndex(productRepository);
+        ReflectionTestUtils.setField(index, "buildBatchSize", 2);
+        when(productRepository.findSearchDocumentPage(eq(0L), any())).thenReturn(List.of(
+                document(1L, "Galaxy Phone", "", "500"), document(2L, "Phone Case", "", "20")));
+        when(productRepository.findSearchDocumentPage(eq(2L), any())).thenReturn(List.of(
+                document(3L, "Laptop", "", "900")));
+
+        assertFalse(index.isReady());
+        index.build();
+
+        assertTrue(index.isReady());
+        assertEquals(3, index.size());
+        assertEquals(List.of(1L, 2L), index.search("phone", PageRequest.of(0, 10)).getContent());
+    }
+
+    private ProductSearchDocument document(Long id, String name, String description, String price) {
+        return new ProductSearchDocument(id, name, description, new BigDecimal(price));
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.Product;
+import com.example.eshop.model.dto.business.ProductListDto;
+import com.example.eshop.model.dto.business.ProductScrollDto;
+import com.example.eshop.repository.ProductFilterQueryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({ProductService.class, ProductCatalogCache.class, ProductSearchIndex.class, ProductFilterQueryRepository.class,
+        ProductFacetIndex.class, ProductSuggestIndex.class, AdminStatsService.class})
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-scroll;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class ProductServiceScrollTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProductService productService;
+
+    private Category phones;
+    private final List<Product> products = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        phones = category("Phones", "phones");
+        Category laptops = category("Laptops", "laptops");
+
+        // Repeated prices and names, the product id has to break the ties
+        String[] names = {"Delta", "Alpha", "Charlie", "Alpha", "Bravo", "Echo", "Alpha"};
+        int[] prices = {10, 5, 5, 20, 5, 10, 1};
+        for (int i = 0; i < names.length; i++) {
+            products.add(product(phones, names[i], prices[i]));
+        }
+        products.add(product(laptops, "Alpha", 5));
+        products.add(product(laptops, "Zulu", 50));
+
+        // Cursors are made from rows as the database stores them
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void scrollProducts_shouldWalkEveryProductOnceInSortOrder() {
+        List<Long> expected = products.stream()
+                .sorted(Comparator.comparing(Product::getPrice).thenComparing(Product::getProductId))
+                .map(Product::getProductId)
+                .toList();
+
+        assertEquals(expected, walk(null, "price", Sort.Direction.ASC, 2));
+    }
+
+    @Test
+    void scrollProducts_shouldWalkCategoryDescending() {
+        List<Long> expected = products.stream()
+                .filter(product -> product.getCategory().getId().equals(phones.getId()))
+                .sorted(Comparator.comparing(Product::getProductName)
+                        .thenComparing(Product::getProductId)
+                        .reversed())
+                .map(Product::getProductId)
+                .toList();
+
+        assertEquals(expected, walk(phones.getId(), "name", Sort.Direction.DESC, 3));
+    }
+
+    @Test
+    void scrollProducts_shouldWalkByTimestampAndId() {
+        List<Long> walked = walk(null, "createdAt", Sort.Direction.ASC, 4);
+
+        assertEquals(products.size(), walked.size());
+        assertEquals(products.size(), walked.stream().distinct().count());
+    }
+
+    @Test
+    void scrollProducts_shouldScrollUpdatedAtByIdSinceStockChangesRewriteIt() {
+        List<Long> expected = products.stream().map(Product::getProductId).sorted().toList();
+
+        assertEquals(expected, walk(null, "updatedAt", Sort.Direction.ASC, 3));
+    }
+
+    @Test
+    void scrollProducts_shouldRejectCursorOfAnotherSortOrGarbage() {
+        String priceCursor = productService.scrollProducts(null, "price", Sort.Direction.ASC, null, 2).nextCursor();
+
+        ResponseStatusException otherSort = assertThrows(ResponseStatusException.class,
+                () -> productService.scrollProducts(null, "name", Sort.Direction.ASC, priceCursor, 2));
+        ResponseStatusException garbage = assertThrows(ResponseStatusException.class,
+                () -> productService.scrollProducts(null, "price", Sort.Direction.ASC, "not-a-cursor!", 2));
+
+        assertEquals(HttpStatus.BAD_REQUEST, otherSort.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, garbage.getStatusCode());
+    }
+
+    private List<Long> walk(Long categoryId, String sortBy, Sort.Direction direction, int size) {
+        List<Long> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductScrollDto window = productService.scrollProducts(categoryId, sortBy, direction, cursor, size);
+            assertTrue(window.products().size() <= size);
+            window.products().stream().map(ProductListDto::id).forEach(walked::add);
+            cursor = window.nextCursor();
+        } while (cursor != null);
+        return walked;
+    }
+
+    private Category category(String name, String slug) {
+        Category category = new Category();
+        category.setCategoryName(name);
+        category.setSlug(slug);
+        return entityManager.persist(category);
+    }
+
+    private Product product(Category category, String name, int price) {
+        return entityManager.persist(Product.builder()
+                .category(category)
+                .productName(name)
+                .description(name + " description")
+                .price(BigDecimal.valueOf(price))
+                .stock(10)
+                .build());
+    }
+}
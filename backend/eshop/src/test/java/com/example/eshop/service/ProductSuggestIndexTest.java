@@ -0,0 +1,117 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Category;
+import com.example.eshop.model.dto.business.SuggestionDto;
+import com.example.eshop.repository.interfaces.CategoryJpaRepository;
+import com.example.eshop.repository.interfaces.ProductJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ProductSuggestIndexTest {
+
+    private ProductJpaRepository productRepository;
+    private CategoryJpaRepository categoryRepository;
+    private ProductSuggestIndex suggestIndex;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ProductJpaRepository.class);
+        categoryRepository = mock(CategoryJpaRepository.class);
+        suggestIndex = new ProductSuggestIndex(productRepository, categoryRepository);
+
+        when(categoryRepository.findAll()).thenReturn(List.of(category(1L, "Laptops")));
+        when(productRepository.findProductSuggestionPage(eq(0L), any())).thenReturn(List.of(
+                product(10L, "Dell XPS 13 Laptop"),
+                product(11L, "Lenovo ThinkPad X1"),
+                product(12L, "Laptop Stand")));
+        suggestIndex.build();
+    }
+
+    @Test
+    void suggest_shouldRankNameStartsThenCategoriesThenShorterNames() {
+        List<SuggestionDto> suggestions = suggestIndex.suggest("lap", 10);
+
+        assertTrue(suggestIndex.isReady());
+        assertEquals(List.of(
+                new SuggestionDto(SuggestionDto.CATEGORY, 1L, "Laptops"),
+                product(12L, "Laptop Stand"),
+                product(10L, "Dell XPS 13 Laptop")), suggestions);
+        assertEquals(2, suggestIndex.suggest("LAP", 2).size());
+    }
+
+    @Test
+    void suggest_shouldMatchLaterWordsAndWholePhrases() {
+        assertEquals(List.of(product(10L, "Dell XPS 13 Laptop")), suggestIndex.suggest("xps 1", 10));
+        assertEquals(List.of(product(11L, "Lenovo ThinkPad X1")), suggestIndex.suggest("thinkpad-x", 10));
+        assertTrue(suggestIndex.suggest("dell laptop", 10).isEmpty());
+        assertTrue(suggestIndex.suggest("  ", 10).isEmpty());
+    }
+
+    @Test
+    void onCatalogChanged_shouldReplaceRenamedAndDropDeletedNames() {
+        when(productRepository.findProductSuggestion(12L)).thenReturn(Optional.of(product(12L, "Monitor Stand")));
+        when(productRepository.findProductSuggestion(11L)).thenReturn(Optional.empty());
+
+        suggestIndex.onCatalogChanged(ProductCatalogChangedEvent.product(12L, 1L));
+        suggestIndex.onCatalogChanged(ProductCatalogChangedEvent.product(11L, 1L));
+
+        assertEquals(List.of(product(12L, "Monitor Stand")), suggestIndex.suggest("stand", 10));
+        assertFalse(suggestIndex.suggest("lap", 10).contains(product(12L, "Laptop Stand")));
+        assertTrue(suggestIndex.suggest("lenovo", 10).isEmpty());
+    }
+
+    @Test
+    void onCatalogChanged_shouldReloadCategoriesOnCatalogWideChange() {
+        when(categoryRepository.findAll()).thenReturn(List.of(category(2L, "Tablets")));
+
+        suggestIndex.onCatalogChanged(ProductCatalogChangedEvent.allProducts());
+
+        assertEquals(List.of(new SuggestionDto(SuggestionDto.CATEGORY, 2L, "Tablets")), suggestIndex.suggest("tab", 10));
+        assertEquals(2, suggestIndex.suggest("lap", 10).size());
+    }
+
+    // Wall-clock bound, only meaningful on a quiet machine: mvn test -Dtest=ProductSuggestIndexTest -Dbenchmark=true
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void suggest_shouldStayBelowAMillisecondOnALargeCatalog() {
+        List<SuggestionDto> products = new ArrayList<>();
+        for (long id = 100; id < 100_100; id++) {
+            products.add(product(id, "Product " + Long.toString(id, 36) + " model " + id % 977));
+        }
+        when(productRepository.findProductSuggestionPage(eq(0L), any())).thenReturn(products);
+        suggestIndex.build();
+
+        String[] prefixes = {"pro", "product 2", "model 9", "mod", "a", "product zz"};
+        for (int warmup = 0; warmup < 2_000; warmup++) {
+            suggestIndex.suggest(prefixes[warmup % prefixes.length], 8);
+        }
+        int lookups = 6_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            suggestIndex.suggest(prefixes[i % prefixes.length], 8);
+        }
+        long averageMicros = (System.nanoTime() - start) / lookups / 1_000;
+
+        assertTrue(averageMicros < 1_000, "Average suggest took " + averageMicros + " µs");
+    }
+
+    private static SuggestionDto product(Long id, String name) {
+        return new SuggestionDto(SuggestionDto.PRODUCT, id, name);
+    }
+
+    private static Category category(Long id, String name) {
+        Category category = new Category();
+        category.setCategoryId(id);
+        category.setCategoryName(name);
+        return category;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.eshop.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeOrderNumberGeneratorTest {
+
+    @Test
+    void nextOrderNumber_shouldBeCompactAndIncreasing() {
+        SnowflakeOrderNumberGenerator generator = new SnowflakeOrderNumberGenerator(7);
+
+        String previous = generator.nextOrderNumber();
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.nextOrderNumber();
+            assertEquals(SnowflakeOrderNumberGenerator.LENGTH, next.length());
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void nextOrderNumber_shouldEmbedNodeIdAndTimestamp() {
+        long before = System.currentTimeMillis();
+        long id = SnowflakeOrderNumberGenerator.decode(new SnowflakeOrderNumberGenerator(513).nextOrderNumber());
+
+        long nodeId = (id >>> SnowflakeOrderNumberGenerator.SEQUENCE_BITS) & SnowflakeOrderNumberGenerator.MAX_NODE_ID;
+        long timestamp = (id >>> (SnowflakeOrderNumberGenerator.NODE_BITS + SnowflakeOrderNumberGenerator.SEQUENCE_BITS))
+                + SnowflakeOrderNumberGenerator.EPOCH_MILLIS;
+
+        assertEquals(513, nodeId);
+        assertTrue(timestamp >= before && timestamp <= System.currentTimeMillis() + 1);
+    }
+
+    @Test
+    void nextOrderNumber_shouldNotCollideAcrossThreadsAndNodes() throws Exception {
+        SnowflakeOrderNumberGenerator nodeA = new SnowflakeOrderNumberGenerator(1);
+        SnowflakeOrderNumberGenerator nodeB = new SnowflakeOrderNumberGenerator(2);
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<List<String>>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            SnowflakeOrderNumberGenerator generator = t % 2 == 0 ? nodeA : nodeB;
+            futures.add(executor.submit(() -> {
+                List<String> numbers = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    numbers.add(generator.nextOrderNumber());
+                }
+                return numbers;
+            }));
+        }
+
+        Set<String> unique = new HashSet<>();
+        for (Future<List<String>> future : futures) {
+            unique.addAll(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, unique.size());
+    }
+
+    @Test
+    void resumeAfter_shouldNotReissueNumbersBorrowedBeforeARestart() {
+        SnowflakeOrderNumberGenerator before = new SnowflakeOrderNumberGenerator(3);
+        // Exhausts the sequence of many milliseconds, running ahead of the clock
+        String last = null;
+        for (int i = 0; i < 200_000; i++) {
+            last = before.nextOrderNumber();
+        }
+
+        SnowflakeOrderNumberGenerator restarted = new SnowflakeOrderNumberGenerator(3);
+        restarted.resumeAfter(last);
+
+        String next = restarted.nextOrderNumber();
+        assertTrue(next.compareTo(last) > 0, next + " should sort after " + last);
+    }
+
+    @Test
+    void isSnowflake_shouldSkipLegacyUuidNumbers() {
+        assertTrue(SnowflakeOrderNumberGenerator.isSnowflake(new SnowflakeOrderNumberGenerator(0).nextOrderNumber()));
+        assertFalse(SnowflakeOrderNumberGenerator.isSnowflake(new UuidOrderNumberGenerator().nextOrderNumber()));
+    }
+
+    @Test
+    void constructor_shouldRequireNodeIdInRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeOrderNumberGenerator(-1));
+    }
+}
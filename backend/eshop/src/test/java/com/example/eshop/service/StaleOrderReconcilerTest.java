@@ -0,0 +1,136 @@
+package com.example.eshop.service;
+
+import com.example.eshop.model.Order;
+import com.example.eshop.model.dto.business.StaleOrderReconcilerStats;
+import com.example.eshop.model.dto.business.StaleOrderRef;
+import com.example.eshop.repository.interfaces.OrderJpaRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class StaleOrderReconcilerTest {
+
+    private static final int PAGE_SIZE = 10;
+    private static final int CONCURRENCY = 4;
+
+    private OrderJpaRepository orderRepo;
+    private OrderService orderService;
+    private PayPalService payPalService;
+    private StaleOrderReconciler reconciler;
+
+    @BeforeEach
+    void setUp() {
+        orderRepo = mock(OrderJpaRepository.class);
+        orderService = mock(OrderService.class);
+        payPalService = mock(PayPalService.class);
+        reconciler = new StaleOrderReconciler(orderRepo, orderService, payPalService);
+
+        ReflectionTestUtils.setField(reconciler, "staleAfter", Duration.ofHours(1));
+        ReflectionTestUtils.setField(reconciler, "expireAfter", Duration.ofHours(3));
+        ReflectionTestUtils.setField(reconciler, "pageSize", PAGE_SIZE);
+        ReflectionTestUtils.setField(reconciler, "concurrency", CONCURRENCY);
+        ReflectionTestUtils.setField(reconciler, "paypalTimeout", Duration.ofMillis(200));
+    }
+
+    @Test
+    void reconcile_shouldPageByKeysetAndBoundConcurrency() {
+        List<StaleOrderRef> orders = staleOrders(25, LocalDateTime.now().minusHours(2));
+        stubPages(orders);
+
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(payPalService.getOrderStatus(anyString())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return "VOIDED";
+        });
+
+        reconciler.reconcileStalePendingOrders();
+
+        verify(orderRepo, times(3)).findStaleOrderPage(eq(Order.OrderStatus.PENDING), any(), any(), any(), any());
+        verify(orderService, times(25)).cancelStaleOrder(anyLong());
+        assertTrue(maxInFlight.get() <= CONCURRENCY, "Concurrency limit exceeded: " + maxInFlight.get());
+
+        StaleOrderReconcilerStats stats = reconciler.getStats();
+        assertEquals(25, stats.processed());
+        assertEquals(25, stats.cancelled());
+        assertEquals(0, stats.backlog());
+        assertEquals(25, stats.lastRunProcessed());
+    }
+
+    @Test
+    void reconcile_shouldRetainOrderWhenPayPalCallTimesOut() {
+        stubPages(staleOrders(1, LocalDateTime.now().minusHours(2)));
+        when(payPalService.getOrderStatus(anyString())).thenAnswer(invocation -> {
+            Thread.sleep(5_000);
+            return "APPROVED";
+        });
+
+        reconciler.reconcileStalePendingOrders();
+
+        verify(orderService, never()).expireStaleOrder(anyLong());
+        verify(orderService, never()).commitStaleOrderStock(anyLong());
+        StaleOrderReconcilerStats stats = reconciler.getStats();
+        assertEquals(1, stats.paypalTimeouts());
+        assertEquals(1, stats.retained());
+    }
+
+    @Test
+    void reconcile_shouldCaptureApprovedOrder() {
+        stubPages(staleOrders(1, LocalDateTime.now().minusHours(2)));
+        when(payPalService.getOrderStatus(anyString())).thenReturn("APPROVED");
+        when(orderService.commitStaleOrderStock(1L)).thenReturn(true);
+
+        reconciler.reconcileStalePendingOrders();
+
+        verify(payPalService).capturePayPalOrder("PAYPAL-1");
+        verify(orderService).markStaleOrderCaptured(1L);
+        assertEquals(1, reconciler.getStats().captured());
+    }
+
+    @Test
+    void reconcile_shouldExpireOldOrderWithoutFinalStatus() {
+        stubPages(staleOrders(1, LocalDateTime.now().minusHours(4)));
+        when(payPalService.getOrderStatus(anyString())).thenReturn("CREATED");
+
+        reconciler.reconcileStalePendingOrders();
+
+        verify(orderService).expireStaleOrder(1L);
+        assertEquals(1, reconciler.getStats().expired());
+    }
+
+    private List<StaleOrderRef> staleOrders(int count, LocalDateTime createdAt) {
+        List<StaleOrderRef> orders = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            orders.add(new StaleOrderRef(id, "ORD-" + id, "PAYPAL-" + id, createdAt, createdAt));
+        }
+        return orders;
+    }
+
+    // Serves the orders after the (afterDate, afterId) cursor like the keyset query does
+    private void stubPages(List<StaleOrderRef> orders) {
+        when(orderRepo.findStaleOrderPage(eq(Order.OrderStatus.PENDING), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Long afterId = invocation.getArgument(3);
+                    Pageable pageable = invocation.getArgument(4);
+                    return orders.stream()
+                            .filter(order -> order.orderId() > afterId)
+                            .limit(pageable.getPageSize())
+                            .toList();
+                });
+        when(orderRepo.countByOrderStatusAndOrderDateBefore(eq(Order.OrderStatus.PENDING), any()))
+                .thenReturn((long) orders.size());
+    }
+}
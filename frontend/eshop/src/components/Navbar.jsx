@@ -30,6 +30,9 @@ function Navbar() {
   const [isLoggingOut, setIsLoggingOut] = useState(false);
 
   const userDropdownRef = useRef(null);
+  const suggestTimerRef = useRef(null);
+  const suggestRequestRef = useRef(null);
+  const [suggestions, setSuggestions] = useState([]);
 
   const cartItems = useSelector((state) => state.cart?.items || []);
   const itemCount = cartItems.reduce((total, item) => total + item.quantity, 0);
@@ -103,16 +106,55 @@ function Navbar() {
   const handleSearch = (e) => {
     if (e.type === 'submit') {
       e.preventDefault(); // Prevent form submission refresh
+      cancelSuggest();
+      setSuggestions([]);
       dispatch(fetchProducts());
       return;
     }
 
-    dispatch(setSearchTerm(e.target.value));
-    // Debounce search for onChange
-    const timeoutId = setTimeout(() => {
+    const value = e.target.value;
+    dispatch(setSearchTerm(value));
+    cancelSuggest();
+    if (!value.trim()) {
+      // Cleared search, back to the full listing
+      setSuggestions([]);
       dispatch(fetchProducts());
-    }, 300);
-    return () => clearTimeout(timeoutId);
+      return;
+    }
+    // Typeahead while typing, the full search runs on submit or when a suggestion is picked
+    suggestTimerRef.current = setTimeout(async () => {
+      const controller = new AbortController();
+      suggestRequestRef.current = controller;
+      try {
+        const response = await fetch(`/api/products/suggest?q=${encodeURIComponent(value)}&limit=8`,
+          { signal: controller.signal });
+        if (response.ok) {
+          const result = await response.json();
+          // A newer keystroke may have started another request while this body was read
+          if (!controller.signal.aborted) {
+            setSuggestions(result);
+          }
+        }
+      } catch {
+        if (!controller.signal.aborted) {
+          setSuggestions([]);
+        }
+      }
+    }, 150);
+  };
+
+  // Drops the pending typeahead and the request in flight, so an older response never overwrites a newer one
+  const cancelSuggest = () => {
+    clearTimeout(suggestTimerRef.current);
+    suggestRequestRef.current?.abort();
+    suggestRequestRef.current = null;
+  };
+
+  const handleSuggestionClick = (suggestion) => {
+    cancelSuggest();
+    setSuggestions([]);
+    dispatch(setSearchTerm(suggestion.name));
+    dispatch(fetchProducts());
   };
 
   const renderUserDropdown = () => {
@@ -336,14 +378,32 @@ function Navbar() {
 
         {/* Desktop Search */}
         {!shouldHideSearchBar && (
-          <form className="hidden md:block w-1/2" onSubmit={handleSearch}>
+          <form className="hidden md:block w-1/2 relative" onSubmit={handleSearch}>
             <input
               type="text"
               placeholder="Search Product"
               className="bg-zinc-100 rounded-md border border-zinc-200 focus:outline-none focus:ring-2 focus:ring-blue-500 focus:border-transparent py-3 px-3 w-full transition-all"
               value={searchTerm}
               onChange={handleSearch}
+              onBlur={() => setTimeout(() => setSuggestions([]), 150)}
             />
+            {suggestions.length > 0 && (
+              <ul className="absolute left-0 right-0 top-full mt-1 z-30 bg-white border rounded-md shadow-lg">
+                {suggestions.map((suggestion) => (
+                  <li key={`${suggestion.type}-${suggestion.id}`}>
+                    <button
+                      type="button"
+                      className="w-full text-left px-3 py-2 hover:bg-zinc-100 flex justify-between"
+                      onMouseDown={(e) => e.preventDefault()}
+                      onClick={() => handleSuggestionClick(suggestion)}
+                    >
+                      <span>{suggestion.name}</span>
+                      {suggestion.type === 'category' && <span className="text-xs text-gray-500">Category</span>}
+                    </button>
+                  </li>
+                ))}
+              </ul>
+            )}
           </form>
         )}
 
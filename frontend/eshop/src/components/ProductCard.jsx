@@ -6,7 +6,7 @@ ProductCard.propTypes = {
     id: PropTypes.oneOfType([PropTypes.string, PropTypes.number]).isRequired,
     name: PropTypes.string,
     imageUrl: PropTypes.string,
-    description: PropTypes.string,
+    shortDescription: PropTypes.string,
     price: PropTypes.number.isRequired,
   }).isRequired,
 };
@@ -27,7 +27,7 @@ function ProductCard({ product }) {
             {(product.name?.substring(0, 25) ?? "No title") + "..."}
           </h2>
           <p className="text-sm text-zinc-500 border-b-2 pb-4">
-            {(product.description?.substring(0, 70) ?? "No description") + "..."}
+            {(product.shortDescription?.substring(0, 70) ?? "No description") + "..."}
           </p>
           <div className="flex justify-between mt-4 items-center">
             <p className="text-xl font-semibold">${product.price}</p>
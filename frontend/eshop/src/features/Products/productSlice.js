@@ -33,6 +33,8 @@ export const fetchProducts = createAsyncThunk(
       if (searchTerm && searchTerm.trim()) {
         url = '/api/products/search';
         queryParams.q = searchTerm.trim();
+        // Search results are ranked by relevance unless the caller picks a sort
+        if (!params.sortBy) queryParams.sortBy = 'relevance';
       }
 
       const queryString = buildQueryString(queryParams);
@@ -59,6 +61,26 @@ export const fetchProducts = createAsyncThunk(
   }
 );
 
+// Fetch one product with its full description for the details page,
+// list responses only carry the short description
+export const fetchProductById = createAsyncThunk(
+  "products/fetchProductById",
+  async (id, thunkAPI) => {
+    try {
+      const response = await fetch(`/api/products/${id}`);
+      const result = await response.json();
+
+      if (!response.ok) {
+        const errorMessage = result?.message || result?.error || "Failed to fetch product";
+        return thunkAPI.rejectWithValue(errorMessage);
+      }
+      return result;
+    } catch {
+      return thunkAPI.rejectWithValue("Network error");
+    }
+  }
+);
+
 // Fetch list products for Admin
 export const fetchAdminProducts = createAsyncThunk(
   "products/fetchAdminProducts",
@@ -182,6 +204,8 @@ export const updateAdminProductStock = createAsyncThunk(
 const initialState = {
   items: [],
   filteredItems: [],
+  selectedProduct: null,
+  selectedProductError: null,
   searchTerm: "",
   selectedCategory: "All",
   loading: false,
@@ -258,6 +282,18 @@ const productSlice = createSlice({
         state.filteredItems = [];
       });
 
+    builder
+      .addCase(fetchProductById.pending, (state) => {
+        state.selectedProduct = null;
+        state.selectedProductError = null;
+      })
+      .addCase(fetchProductById.fulfilled, (state, action) => {
+        state.selectedProduct = action.payload;
+      })
+      .addCase(fetchProductById.rejected, (state, action) => {
+        state.selectedProductError = action.payload || "Failed to fetch product";
+      });
+
     builder
       .addCase(fetchAdminProducts.pending, (state) => {
         state.adminLoading = true;
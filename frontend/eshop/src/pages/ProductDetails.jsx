@@ -3,23 +3,22 @@ import { useDispatch, useSelector } from "react-redux";
 import { ShoppingCart, AlertCircle } from "lucide-react";
 import { addToCart, addToCartAsync } from "../features/Cart/cartSlice";
 import { useEffect } from "react";
-import { fetchProducts } from "../features/Products/productSlice";
+import { fetchProductById } from "../features/Products/productSlice";
 
 function ProductDetails() {
   const { id } = useParams();
   const dispatch = useDispatch();
   const isAuthenticated = useSelector(state => state.auth.isAuthenticated);
 
+  // The list endpoints only return a short description, the page loads the full product
   const product = useSelector((state) =>
-    state.product.items.find((p) => p.id === parseInt(id))
+    state.product.selectedProduct?.id === parseInt(id) ? state.product.selectedProduct : null
   );
+  const error = useSelector((state) => state.product.selectedProductError);
 
-  // Fetch product if not found
   useEffect(() => {
-    if (!product) {
-      dispatch(fetchProducts());
-    }
-  }, [dispatch, product]);
+    dispatch(fetchProductById(id));
+  }, [dispatch, id]);
 
   const handleAddToCart = async () => {
     if (!product.isActive) {
@@ -46,7 +45,7 @@ function ProductDetails() {
     return (
       <div className="container mx-auto px-4 py-8">
         <div className="text-center">
-          <h2 className="text-2xl font-bold mb-4">Loading...</h2>
+          <h2 className="text-2xl font-bold mb-4">{error || "Loading..."}</h2>
         </div>
       </div>
     );
@@ -3,11 +3,40 @@ import { format } from 'date-fns';
 import { ArrowUpDown } from 'lucide-react';
 import OrderDetails from '../../components/orders/OrderDetails';
 
+// Orders are served newest first in pages, nextCursor is null after the last page
+const fetchOrders = async (cursor) => {
+  const params = cursor ? `?cursor=${encodeURIComponent(cursor)}` : '';
+  const response = await fetch(`/api/user/me/orders${params}`, {
+    credentials: 'include'
+  });
+  const result = await response.json();
+
+  if (!response.ok) {
+    throw new Error(result.message || 'Failed to load orders');
+  }
+  return result.data;
+};
+
+// List rows are summaries, the items are only loaded for the order being viewed
+const fetchOrderDetails = async (orderId) => {
+  const response = await fetch(`/api/user/me/orders/${orderId}`, {
+    credentials: 'include'
+  });
+  const result = await response.json();
+
+  if (!response.ok) {
+    throw new Error(result.message || 'Failed to load order details');
+  }
+  return result.data;
+};
+
 const Orders = () => {
   const [orders, setOrders] = useState([]);
   const [loading, setLoading] = useState(true);
   const [error, setError] = useState(null);
   const [selectedOrder, setSelectedOrder] = useState(null);
+  const [nextCursor, setNextCursor] = useState(null);
+  const [loadingMore, setLoadingMore] = useState(false);
 
   const [sortConfig, setSortConfig] = useState({ key: 'orderDate', direction: 'desc' });
 
@@ -35,28 +64,42 @@ const Orders = () => {
   };
 
   useEffect(() => {
-    const fetchOrders = async () => {
+    const loadFirstPage = async () => {
       try {
-        const response = await fetch('/api/user/me/orders', {
-          credentials: 'include'
-        });
-        const result = await response.json();
-
-        if (response.ok) {
-          setOrders(result.data.orders);
-        } else {
-          setError(result.message);
-        }
-      } catch {
-        setError('Failed to load orders');
+        const data = await fetchOrders();
+        setOrders(data.orders);
+        setNextCursor(data.nextCursor);
+      } catch (err) {
+        setError(err.message);
       } finally {
         setLoading(false);
       }
     };
 
-    fetchOrders();
+    loadFirstPage();
   }, []);
 
+  const loadMore = async () => {
+    setLoadingMore(true);
+    try {
+      const data = await fetchOrders(nextCursor);
+      setOrders((current) => [...current, ...data.orders]);
+      setNextCursor(data.nextCursor);
+    } catch (err) {
+      setError(err.message);
+    } finally {
+      setLoadingMore(false);
+    }
+  };
+
+  const viewDetails = async (orderId) => {
+    try {
+      setSelectedOrder(await fetchOrderDetails(orderId));
+    } catch (err) {
+      setError(err.message);
+    }
+  };
+
   if (loading) {
     return (
       <div className="container mx-auto px-4 py-8">
@@ -134,7 +177,7 @@ const Orders = () => {
                     </td>
                     <td className="px-6 py-4 whitespace-nowrap">
                       <button
-                        onClick={() => setSelectedOrder(order)}
+                        onClick={() => viewDetails(order.orderId)}
                         className="text-blue-600 font-bold hover:text-blue-800"
                       >
                         View Details
@@ -146,6 +189,18 @@ const Orders = () => {
             </table>
           </div>
         </div>
+        {nextCursor && (
+          <div className="px-6 py-4 text-center border-t border-gray-200">
+            <button
+              type="button"
+              onClick={loadMore}
+              disabled={loadingMore}
+              className="text-blue-600 font-bold hover:text-blue-800 disabled:text-gray-400"
+            >
+              {loadingMore ? 'Loading...' : 'Load more orders'}
+            </button>
+          </div>
+        )}
       </div>
 
       {selectedOrder && (